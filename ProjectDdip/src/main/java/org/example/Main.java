@@ -3,17 +3,24 @@ package org.example;
 import org.example.config.Config;
 import org.example.db.DatabaseManager;
 import org.example.parser.HhVacancyParser;
+import org.example.parser.HttpResponseCache;
+import org.example.parser.HttpTransport;
+import org.example.parser.PagedVacancyParser;
 import org.example.parser.SuperJobVacancyParser;
 import org.example.parser.VacancyParser;
+import org.example.repository.VacancyBulkLoader;
 import org.example.repository.VacancyRepository;
 import org.example.service.VacancyParserService;
+import org.example.spool.VacancySpool;
 import org.example.ui.ConsoleUI;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.StringJoiner;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -29,19 +36,23 @@ public class Main {
     public static void main(String[] args) {
         VacancyRepository repo = new VacancyRepository();
         
+        HttpResponseCache httpCache = HttpResponseCache.fromConfig();
         String parserKeys = Config.get("parsers");
         List<VacancyParser> parsers = new ArrayList<>();
         if (parserKeys != null) {
             for (String key : parserKeys.split(",")) {
                 switch (key.trim()) {
-                    case "hh" -> parsers.add(new HhVacancyParser());
-                    case "superjob" -> parsers.add(new SuperJobVacancyParser());
+                    case "hh" -> parsers.add(new HhVacancyParser(httpCache));
+                    case "superjob" -> parsers.add(new SuperJobVacancyParser(httpCache));
                     default -> System.err.println("Unknown parser key: " + key);
                 }
             }
         }
         
-        VacancyParserService parserService = new VacancyParserService(repo, parsers);
+        VacancySpool spool = VacancySpool.fromConfig();
+        VacancyParserService parserService = new VacancyParserService(
+                repo, parsers, VacancyParserService.SyncMode.fromConfig(), new VacancyBulkLoader(),
+                Duration.ofSeconds(Config.getLong("sync.source.timeoutSeconds", 300)), spool);
         parserService.parseAndSaveAll();
 
         // Планировщик для автоматического обновления вакансий каждый час
@@ -50,13 +61,48 @@ public class Main {
             System.out.println("[" + LocalDateTime.now() + "] [Scheduler] Запуск автоматического парсинга...");
             try {
                 parserService.parseAndSaveAll();
+                System.out.println("[Scheduler] Пул соединений: " + DatabaseManager.getInstance().getPoolStats());
+                if (httpCache != null) {
+                    System.out.println("[Scheduler] HTTP-кэш: " + httpCache.stats());
+                }
+                HttpTransport.shared().stats().forEach((host, stats) ->
+                        System.out.println("[Scheduler] HTTP " + host + ": " + stats));
+                StringJoiner limiters = new StringJoiner("; ");
+                for (VacancyParser parser : parsers) {
+                    if (parser instanceof PagedVacancyParser<?, ?> paged) {
+                        limiters.add(paged.limiter().toString());
+                    }
+                }
+                if (limiters.length() > 0) {
+                    System.out.println("[Scheduler] Ограничители: " + limiters);
+                }
             } catch (Exception e) {
                 System.err.println("[Scheduler] Ошибка: " + e.getMessage());
                 e.printStackTrace();
             }
         }, 0, 1, TimeUnit.HOURS);
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+        // Выгрузки, не записанные из-за недоступности БД, дописываются из спула в фоне
+        if (spool != null) {
+            long drainSeconds = Config.getLong("spool.drainIntervalSeconds", 60);
+            scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    int written = parserService.drainSpool();
+                    if (written > 0) {
+                        System.out.println("[Scheduler] Записано выгрузок из спула: " + written);
+                    }
+                } catch (Exception e) {
+                    System.err.println("[Scheduler] Ошибка записи из спула: " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }, drainSeconds, drainSeconds, TimeUnit.SECONDS);
+        }
+
+        try {
+            // Проверяем доступность БД; соединение сразу возвращается в пул
+            try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+                conn.isValid(2);
+            }
             ConsoleUI ui = new ConsoleUI(repo, parserService);
             ui.start();
             
@@ -70,6 +116,16 @@ public class Main {
         } catch (InterruptedException e) {
             System.err.println("Ожидание завершения планировщика прервано: " + e.getMessage());
             scheduler.shutdownNow();
+        } finally {
+            shutdownDatabase();
+        }
+    }
+
+    private static void shutdownDatabase() {
+        try {
+            DatabaseManager.getInstance().shutdown();
+        } catch (SQLException e) {
+            System.err.println("Ошибка при закрытии пула соединений: " + e.getMessage());
         }
     }
 }
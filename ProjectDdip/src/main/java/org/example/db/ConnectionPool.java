@@ -0,0 +1,413 @@
+package org.example.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограниченный пул JDBC-соединений.
+ * <p>
+ * Соединение выдаётся в аренду через {@link #borrow()} и возвращается в пул
+ * при вызове {@code close()} у полученного объекта, поэтому существующие
+ * блоки try-with-resources в репозитории не разрывают физическое соединение.
+ * При выдаче соединение проверяется через {@link Connection#isValid(int)},
+ * простаивающие дольше idleTimeout соединения закрываются фоновым потоком после {@link #start()}.
+ * <p>
+ * Подготовленные запросы кэширует драйвер — по тексту SQL, отдельно для каждого физического
+ * соединения. Пул запоминает тексты, подготовленные на соединении, в LRU того же размера,
+ * что и кэш драйвера, и по нему считает попадания и промахи ({@link PoolStats#statementHits()}):
+ * попадание означает, что после прогрева запрос не разбирается и не планируется заново.
+ * Кэш драйвера ограничен ещё и объёмом, поэтому счётчики — оценка сверху.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Источник новых физических соединений.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private final ConnectionFactory factory;
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final long idleTimeoutMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheQueries;
+
+    private final Semaphore permits;
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService evictor;
+    private final AtomicBoolean evictorStarted = new AtomicBoolean();
+    private volatile boolean closed;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+    private final Map<Connection, PreparedTexts> preparedTexts = new ConcurrentHashMap<>();
+
+    public ConnectionPool(ConnectionFactory factory,
+                          int maxSize,
+                          long maxWaitMillis,
+                          long idleTimeoutMillis,
+                          int validationTimeoutSeconds) {
+        this(factory, maxSize, maxWaitMillis, idleTimeoutMillis, validationTimeoutSeconds, 256);
+    }
+
+    /**
+     * @param statementCacheQueries размер кэша запросов драйвера ({@code preparedStatementCacheQueries})
+     */
+    public ConnectionPool(ConnectionFactory factory,
+                          int maxSize,
+                          long maxWaitMillis,
+                          long idleTimeoutMillis,
+                          int validationTimeoutSeconds,
+                          int statementCacheQueries) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Размер пула должен быть положительным: " + maxSize);
+        }
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheQueries = statementCacheQueries;
+        this.permits = new Semaphore(maxSize, true);
+
+        if (idleTimeoutMillis > 0) {
+            this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "db-pool-evictor");
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            this.evictor = null;
+        }
+    }
+
+    /**
+     * Запускает фоновое закрытие простаивающих соединений. Вызывается после создания пула,
+     * чтобы поток вытеснения не получил ссылку на ещё не сконструированный объект.
+     */
+    public ConnectionPool start() {
+        if (evictor != null && !evictorStarted.getAndSet(true)) {
+            long period = Math.max(1000, idleTimeoutMillis / 2);
+            evictor.scheduleAtFixedRate(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+        }
+        return this;
+    }
+
+    /**
+     * Выдаёт соединение из пула, ожидая не дольше maxWait.
+     * Возвращённый объект необходимо закрыть — это вернёт соединение в пул.
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Пул соединений закрыт");
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Ожидание соединения прервано", e);
+        }
+        if (!acquired) {
+            timeouts.incrementAndGet();
+            throw new SQLTransientConnectionException(
+                    "Не удалось получить соединение из пула за " + maxWaitMillis + " мс (" + stats() + ")");
+        }
+
+        Connection physical;
+        try {
+            physical = takeValidOrCreate();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+
+        long waited = System.nanoTime() - start;
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        borrows.incrementAndGet();
+        active.incrementAndGet();
+        return lease(physical);
+    }
+
+    private Connection takeValidOrCreate() throws SQLException {
+        while (true) {
+            IdleConnection candidate;
+            synchronized (idle) {
+                candidate = idle.pollFirst();
+            }
+            if (candidate == null) {
+                Connection fresh = factory.create();
+                created.incrementAndGet();
+                return fresh;
+            }
+            if (isUsable(candidate.connection)) {
+                return candidate.connection;
+            }
+            destroy(candidate.connection);
+        }
+    }
+
+    private boolean isUsable(Connection conn) {
+        try {
+            return !conn.isClosed() && conn.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Возвращает физическое соединение в пул, предварительно сбрасывая
+     * состояние, которое мог изменить клиент (открытая транзакция, autocommit).
+     */
+    private void release(Connection physical) {
+        boolean reusable = !closed;
+        if (reusable) {
+            try {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                if (physical.isReadOnly()) {
+                    physical.setReadOnly(false);
+                }
+                physical.clearWarnings();
+            } catch (SQLException e) {
+                reusable = false;
+            }
+        }
+
+        if (reusable) {
+            synchronized (idle) {
+                idle.addFirst(new IdleConnection(physical, System.nanoTime()));
+            }
+        } else {
+            destroy(physical);
+        }
+        active.decrementAndGet();
+        permits.release();
+    }
+
+    /**
+     * Закрывает соединения, простаивающие дольше idleTimeout.
+     * Самые давно использованные соединения находятся в хвосте очереди.
+     */
+    void evictIdle() {
+        long threshold = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        List<Connection> expired = new ArrayList<>();
+        synchronized (idle) {
+            Iterator<IdleConnection> it = idle.descendingIterator();
+            while (it.hasNext()) {
+                IdleConnection ic = it.next();
+                if (ic.idleSinceNanos - threshold > 0) {
+                    break;
+                }
+                it.remove();
+                expired.add(ic.connection);
+            }
+        }
+        expired.forEach(this::destroy);
+    }
+
+    private void destroy(Connection conn) {
+        destroyed.incrementAndGet();
+        preparedTexts.remove(conn);
+        try {
+            conn.close();
+        } catch (SQLException ignored) {
+            // соединение всё равно выбрасывается из пула
+        }
+    }
+
+    public PoolStats stats() {
+        int idleCount;
+        synchronized (idle) {
+            idleCount = idle.size();
+        }
+        long count = borrows.get();
+        double avgWait = count == 0 ? 0.0 : totalWaitNanos.get() / (double) count / 1_000_000.0;
+        return new PoolStats(
+                active.get(),
+                idleCount,
+                maxSize,
+                count,
+                timeouts.get(),
+                created.get(),
+                destroyed.get(),
+                avgWait,
+                maxWaitNanos.get() / 1_000_000.0,
+                statementHits.get(),
+                statementMisses.get()
+        );
+    }
+
+    /**
+     * Учитывает подготовку {@code sql} на физическом соединении: попадание, если драйвер
+     * уже держит этот текст в своём кэше.
+     */
+    private void countPrepare(Connection physical, String sql) {
+        PreparedTexts texts = preparedTexts.computeIfAbsent(physical, c -> new PreparedTexts(statementCacheQueries));
+        if (texts.put(sql, Boolean.TRUE) != null) {
+            statementHits.incrementAndGet();
+        } else {
+            statementMisses.incrementAndGet();
+        }
+    }
+
+    /**
+     * Тексты SQL, подготовленные на одном соединении, в порядке последнего использования.
+     * Соединение в каждый момент арендовано одним клиентом, поэтому синхронизация не нужна.
+     */
+    private static final class PreparedTexts extends LinkedHashMap<String, Boolean> {
+        private final int capacity;
+
+        PreparedTexts(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    /**
+     * Закрывает все простаивающие соединения. Арендованные соединения
+     * будут закрыты при возврате.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        List<Connection> toClose = new ArrayList<>();
+        synchronized (idle) {
+            for (IdleConnection ic : idle) {
+                toClose.add(ic.connection);
+            }
+            idle.clear();
+        }
+        toClose.forEach(this::destroy);
+    }
+
+    private Connection lease(Connection physical) {
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new LeaseHandler(physical));
+    }
+
+    private record IdleConnection(Connection connection, long idleSinceNanos) {
+    }
+
+    /**
+     * Обёртка над арендованным соединением: {@code close()} возвращает
+     * соединение в пул, повторный вызов ничего не делает, а любые другие
+     * вызовы после возврата запрещены. Statement и DatabaseMetaData тоже оборачиваются,
+     * чтобы их {@code getConnection()} отдавал арендованное соединение, а не физическое.
+     */
+    private final class LeaseHandler implements InvocationHandler {
+        private final Connection physical;
+        private final AtomicBoolean returned = new AtomicBoolean();
+
+        LeaseHandler(Connection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (returned.compareAndSet(false, true)) {
+                        release(physical);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned.get() || physical.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "PooledConnection[" + physical + (returned.get() ? ", returned" : "") + "]";
+                }
+                default -> {
+                    if (returned.get()) {
+                        throw new SQLException("Соединение уже возвращено в пул");
+                    }
+                    if ((method.getName().equals("prepareStatement") || method.getName().equals("prepareCall"))
+                            && args != null && args[0] instanceof String sql) {
+                        countPrepare(physical, sql);
+                    }
+                    return ownedBy((Connection) proxy, method.getReturnType(), delegate(physical, method, args));
+                }
+            }
+        }
+    }
+
+    /**
+     * Оборачивает Statement или DatabaseMetaData так, что {@code getConnection()}
+     * возвращает {@code lease}; прочие объекты отдаются как есть.
+     */
+    private static Object ownedBy(Connection lease, Class<?> type, Object target) {
+        if (target == null || !(Statement.class.isAssignableFrom(type) || type == DatabaseMetaData.class)) {
+            return target;
+        }
+        return Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getConnection" -> lease;
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> delegate(target, method, args);
+                });
+    }
+
+    private static Object delegate(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -5,16 +5,19 @@ import org.example.config.Config;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
 
+/**
+ * Точка доступа к базе данных. Держит пул соединений {@link ConnectionPool};
+ * каждое {@link #getConnection()} арендует соединение, а его {@code close()}
+ * возвращает соединение в пул. При первом обращении схема приводится
+ * к актуальной версии через {@link SchemaMigrator}.
+ */
 public class DatabaseManager {
     private static DatabaseManager instance;
-    private Connection connection;
+    private final ConnectionPool pool;
 
-    private DatabaseManager() throws SQLException {
-        reconnect();
-    }
-
-    private void reconnect() throws SQLException {
+    private DatabaseManager() {
         String url  = Config.get("db.url");
         String user = Config.get("db.username");
         String pass = Config.get("db.password");
@@ -22,28 +25,63 @@ public class DatabaseManager {
         if (url == null || user == null) {
             throw new RuntimeException("Не найдены ключи db.url или db.username в config.properties");
         }
-        this.connection = DriverManager.getConnection(url, user, pass);
+
+        Properties props = new Properties();
+        props.setProperty("user", user);
+        if (pass != null) {
+            props.setProperty("password", pass);
+        }
+        // Драйвер склеивает батчи INSERT в многострочные INSERT ... VALUES (...), (...)
+        props.setProperty("reWriteBatchedInserts",
+                String.valueOf(Config.getBoolean("db.reWriteBatchedInserts", true)));
+        // Драйвер сам кэширует запросы соединения по тексту SQL (preparedStatementCacheQueries
+        // и preparedStatementCacheSizeMiB), поэтому счётчик выполнений переживает закрытие
+        // PreparedStatement: после prepareThreshold выполнений текст готовится на сервере
+        // как именованный запрос, и повторные вызовы пропускают разбор и планирование.
+        props.setProperty("prepareThreshold", String.valueOf(Config.getInt("db.prepareThreshold", 1)));
+        int statementCacheQueries = Config.getInt("db.preparedStatementCacheQueries", 256);
+        props.setProperty("preparedStatementCacheQueries", String.valueOf(statementCacheQueries));
+        props.setProperty("preparedStatementCacheSizeMiB",
+                String.valueOf(Config.getInt("db.preparedStatementCacheSizeMiB", 5)));
+
+        this.pool = new ConnectionPool(
+                () -> DriverManager.getConnection(url, props),
+                Config.getInt("db.pool.maxSize", 10),
+                Config.getLong("db.pool.maxWaitMillis", 5_000),
+                Config.getLong("db.pool.idleTimeoutMillis", 600_000),
+                Config.getInt("db.pool.validationTimeoutSeconds", 2),
+                statementCacheQueries
+        ).start();
     }
 
     public static synchronized DatabaseManager getInstance() throws SQLException {
         if (instance == null) {
-            instance = new DatabaseManager();
-        } else {
-            try {
-                if (instance.connection == null || instance.connection.isClosed()) {
-                    instance.reconnect();
+            DatabaseManager manager = new DatabaseManager();
+            if (Config.getBoolean("db.migrate", true)) {
+                try {
+                    new SchemaMigrator(manager.pool::borrow).migrate();
+                } catch (SQLException | RuntimeException e) {
+                    manager.shutdown();
+                    throw e;
                 }
-            } catch (SQLException e) {
-                instance.reconnect();
             }
+            instance = manager;
         }
         return instance;
     }
 
+    /**
+     * Арендует соединение из пула. Закрытие соединения возвращает его в пул.
+     */
     public Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            reconnect();
-        }
-        return connection;
+        return pool.borrow();
+    }
+
+    public PoolStats getPoolStats() {
+        return pool.stats();
+    }
+
+    public void shutdown() {
+        pool.close();
     }
 }
@@ -0,0 +1,47 @@
+package org.example.db;
+
+/**
+ * Снимок метрик пула соединений.
+ *
+ * @param active       соединения, выданные клиентам в данный момент
+ * @param idle         соединения, ожидающие в пуле
+ * @param maxSize      максимальный размер пула
+ * @param borrows      сколько раз соединение было успешно выдано
+ * @param timeouts     сколько раз клиент не дождался соединения за maxWait
+ * @param created      сколько физических соединений было открыто
+ * @param destroyed    сколько физических соединений было закрыто (невалидные, простаивающие, сломанные)
+ * @param avgWaitMillis среднее время ожидания соединения
+ * @param maxWaitMillis максимальное время ожидания соединения
+ * @param statementHits   сколько раз подготавливался текст SQL, который драйвер уже держит в кэше соединения
+ * @param statementMisses сколько раз текст SQL встретился соединению впервые (или был вытеснен)
+ */
+public record PoolStats(
+        int active,
+        int idle,
+        int maxSize,
+        long borrows,
+        long timeouts,
+        long created,
+        long destroyed,
+        double avgWaitMillis,
+        double maxWaitMillis,
+        long statementHits,
+        long statementMisses
+) {
+    /**
+     * Доля подготовок, для которых запрос уже был в кэше драйвера.
+     */
+    public double statementHitRatio() {
+        long total = statementHits + statementMisses;
+        return total == 0 ? 0.0 : statementHits / (double) total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "active=%d, idle=%d, max=%d, borrows=%d, timeouts=%d, created=%d, destroyed=%d, wait avg=%.2fms max=%.2fms, " +
+                "statements hit=%d miss=%d (%.0f%%)",
+                active, idle, maxSize, borrows, timeouts, created, destroyed, avgWaitMillis, maxWaitMillis,
+                statementHits, statementMisses, statementHitRatio() * 100);
+    }
+}
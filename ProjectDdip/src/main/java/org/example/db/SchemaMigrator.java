@@ -0,0 +1,177 @@
+package org.example.db;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Версионные миграции схемы БД.
+ * <p>
+ * Миграции — SQL-скрипты {@code db/migration/V<версия>__<описание>.sql} из classpath,
+ * перечисленные в {@link #MIGRATIONS}. Применённые версии записываются в таблицу
+ * {@code schema_migrations}, поэтому при следующем запуске выполняются только новые.
+ * Каждая миграция выполняется в своей транзакции; параллельные запуски приложения
+ * сериализуются advisory-блокировкой.
+ */
+public class SchemaMigrator {
+
+    /**
+     * Скрипты миграций по порядку. Новую миграцию добавляют в конец списка,
+     * уже применённые скрипты не редактируют.
+     */
+    public static final List<String> MIGRATIONS = List.of(
+            "db/migration/V1__baseline_schema.sql",
+            "db/migration/V2__sync_watermarks.sql",
+            "db/migration/V3__near_duplicates.sql",
+            "db/migration/V4__content_hash.sql",
+            "db/migration/V5__partition_vacancy_changes.sql",
+            "db/migration/V6__vacancy_snapshots.sql"
+    );
+
+    private static final Pattern NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    /** Ключ pg_advisory_lock, общий для всех экземпляров приложения. */
+    private static final long LOCK_KEY = 0x6464_6970_6d69_67L;
+
+    private static final String CREATE_HISTORY_SQL =
+            "CREATE TABLE IF NOT EXISTS schema_migrations (" +
+            "version INTEGER PRIMARY KEY, " +
+            "description TEXT NOT NULL, " +
+            "checksum BIGINT NOT NULL, " +
+            "applied_at TIMESTAMP NOT NULL DEFAULT now())";
+
+    /**
+     * Скрипт миграции.
+     *
+     * @param version     номер версии из имени файла
+     * @param description описание из имени файла
+     * @param script      текст SQL-скрипта
+     */
+    public record Migration(int version, String description, String script) {
+
+        public long checksum() {
+            CRC32 crc = new CRC32();
+            crc.update(script.getBytes(StandardCharsets.UTF_8));
+            return crc.getValue();
+        }
+
+        /**
+         * Загружает миграцию из classpath; версия и описание берутся из имени файла.
+         */
+        public static Migration load(String resource) {
+            String fileName = resource.substring(resource.lastIndexOf('/') + 1);
+            Matcher m = NAME.matcher(fileName);
+            if (!m.matches()) {
+                throw new IllegalArgumentException("Имя миграции не соответствует шаблону V<n>__<описание>.sql: " + resource);
+            }
+            try (InputStream in = SchemaMigrator.class.getClassLoader().getResourceAsStream(resource)) {
+                if (in == null) {
+                    throw new IllegalArgumentException("Миграция не найдена в classpath: " + resource);
+                }
+                String script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                return new Migration(Integer.parseInt(m.group(1)), m.group(2).replace('_', ' '), script);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось прочитать миграцию " + resource, e);
+            }
+        }
+    }
+
+    private final ConnectionPool.ConnectionFactory connections;
+    private final List<Migration> migrations;
+
+    public SchemaMigrator(ConnectionPool.ConnectionFactory connections) {
+        this(connections, MIGRATIONS.stream().map(Migration::load).toList());
+    }
+
+    public SchemaMigrator(ConnectionPool.ConnectionFactory connections, List<Migration> migrations) {
+        this.connections = connections;
+        this.migrations = new ArrayList<>(migrations);
+        this.migrations.sort(Comparator.comparingInt(Migration::version));
+    }
+
+    /**
+     * Применяет все ещё не применённые миграции.
+     *
+     * @return число применённых миграций
+     */
+    public int migrate() throws SQLException {
+        try (Connection conn = connections.create()) {
+            try (Statement st = conn.createStatement()) {
+                st.execute(CREATE_HISTORY_SQL);
+            }
+            lock(conn, true);
+            try {
+                Map<Integer, Long> applied = appliedVersions(conn);
+                int count = 0;
+                for (Migration migration : migrations) {
+                    Long checksum = applied.get(migration.version());
+                    if (checksum == null) {
+                        apply(conn, migration);
+                        count++;
+                    } else if (checksum != migration.checksum()) {
+                        System.err.printf("[SchemaMigrator] Скрипт миграции V%d изменён после применения%n",
+                                migration.version());
+                    }
+                }
+                return count;
+            } finally {
+                lock(conn, false);
+            }
+        }
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement st = conn.createStatement();
+             PreparedStatement ps = conn.prepareStatement(
+                     "INSERT INTO schema_migrations (version, description, checksum) VALUES (?, ?, ?)")) {
+            st.execute(migration.script());
+            ps.setInt(1, migration.version());
+            ps.setString(2, migration.description());
+            ps.setLong(3, migration.checksum());
+            ps.executeUpdate();
+            conn.commit();
+            System.out.printf("[SchemaMigrator] Применена миграция V%d: %s%n",
+                    migration.version(), migration.description());
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("Миграция V" + migration.version() + " не применена: " + e.getMessage(), e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static Map<Integer, Long> appliedVersions(Connection conn) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT version, checksum FROM schema_migrations")) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getLong("checksum"));
+            }
+        }
+        return applied;
+    }
+
+    private static void lock(Connection conn, boolean acquire) throws SQLException {
+        String sql = acquire ? "SELECT pg_advisory_lock(?)" : "SELECT pg_advisory_unlock(?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, LOCK_KEY);
+            ps.execute();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.dedup;
+
+/**
+ * Итог поиска дублей за одну синхронизацию.
+ *
+ * @param signed         сколько сигнатур посчитано заново
+ * @param active         сколько активных вакансий сгруппировано
+ * @param candidatePairs сколько пар кандидатов из LSH проверено
+ * @param linkedPairs    сколько пар признано дублями
+ * @param duplicates     сколько вакансий оказались не представителями своей группы
+ * @param changed        у скольких вакансий изменился представитель группы
+ * @param elapsedMillis  время поиска, мс
+ */
+public record DedupResult(int signed,
+                          int active,
+                          long candidatePairs,
+                          long linkedPairs,
+                          int duplicates,
+                          int changed,
+                          long elapsedMillis) {
+
+    @Override
+    public String toString() {
+        return String.format("подписано %d, вакансий %d, кандидатов %d, связей %d, дублей %d, изменено %d, %d мс",
+                signed, active, candidatePairs, linkedPairs, duplicates, changed, elapsedMillis);
+    }
+}
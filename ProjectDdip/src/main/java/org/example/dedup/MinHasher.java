@@ -0,0 +1,172 @@
+package org.example.dedup;
+
+import org.example.model.Vacancy;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.regex.Pattern;
+
+/**
+ * MinHash-сигнатуры вакансий.
+ * <p>
+ * Текст вакансии — нормализованные название, компания, город и начало требований
+ * (длинные требования иначе заглушают остальные поля, а на разных сайтах они
+ * написаны по-разному). Нормализация: HTML-теги убираются, регистр и «ё» приводятся,
+ * всё, кроме букв и цифр, заменяется пробелом. Текст режется на символьные
+ * k-граммы (шинглы); i-я компонента сигнатуры — минимум i-й хэш-функции по шинглам.
+ * Доля совпавших компонент двух сигнатур оценивает коэффициент Жаккара их множеств шинглов.
+ */
+public final class MinHasher {
+
+    private static final Pattern TAGS = Pattern.compile("<[^>]+>");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final int VERSION = 1;
+
+    private final int numHashes;
+    private final int shingleSize;
+    private final int requirementsChars;
+    private final int[] seeds;
+    private final byte[] fingerprint;
+
+    /**
+     * @param numHashes         длина сигнатуры
+     * @param shingleSize       длина шингла в символах
+     * @param requirementsChars сколько символов нормализованных требований учитывается
+     */
+    public MinHasher(int numHashes, int shingleSize, int requirementsChars) {
+        if (numHashes <= 0 || shingleSize <= 0 || requirementsChars < 0) {
+            throw new IllegalArgumentException("Некорректные параметры MinHash");
+        }
+        this.numHashes = numHashes;
+        this.shingleSize = shingleSize;
+        this.requirementsChars = requirementsChars;
+        this.seeds = new SplittableRandom(0x5EED).ints(numHashes).toArray();
+        this.fingerprint = ByteBuffer.allocate(4)
+                .putInt(Objects.hash(VERSION, numHashes, shingleSize, requirementsChars))
+                .array();
+    }
+
+    public int numHashes() {
+        return numHashes;
+    }
+
+    /**
+     * Отпечаток параметров; сигнатуры с другим отпечатком несравнимы и пересчитываются.
+     */
+    public byte[] fingerprint() {
+        return fingerprint.clone();
+    }
+
+    public int[] signature(Vacancy vacancy) {
+        return signature(text(vacancy));
+    }
+
+    int[] signature(String text) {
+        int[] shingles = shingles(text);
+        int[] signature = new int[numHashes];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (int shingle : shingles) {
+            for (int i = 0; i < numHashes; i++) {
+                int h = mix(shingle ^ seeds[i]);
+                if (h < signature[i]) {
+                    signature[i] = h;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Сигнатура с отпечатком параметров впереди — в таком виде она хранится в БД.
+     */
+    public byte[] encode(int[] signature) {
+        ByteBuffer buf = ByteBuffer.allocate(4 + 4 * signature.length).put(fingerprint);
+        for (int value : signature) {
+            buf.putInt(value);
+        }
+        return buf.array();
+    }
+
+    /**
+     * Сигнатура из БД или {@code null}, если она посчитана с другими параметрами.
+     */
+    public int[] decode(byte[] encoded) {
+        if (encoded == null || encoded.length != 4 + 4 * numHashes
+                || !Arrays.equals(encoded, 0, 4, fingerprint, 0, 4)) {
+            return null;
+        }
+        ByteBuffer buf = ByteBuffer.wrap(encoded, 4, 4 * numHashes);
+        int[] signature = new int[numHashes];
+        for (int i = 0; i < numHashes; i++) {
+            signature[i] = buf.getInt();
+        }
+        return signature;
+    }
+
+    /**
+     * Оценка коэффициента Жаккара по доле совпавших компонент.
+     */
+    public static double similarity(int[] a, int[] b) {
+        int same = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                same++;
+            }
+        }
+        return (double) same / a.length;
+    }
+
+    String text(Vacancy v) {
+        String requirements = normalize(v.getRequirements());
+        if (requirements.length() > requirementsChars) {
+            requirements = requirements.substring(0, requirementsChars);
+        }
+        return String.join(" | ", normalize(v.getTitle()), normalize(v.getCompany()),
+                normalize(v.getCity()), requirements);
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String text = TAGS.matcher(value).replaceAll(" ").toLowerCase(Locale.ROOT).replace('ё', 'е');
+        return NON_WORD.matcher(text).replaceAll(" ").trim();
+    }
+
+    /**
+     * Хэши различных k-грамм текста.
+     */
+    private int[] shingles(String text) {
+        int count = Math.max(1, text.length() - shingleSize + 1);
+        int[] hashes = new int[count];
+        for (int start = 0; start < count; start++) {
+            int end = Math.min(text.length(), start + shingleSize);
+            int h = 0;
+            for (int j = start; j < end; j++) {
+                h = 31 * h + text.charAt(j);
+            }
+            hashes[start] = h;
+        }
+        Arrays.sort(hashes);
+        int unique = 0;
+        for (int i = 0; i < hashes.length; i++) {
+            if (i == 0 || hashes[i] != hashes[i - 1]) {
+                hashes[unique++] = hashes[i];
+            }
+        }
+        return Arrays.copyOf(hashes, unique);
+    }
+
+    /** Финализатор MurmurHash3: хорошо перемешивает биты 32-битного значения. */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,139 @@
+package org.example.dedup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Группировка почти одинаковых вакансий по MinHash-сигнатурам.
+ * <p>
+ * Кандидаты ищутся через LSH: сигнатура делится на {@code bands} полос, и вакансии,
+ * у которых совпала хотя бы одна полоса целиком, попадают в общую корзину. Пара
+ * становится кандидатом с вероятностью {@code 1 - (1 - s^r)^b} для сходства {@code s}
+ * и {@code r} строк в полосе: больше полос — выше полнота, длиннее полосы — выше точность.
+ * Каждый кандидат проверяется по сигнатуре: дублями считаются пары со сходством
+ * не ниже {@code threshold}. Группы — компоненты связности по найденным парам.
+ * Если известны источники вакансий, связываются только пары с разных сайтов:
+ * похожие вакансии одного сайта — это, как правило, разные вакансии по шаблону.
+ * <p>
+ * Работа пропорциональна числу вакансий × число полос, а не квадрату числа вакансий.
+ * Корзины крупнее {@code maxBucketSize} пропускаются: в них попадают шаблонные тексты,
+ * и попарная проверка сделала бы поиск квадратичным.
+ */
+public final class NearDuplicateDetector {
+
+    /**
+     * Итог группировки.
+     *
+     * @param canonicalIds   id вакансии → id представителя группы (наименьший id в группе)
+     * @param candidatePairs сколько пар кандидатов проверено по сигнатуре
+     * @param linkedPairs    сколько пар признано дублями
+     * @param skippedBuckets сколько переполненных корзин пропущено
+     */
+    public record Grouping(Map<Long, Long> canonicalIds, long candidatePairs, long linkedPairs, int skippedBuckets) {
+    }
+
+    private final int bands;
+    private final double threshold;
+    private final int maxBucketSize;
+
+    public NearDuplicateDetector(int bands, double threshold, int maxBucketSize) {
+        if (bands <= 0 || threshold <= 0 || threshold > 1 || maxBucketSize < 2) {
+            throw new IllegalArgumentException("Некорректные параметры поиска дублей");
+        }
+        this.bands = bands;
+        this.threshold = threshold;
+        this.maxBucketSize = maxBucketSize;
+    }
+
+    /**
+     * @param signatures сигнатуры одной длины, кратной числу полос
+     */
+    public Grouping group(Map<Long, int[]> signatures) {
+        return group(signatures, null);
+    }
+
+    /**
+     * @param signatures сигнатуры одной длины, кратной числу полос
+     * @param sources    id вакансии → источник; {@code null} — связывать пары с любых сайтов
+     */
+    public Grouping group(Map<Long, int[]> signatures, Map<Long, String> sources) {
+        long[] ids = signatures.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        int[][] sigs = new int[ids.length][];
+        String[] origins = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            sigs[i] = signatures.get(ids[i]);
+            origins[i] = sources != null ? sources.get(ids[i]) : null;
+            if (sigs[i].length % bands != 0) {
+                throw new IllegalArgumentException("Длина сигнатуры " + sigs[i].length
+                        + " не делится на число полос " + bands);
+            }
+        }
+
+        int[] parent = new int[ids.length];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        long candidates = 0;
+        long linked = 0;
+        int skipped = 0;
+        for (int band = 0; band < bands; band++) {
+            Map<Long, List<Integer>> buckets = new HashMap<>();
+            for (int i = 0; i < ids.length; i++) {
+                buckets.computeIfAbsent(bandKey(sigs[i], band), k -> new ArrayList<>(2)).add(i);
+            }
+            for (List<Integer> bucket : buckets.values()) {
+                if (bucket.size() < 2) {
+                    continue;
+                }
+                if (bucket.size() > maxBucketSize) {
+                    skipped++;
+                    continue;
+                }
+                for (int x = 0; x < bucket.size(); x++) {
+                    for (int y = x + 1; y < bucket.size(); y++) {
+                        if (origins[bucket.get(x)] != null
+                                && origins[bucket.get(x)].equals(origins[bucket.get(y)])) {
+                            continue;
+                        }
+                        int a = find(parent, bucket.get(x));
+                        int b = find(parent, bucket.get(y));
+                        if (a == b) {
+                            continue;
+                        }
+                        candidates++;
+                        if (MinHasher.similarity(sigs[bucket.get(x)], sigs[bucket.get(y)]) >= threshold) {
+                            // корнем остаётся меньший индекс, то есть меньший id
+                            parent[Math.max(a, b)] = Math.min(a, b);
+                            linked++;
+                        }
+                    }
+                }
+            }
+        }
+
+        Map<Long, Long> canonical = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            canonical.put(ids[i], ids[find(parent, i)]);
+        }
+        return new Grouping(canonical, candidates, linked, skipped);
+    }
+
+    private long bandKey(int[] signature, int band) {
+        int rows = signature.length / bands;
+        long h = band;
+        for (int j = band * rows; j < (band + 1) * rows; j++) {
+            h = h * 0x9E3779B97F4A7C15L + signature[j];
+        }
+        return h;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+}
@@ -0,0 +1,109 @@
+package org.example.dedup;
+
+import org.example.config.Config;
+import org.example.model.Vacancy;
+import org.example.repository.BatchResult;
+import org.example.repository.VacancyRepository;
+import org.example.repository.VacancySignature;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск одной и той же вакансии, опубликованной на разных сайтах.
+ * <p>
+ * Сигнатуры считаются только для вакансий, у которых их ещё нет, и хранятся
+ * в {@code vacancies.minhash}. Затем все активные вакансии группируются
+ * {@link NearDuplicateDetector}, и в {@code vacancies.canonical_id} записывается
+ * представитель группы — только там, где он изменился. Пары с одного сайта
+ * не связываются, если не выключен {@code dedup.crossSourceOnly}. Для подсчёта уникальных
+ * вакансий достаточно {@code COUNT(DISTINCT coalesce(canonical_id, id))}.
+ */
+public class VacancyDeduplicator {
+
+    private final VacancyRepository repository;
+    private final MinHasher hasher;
+    private final NearDuplicateDetector detector;
+    private final boolean crossSourceOnly;
+
+    public VacancyDeduplicator(VacancyRepository repository, MinHasher hasher, NearDuplicateDetector detector) {
+        this(repository, hasher, detector, true);
+    }
+
+    /**
+     * @param crossSourceOnly связывать только вакансии с разных сайтов
+     */
+    public VacancyDeduplicator(VacancyRepository repository, MinHasher hasher, NearDuplicateDetector detector,
+                               boolean crossSourceOnly) {
+        this.repository = repository;
+        this.hasher = hasher;
+        this.detector = detector;
+        this.crossSourceOnly = crossSourceOnly;
+    }
+
+    /**
+     * Поиск дублей по настройкам {@code dedup.*}.
+     */
+    public static VacancyDeduplicator fromConfig(VacancyRepository repository) {
+        MinHasher hasher = new MinHasher(
+                Config.getInt("dedup.numHashes", 128),
+                Config.getInt("dedup.shingleSize", 4),
+                Config.getInt("dedup.requirementsChars", 300));
+        NearDuplicateDetector detector = new NearDuplicateDetector(
+                Config.getInt("dedup.bands", 32),
+                Double.parseDouble(Config.get("dedup.threshold", "0.6").trim()),
+                Config.getInt("dedup.maxBucketSize", 50));
+        return new VacancyDeduplicator(repository, hasher, detector,
+                Config.getBoolean("dedup.crossSourceOnly", true));
+    }
+
+    public DedupResult run() throws SQLException {
+        long start = System.nanoTime();
+
+        List<Vacancy> unsigned = repository.findUnsignedActive(hasher.fingerprint());
+        Map<Long, byte[]> fresh = new HashMap<>();
+        for (Vacancy v : unsigned) {
+            fresh.put(v.getId(), hasher.encode(hasher.signature(v)));
+        }
+        report("сигнатуры", repository.saveSignatures(fresh));
+
+        List<VacancySignature> stored = repository.findActiveSignatures();
+        Map<Long, int[]> signatures = new HashMap<>();
+        Map<Long, Long> current = new HashMap<>();
+        Map<Long, String> sources = new HashMap<>();
+        for (VacancySignature s : stored) {
+            int[] signature = hasher.decode(s.minhash());
+            if (signature != null) {
+                signatures.put(s.id(), signature);
+                current.put(s.id(), s.canonicalId());
+                sources.put(s.id(), s.source());
+            }
+        }
+
+        NearDuplicateDetector.Grouping grouping = detector.group(signatures, crossSourceOnly ? sources : null);
+        Map<Long, Long> changed = new HashMap<>();
+        int duplicates = 0;
+        for (Map.Entry<Long, Long> e : grouping.canonicalIds().entrySet()) {
+            if (!e.getKey().equals(e.getValue())) {
+                duplicates++;
+            }
+            if (!Objects.equals(current.get(e.getKey()), e.getValue())) {
+                changed.put(e.getKey(), e.getValue());
+            }
+        }
+        report("группы", repository.saveCanonicalIds(changed));
+
+        return new DedupResult(fresh.size(), signatures.size(), grouping.candidatePairs(), grouping.linkedPairs(),
+                duplicates, changed.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static void report(String what, BatchResult result) {
+        if (result != null && result.hasFailures()) {
+            System.err.println("[VacancyDeduplicator] Не записаны " + what + ": " + result.failures().size());
+        }
+    }
+}
@@ -5,7 +5,8 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.Iterator;
+import java.util.stream.Stream;
 
 /**
  * Экспортер вакансий в CSV формат.
@@ -15,13 +16,15 @@ public class CsvVacancyExporter implements VacancyExporter {
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
 
     @Override
-    public void export(List<Vacancy> vacancies, String filename) throws IOException {
+    public void export(Stream<Vacancy> vacancies, String filename) throws IOException {
         try (PrintWriter writer = new PrintWriter(new FileWriter(filename + ".csv"))) {
             // Заголовки
             writer.println("ID,Должность,Компания,Город,Зарплата от,Зарплата до,Валюта,График работы,Дата публикации,Ссылка,Источник");
 
             // Данные
-            for (Vacancy v : vacancies) {
+            Iterator<Vacancy> it = vacancies.iterator();
+            while (it.hasNext()) {
+                Vacancy v = it.next();
                 writer.printf("%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s%n",
                     v.getId() != null ? v.getId() : "",
                     escapeCsv(v.getTitle()),
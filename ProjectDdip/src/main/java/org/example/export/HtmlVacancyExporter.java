@@ -5,13 +5,14 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.Iterator;
+import java.util.stream.Stream;
 
 public class HtmlVacancyExporter implements VacancyExporter {
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
 
     @Override
-    public void export(List<Vacancy> vacancies, String filename) throws IOException {
+    public void export(Stream<Vacancy> vacancies, String filename) throws IOException {
         try (PrintWriter writer = new PrintWriter(new FileWriter(filename + ".html"))) {
             writer.println("<!DOCTYPE html>");
             writer.println("<html lang=\"ru\">");
@@ -31,7 +32,6 @@ public class HtmlVacancyExporter implements VacancyExporter {
             writer.println("</head>");
             writer.println("<body>");
             writer.println("<h1>Список вакансий</h1>");
-            writer.println("<p>Всего вакансий: " + vacancies.size() + "</p>");
             writer.println("<table>");
             writer.println("<thead>");
             writer.println("<tr>");
@@ -48,7 +48,11 @@ public class HtmlVacancyExporter implements VacancyExporter {
             writer.println("</thead>");
             writer.println("<tbody>");
 
-            for (Vacancy v : vacancies) {
+            long total = 0;
+            Iterator<Vacancy> it = vacancies.iterator();
+            while (it.hasNext()) {
+                Vacancy v = it.next();
+                total++;
                 String salary = formatSalary(v);
                 String date = v.getPublishedDate() != null ? v.getPublishedDate().format(DATE_FORMATTER) : "—";
 
@@ -68,6 +72,7 @@ public class HtmlVacancyExporter implements VacancyExporter {
 
             writer.println("</tbody>");
             writer.println("</table>");
+            writer.println("<p>Всего вакансий: " + total + "</p>");
             writer.println("</body>");
             writer.println("</html>");
         }
@@ -1,12 +1,16 @@
 package org.example.export;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.example.model.Vacancy;
 import java.io.File;
 import java.io.IOException;
-import java.util.List;
+import java.util.Iterator;
+import java.util.stream.Stream;
 
 public class JsonVacancyExporter implements VacancyExporter {
     private final ObjectMapper objectMapper;
@@ -19,7 +23,17 @@ public class JsonVacancyExporter implements VacancyExporter {
     }
 
     @Override
-    public void export(List<Vacancy> vacancies, String filename) throws IOException {
-        objectMapper.writeValue(new File(filename + ".json"), vacancies);
+    public void export(Stream<Vacancy> vacancies, String filename) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(new File(filename + ".json"), JsonEncoding.UTF8)) {
+            generator.useDefaultPrettyPrinter();
+            generator.writeStartArray();
+            ObjectWriter writer = objectMapper.writerFor(Vacancy.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            Iterator<Vacancy> it = vacancies.iterator();
+            while (it.hasNext()) {
+                writer.writeValue(generator, it.next());
+            }
+            generator.writeEndArray();
+        }
     }
 } 
\ No newline at end of file
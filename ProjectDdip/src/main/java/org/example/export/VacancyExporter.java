@@ -3,7 +3,15 @@ package org.example.export;
 import org.example.model.Vacancy;
 import java.io.IOException;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface VacancyExporter {
-    void export(List<Vacancy> vacancies, String filename) throws IOException;
-} 
\ No newline at end of file
+    default void export(List<Vacancy> vacancies, String filename) throws IOException {
+        export(vacancies.stream(), filename);
+    }
+
+    /**
+     * Экспортирует вакансии по мере чтения из потока, не накапливая их в памяти.
+     */
+    void export(Stream<Vacancy> vacancies, String filename) throws IOException;
+}
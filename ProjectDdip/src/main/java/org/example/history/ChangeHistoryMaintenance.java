@@ -0,0 +1,127 @@
+package org.example.history;
+
+import org.example.config.Config;
+import org.example.repository.VacancyRepository;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Обслуживание помесячных секций журнала {@code vacancy_changes}.
+ * <p>
+ * Секции создаются заранее, на {@code monthsAhead} месяцев вперёд, чтобы события
+ * не попадали в секцию по умолчанию; для событий, которые всё же туда попали,
+ * в том числе за прошлые месяцы, создаются секции их месяцев, и события переносятся
+ * в них. Секции старше {@code retentionMonths} месяцев
+ * сворачиваются в дневную сводку {@code vacancy_changes_daily} и удаляются целиком
+ * (или отключаются от журнала, если {@code drop == false}), поэтому размер журнала
+ * и время запросов к недавней истории не зависят от того, сколько она копится.
+ * <p>
+ * Кроме того, не чаще раза в {@code snapshotInterval} записывается контрольная точка —
+ * набор активных вакансий, от которой запросы «на момент T» читают только хвост журнала
+ * (см. {@link VacancyRepository#findActiveIdsAt}). За пределами срока хранения журнала
+ * точки прореживаются до одной в месяц.
+ */
+public class ChangeHistoryMaintenance {
+
+    private final VacancyRepository repository;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final boolean drop;
+    private final Duration snapshotInterval;
+
+    /**
+     * @param monthsAhead     на сколько месяцев вперёд создавать секции
+     * @param retentionMonths сколько месяцев, включая текущий, хранить подробный журнал;
+     *                        0 — хранить всегда
+     * @param drop            удалять старые секции ({@code true}) или только отключать
+     */
+    public ChangeHistoryMaintenance(VacancyRepository repository, int monthsAhead, int retentionMonths, boolean drop) {
+        this(repository, monthsAhead, retentionMonths, drop, Duration.ofHours(24));
+    }
+
+    /**
+     * @param snapshotInterval как часто записывать контрольные точки
+     */
+    public ChangeHistoryMaintenance(VacancyRepository repository,
+                                    int monthsAhead,
+                                    int retentionMonths,
+                                    boolean drop,
+                                    Duration snapshotInterval) {
+        if (monthsAhead < 0 || retentionMonths < 0 || snapshotInterval.isNegative()) {
+            throw new IllegalArgumentException("Некорректные параметры обслуживания журнала");
+        }
+        this.repository = repository;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.drop = drop;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * Обслуживание по настройкам {@code history.*}.
+     */
+    public static ChangeHistoryMaintenance fromConfig(VacancyRepository repository) {
+        return new ChangeHistoryMaintenance(repository,
+                Config.getInt("history.partitionsAhead", 3),
+                Config.getInt("history.retentionMonths", 12),
+                !"detach".equalsIgnoreCase(Config.get("history.retention.mode", "drop").trim()),
+                Duration.ofHours(Config.getLong("history.snapshot.intervalHours", 24)));
+    }
+
+    public HistoryResult run(YearMonth current) throws SQLException {
+        long start = System.nanoTime();
+        List<YearMonth> existing = repository.findChangePartitions();
+
+        Set<YearMonth> wanted = new TreeSet<>(repository.findDefaultPartitionMonths());
+        for (YearMonth month = current; !month.isAfter(current.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            wanted.add(month);
+        }
+        Set<YearMonth> partitions = new TreeSet<>(existing);
+        int created = 0;
+        for (YearMonth month : wanted) {
+            if (!existing.contains(month) && repository.createChangePartition(month)) {
+                partitions.add(month);
+                created++;
+            }
+        }
+
+        List<YearMonth> retired = new ArrayList<>();
+        int summaryRows = 0;
+        int thinned = 0;
+        if (retentionMonths > 0) {
+            YearMonth oldestKept = current.minusMonths(retentionMonths - 1);
+            for (YearMonth month : partitions) {
+                if (month.isBefore(oldestKept)) {
+                    summaryRows += repository.retireChangePartition(month, drop);
+                    retired.add(month);
+                }
+            }
+            thinned = repository.thinSnapshots(oldestKept.atDay(1).atStartOfDay());
+        }
+        return new HistoryResult(created, retired, summaryRows, thinned,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Записывает контрольную точку после успешной синхронизации, если с предыдущей
+     * прошло не меньше {@code snapshotInterval}.
+     *
+     * @param syncTime время синхронизации: события журнала этой синхронизации имеют то же время
+     * @return число вакансий в точке или -1, если точка не записывалась
+     */
+    public int checkpoint(LocalDateTime syncTime) throws SQLException {
+        LocalDateTime latest = repository.findLatestSnapshotTime();
+        if (latest != null && latest.plus(snapshotInterval).isAfter(syncTime)) {
+            return -1;
+        }
+        return repository.createSnapshot(syncTime);
+    }
+}
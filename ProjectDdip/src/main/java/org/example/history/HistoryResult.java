@@ -0,0 +1,33 @@
+package org.example.history;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Итог обслуживания журнала изменений.
+ *
+ * @param created       сколько секций создано заранее
+ * @param retired       месяцы, секции которых свёрнуты в сводку и удалены или отключены
+ * @param summaryRows   сколько строк дневной сводки записано
+ * @param thinned       сколько устаревших контрольных точек удалено
+ * @param elapsedMillis время обслуживания, мс
+ */
+public record HistoryResult(int created, List<YearMonth> retired, int summaryRows, int thinned, long elapsedMillis) {
+
+    public HistoryResult {
+        retired = List.copyOf(retired);
+    }
+
+    /**
+     * Было ли что-то сделано; пустой запуск в журнал не печатается.
+     */
+    public boolean changed() {
+        return created > 0 || !retired.isEmpty() || thinned > 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("создано секций %d, свёрнуто %s (строк сводки %d), удалено точек %d, %d мс",
+                created, retired, summaryRows, thinned, elapsedMillis);
+    }
+}
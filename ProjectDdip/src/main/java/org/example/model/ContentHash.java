@@ -0,0 +1,57 @@
+package org.example.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Хэш содержимого вакансии для поиска изменений при синхронизации.
+ * <p>
+ * Учитываются поля, изменение которых пишется в историю: название, компания, город,
+ * зарплата, валюта, требования и график. Описание дозагружается отдельно и обновляется
+ * своим запросом, а дата публикации меняется при каждом поднятии вакансии в выдаче,
+ * поэтому они в хэш не входят. Каждое поле записывается с длиной, так что значения
+ * не «перетекают» из одного поля в другое, а {@code null} отличается от пустой строки.
+ */
+public final class ContentHash {
+
+    /** Половина SHA-256: 128 бит с запасом хватает, чтобы не путать версии одной вакансии. */
+    private static final int BYTES = 16;
+
+    private ContentHash() {
+    }
+
+    public static String of(Vacancy v) {
+        StringBuilder sb = new StringBuilder(256);
+        append(sb, v.getTitle());
+        append(sb, v.getCompany());
+        append(sb, v.getCity());
+        append(sb, v.getSalaryFrom() != null ? v.getSalaryFrom().toString() : null);
+        append(sb, v.getSalaryTo() != null ? v.getSalaryTo().toString() : null);
+        append(sb, v.getCurrency());
+        append(sb, v.getRequirements());
+        append(sb, v.getWorkSchedule());
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, BYTES);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    /**
+     * Хэш, посчитанный при разборе ответа, или новый, если вакансия создана иначе.
+     */
+    public static String ofStored(Vacancy v) {
+        return v.getContentHash() != null ? v.getContentHash() : of(v);
+    }
+
+    private static void append(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append("-1:");
+        } else {
+            sb.append(value.length()).append(':').append(value);
+        }
+    }
+}
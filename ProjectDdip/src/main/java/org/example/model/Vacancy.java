@@ -25,6 +25,7 @@ public class Vacancy {
     private String currency;
     private Boolean isActive;
     private LocalDateTime closedAt;
+    private String contentHash;         // хэш содержимого, см. ContentHash
 
 
     public Vacancy() {
@@ -166,6 +167,14 @@ public class Vacancy {
         this.closedAt = closedAt;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
     @Override
     public String toString() {
         String pub = (publishedDate != null)
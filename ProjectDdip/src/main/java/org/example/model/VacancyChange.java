@@ -0,0 +1,108 @@
+package org.example.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Запись журнала изменений вакансии (таблица vacancy_changes).
+ * Хранит тип события и снимок основных полей вакансии на момент события.
+ */
+public class VacancyChange {
+    private final Long vacancyId;
+    private final String url;
+    private final String changeType;
+    private final LocalDateTime eventTime;
+    private final String title;
+    private final String company;
+    private final String city;
+    private final Integer salaryFrom;
+    private final Integer salaryTo;
+    private final String currency;
+    private final LocalDateTime publishedDate;
+    private final String workSchedule;
+
+    public VacancyChange(Long vacancyId,
+                         String url,
+                         String changeType,
+                         LocalDateTime eventTime,
+                         String title,
+                         String company,
+                         String city,
+                         Integer salaryFrom,
+                         Integer salaryTo,
+                         String currency,
+                         LocalDateTime publishedDate,
+                         String workSchedule) {
+        this.vacancyId = vacancyId;
+        this.url = url;
+        this.changeType = changeType;
+        this.eventTime = eventTime;
+        this.title = title;
+        this.company = company;
+        this.city = city;
+        this.salaryFrom = salaryFrom;
+        this.salaryTo = salaryTo;
+        this.currency = currency;
+        this.publishedDate = publishedDate;
+        this.workSchedule = workSchedule;
+    }
+
+    /**
+     * Создаёт запись журнала со снимком полей переданной вакансии.
+     */
+    public static VacancyChange of(Vacancy v, String changeType, LocalDateTime eventTime) {
+        return new VacancyChange(
+                v.getId(), v.getUrl(), changeType, eventTime,
+                v.getTitle(), v.getCompany(), v.getCity(),
+                v.getSalaryFrom(), v.getSalaryTo(), v.getCurrency(),
+                v.getPublishedDate(), v.getWorkSchedule()
+        );
+    }
+
+    public Long getVacancyId() {
+        return vacancyId;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getChangeType() {
+        return changeType;
+    }
+
+    public LocalDateTime getEventTime() {
+        return eventTime;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getCompany() {
+        return company;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public Integer getSalaryFrom() {
+        return salaryFrom;
+    }
+
+    public Integer getSalaryTo() {
+        return salaryTo;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public LocalDateTime getPublishedDate() {
+        return publishedDate;
+    }
+
+    public String getWorkSchedule() {
+        return workSchedule;
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.parser;
+
+import org.example.config.Config;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * План выгрузки источника: все сочетания ключевых слов, регионов и ролей.
+ * <p>
+ * Срез, по которому источник находит больше вакансий, чем отдаёт постранично,
+ * делится по периоду публикации, пока каждая часть не уложится в предел.
+ * Для вычисления середины открытого снизу периода берётся окно {@code horizon},
+ * делить периоды короче {@code minWindow} не имеет смысла.
+ *
+ * @param keywords  ключевые слова поиска, хотя бы одно
+ * @param areas     регионы; пустой список — без ограничения по региону
+ * @param roles     профессиональные роли; пустой список — без ограничения
+ * @param horizon   окно публикации для деления открытого снизу периода
+ * @param minWindow минимальная длина периода, который ещё делится
+ */
+public record CrawlPlan(List<String> keywords,
+                        List<String> areas,
+                        List<String> roles,
+                        Duration horizon,
+                        Duration minWindow) {
+
+    public CrawlPlan {
+        if (keywords == null || keywords.isEmpty()) {
+            throw new IllegalArgumentException("В плане выгрузки нужно хотя бы одно ключевое слово");
+        }
+        keywords = List.copyOf(keywords);
+        areas = areas != null ? List.copyOf(areas) : List.of();
+        roles = roles != null ? List.copyOf(roles) : List.of();
+    }
+
+    /**
+     * План из одного ключевого слова без регионов и ролей.
+     */
+    public static CrawlPlan of(String keyword) {
+        return new CrawlPlan(List.of(keyword), List.of(), List.of(), Duration.ofDays(30), Duration.ofMinutes(30));
+    }
+
+    /**
+     * План по настройкам {@code parser.plan.keywords}, {@code parser.plan.areas}, {@code parser.plan.roles}
+     * (списки через запятую); для отдельного источника их можно переопределить
+     * ключами с суффиксом {@code .<source>}.
+     */
+    public static CrawlPlan fromConfig(String source, String defaultKeyword) {
+        List<String> keywords = list(setting("parser.plan.keywords", source));
+        return new CrawlPlan(keywords.isEmpty() ? List.of(defaultKeyword) : keywords,
+                list(setting("parser.plan.areas", source)),
+                list(setting("parser.plan.roles", source)),
+                Duration.ofDays(Config.getLong("parser.plan.horizonDays", 30)),
+                Duration.ofMinutes(Config.getLong("parser.plan.minSliceMinutes", 30)));
+    }
+
+    private static String setting(String key, String source) {
+        String value = source != null ? Config.get(key + "." + source) : null;
+        return value != null ? value : Config.get(key);
+    }
+
+    private static List<String> list(String value) {
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(value.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+
+    /**
+     * Исходные срезы плана.
+     *
+     * @param since нижняя граница публикации для инкрементальной выгрузки или {@code null}
+     */
+    public List<CrawlSlice> slices(LocalDateTime since) {
+        List<String> areaValues = areas.isEmpty() ? Collections.singletonList(null) : areas;
+        List<String> roleValues = roles.isEmpty() ? Collections.singletonList(null) : roles;
+        List<CrawlSlice> slices = new ArrayList<>();
+        for (String keyword : keywords) {
+            for (String area : areaValues) {
+                for (String role : roleValues) {
+                    slices.add(new CrawlSlice(keyword, area, role, since, null));
+                }
+            }
+        }
+        return slices;
+    }
+}
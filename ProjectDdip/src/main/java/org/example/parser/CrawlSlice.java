@@ -0,0 +1,74 @@
+package org.example.parser;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Один поисковый запрос к источнику: ключевое слово, регион, профессиональная роль
+ * и период публикации. Значения региона и роли — идентификаторы самого источника.
+ *
+ * @param keyword текст поиска
+ * @param area    регион или {@code null} — без ограничения
+ * @param role    профессиональная роль (рубрика) или {@code null}
+ * @param from    начало периода публикации или {@code null} — без нижней границы
+ * @param to      конец периода публикации или {@code null} — до текущего момента
+ */
+public record CrawlSlice(String keyword, String area, String role, LocalDateTime from, LocalDateTime to) {
+
+    /**
+     * Делит период публикации пополам. Открытые границы остаются открытыми у крайних
+     * половин, а середина считается по {@code earliest}/{@code latest} вместо них,
+     * поэтому вакансии за пределами этого окна не теряются.
+     * <p>
+     * Середина выравнивается вниз до суток, часа или {@code minWindow} в зависимости от длины
+     * периода: окно {@code earliest}/{@code latest} сдвигается с каждой выгрузкой, а выровненные
+     * границы повторяются, и URL срезов совпадают с сохранёнными в кэше ответов.
+     *
+     * @return две половины или пустой список, если период короче {@code minWindow}
+     */
+    public List<CrawlSlice> split(LocalDateTime earliest, LocalDateTime latest, Duration minWindow) {
+        LocalDateTime lo = from != null ? from : earliest;
+        LocalDateTime hi = to != null ? to : latest;
+        Duration window = Duration.between(lo, hi);
+        if (window.compareTo(minWindow) < 0) {
+            return List.of();
+        }
+        LocalDateTime exact = lo.plus(window.dividedBy(2));
+        LocalDateTime mid = align(exact, window, minWindow);
+        if (!mid.isAfter(lo)) {
+            mid = exact;
+        }
+        return List.of(new CrawlSlice(keyword, area, role, from, mid),
+                new CrawlSlice(keyword, area, role, mid, to));
+    }
+
+    private static LocalDateTime align(LocalDateTime time, Duration window, Duration minWindow) {
+        if (window.compareTo(Duration.ofDays(4)) >= 0) {
+            return time.truncatedTo(ChronoUnit.DAYS);
+        }
+        if (window.compareTo(Duration.ofHours(4)) >= 0) {
+            return time.truncatedTo(ChronoUnit.HOURS);
+        }
+        long step = Math.max(1, minWindow.toMinutes());
+        long minute = time.toEpochSecond(ZoneOffset.UTC) / 60;
+        return LocalDateTime.ofEpochSecond((minute - Math.floorMod(minute, step)) * 60, 0, ZoneOffset.UTC);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(keyword);
+        if (area != null) {
+            sb.append(" area=").append(area);
+        }
+        if (role != null) {
+            sb.append(" role=").append(role);
+        }
+        if (from != null || to != null) {
+            sb.append(" [").append(from != null ? from : "…").append(" — ").append(to != null ? to : "…").append(']');
+        }
+        return sb.toString();
+    }
+}
@@ -1,171 +1,412 @@
 package org.example.parser;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.config.Config;
 import org.example.model.Vacancy;
 
 import java.io.IOException;
-import java.net.URI;
+import java.io.InputStream;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Парсер вакансий с HH.ru через их публичный API.
+ * <p>
+ * В выдаче {@code GET /vacancies} полного описания нет, поэтому при заданном
+ * {@link VacancyDetailCache} оно дозапрашивается из карточки {@code GET /vacancies/{id}}.
+ * Карточка запрашивается только для новых вакансий и вакансий, у которых изменилась
+ * дата публикации (HH.ru обновляет её при изменении вакансии); остальные описания
+ * берутся из кэша. Запросы карточек идут через тот же ограничитель, что и страницы,
+ * а за одну выгрузку их не больше {@code parser.details.maxPerRun} — остальные
+ * вакансии получат описание в следующих выгрузках.
  */
-public class HhVacancyParser implements VacancyParser {
+public class HhVacancyParser extends PagedVacancyParser<HhVacancyParser.Page, HhVacancyParser.Item> {
 
     private static final String BASE_URL = "https://api.hh.ru/vacancies";
     private static final int PER_PAGE = 100;
     private static final String SEARCH_TEXT = "java";
+    private static final String SOURCE = "hh.ru";
+    private static final int MAX_RESULTS = 2000;
+    private static final Pattern VACANCY_ID = Pattern.compile("/vacancy/(\\d+)");
 
-    private final HttpClient httpClient;
-    private final ObjectMapper objectMapper;
+    /**
+     * Страница выдачи {@code GET /vacancies}; читаются только нужные поля.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Page(List<Item> items, Integer pages, Long found) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Item(String name,
+                       Named employer,
+                       Named area,
+                       Salary salary,
+                       String description,
+                       Snippet snippet,
+                       @JsonProperty("alternate_url") String alternateUrl,
+                       @JsonProperty("published_at") String publishedAt,
+                       Named schedule) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Named(String name) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Salary(Integer from, Integer to, String currency) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Snippet(String requirement, String responsibility) {
+    }
+
+    /**
+     * Карточка вакансии {@code GET /vacancies/{id}}; нужно только полное описание.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Detail(String description) {
+    }
+
+    private final VacancyDetailCache details;
+    private final int maxDetailsPerRun;
+    private final AtomicInteger detailBudget = new AtomicInteger();
+    private final AtomicInteger detailsCached = new AtomicInteger();
+    private final AtomicInteger detailsFetched = new AtomicInteger();
+    private final AtomicInteger detailsFailed = new AtomicInteger();
 
     public HhVacancyParser() {
-        this(HttpClient.newHttpClient(), new ObjectMapper());
+        this((HttpResponseCache) null);
+    }
+
+    /**
+     * Парсер на общем транспорте {@link HttpTransport#shared()}.
+     *
+     * @param cache дисковый кэш ответов или {@code null}
+     */
+    public HhVacancyParser(HttpResponseCache cache) {
+        this(builder(HttpTransport.shared(), new ObjectMapper())
+                .cache(cache)
+                .details(VacancyDetailCache.fromConfig(SOURCE)));
     }
 
     public HhVacancyParser(HttpClient httpClient, ObjectMapper objectMapper) {
-        this.httpClient = httpClient;
-        this.objectMapper = objectMapper;
+        this(builder(new HttpTransport(httpClient), objectMapper));
+    }
+
+    private HhVacancyParser(Builder builder) {
+        super(SOURCE, builder.transport, builder.objectMapper, Page.class, builder.maxConcurrency, builder.cache,
+                builder.plan != null ? builder.plan : CrawlPlan.fromConfig(SOURCE, SEARCH_TEXT));
+        this.details = builder.details;
+        this.maxDetailsPerRun = Config.getInt("parser.details.maxPerRun", 500);
+    }
+
+    public static Builder builder(HttpTransport transport, ObjectMapper objectMapper) {
+        return new Builder(transport, objectMapper);
+    }
+
+    /**
+     * Настройки парсера; не заданные берутся из конфигурации.
+     */
+    public static final class Builder {
+        private final HttpTransport transport;
+        private final ObjectMapper objectMapper;
+        private int maxConcurrency = defaultConcurrency();
+        private HttpResponseCache cache;
+        private VacancyDetailCache details;
+        private CrawlPlan plan;
+
+        private Builder(HttpTransport transport, ObjectMapper objectMapper) {
+            this.transport = transport;
+            this.objectMapper = objectMapper;
+        }
+
+        /** Число одновременно запрашиваемых страниц. */
+        public Builder maxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /** Дисковый кэш ответов; {@code null} — без кэша. */
+        public Builder cache(HttpResponseCache cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        /** Кэш описаний; {@code null} — описания не дозапрашиваются. */
+        public Builder details(VacancyDetailCache details) {
+            this.details = details;
+            return this;
+        }
+
+        /** Срезы выгрузки: ключевые слова, регионы ({@code area}) и роли ({@code professional_role}). */
+        public Builder plan(CrawlPlan plan) {
+            this.plan = plan;
+            return this;
+        }
+
+        public HhVacancyParser build() {
+            return new HhVacancyParser(this);
+        }
     }
 
     @Override
-    public List<Vacancy> fetchVacancies() throws IOException, InterruptedException {
-        List<Vacancy> result = new ArrayList<>();
-        int page = 0;
-
-        while (true) {
-            String url = String.format(
-                    "%s?text=%s&per_page=%d&page=%d",
-                    BASE_URL, SEARCH_TEXT, PER_PAGE, page
-            );
-            
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("User-Agent", "java-http-client")
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = httpClient.send(
-                    request, HttpResponse.BodyHandlers.ofString()
-            );
-
-            if (response.statusCode() == 400) {
-                break;
-            }
-            else if (response.statusCode() != 401 && response.statusCode() != 200) {
-                System.err.println("[HhVacancyParser] non-200 response: " + response.statusCode() + " for page " + page);
-            }
+    protected String name() {
+        return "HhVacancyParser";
+    }
+
+    @Override
+    protected int perPage() {
+        return PER_PAGE;
+    }
+
+    @Override
+    protected int maxResults() {
+        return MAX_RESULTS;
+    }
+
+    /**
+     * Регион и роль передаются как {@code area} и {@code professional_role},
+     * период публикации — как {@code date_from}/{@code date_to} в ISO 8601 со смещением.
+     */
+    @Override
+    protected String pageUrl(CrawlSlice slice, int page) {
+        StringBuilder url = new StringBuilder(String.format(
+                "%s?text=%s&per_page=%d&page=%d",
+                BASE_URL, URLEncoder.encode(slice.keyword(), StandardCharsets.UTF_8), PER_PAGE, page
+        ));
+        if (slice.area() != null) {
+            url.append("&area=").append(URLEncoder.encode(slice.area(), StandardCharsets.UTF_8));
+        }
+        if (slice.role() != null) {
+            url.append("&professional_role=").append(URLEncoder.encode(slice.role(), StandardCharsets.UTF_8));
+        }
+        if (slice.from() != null) {
+            url.append("&date_from=").append(isoDate(slice.from()));
+        }
+        if (slice.to() != null) {
+            url.append("&date_to=").append(isoDate(slice.to()));
+        }
+        return url.toString();
+    }
+
+    private static String isoDate(LocalDateTime date) {
+        String iso = date.atZone(ZoneId.systemDefault()).toOffsetDateTime()
+                .truncatedTo(ChronoUnit.SECONDS)
+                .format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+        return URLEncoder.encode(iso, StandardCharsets.UTF_8);
+    }
 
-            String body = response.body();
-            JsonNode root = objectMapper.readTree(body);
-            JsonNode items = root.get("items");
-            if (items == null || !items.isArray() || items.size() == 0) {
-                break;
+    /**
+     * После выгрузки кэш описаний сохраняется на диск, а итоги дозагрузки печатаются.
+     */
+    @Override
+    public void fetchVacancies(LocalDateTime since, PageSink sink) throws IOException, InterruptedException {
+        if (details == null) {
+            super.fetchVacancies(since, sink);
+            return;
+        }
+        detailBudget.set(maxDetailsPerRun);
+        detailsCached.set(0);
+        detailsFetched.set(0);
+        detailsFailed.set(0);
+        try {
+            super.fetchVacancies(since, sink);
+        } finally {
+            try {
+                details.flush();
+            } catch (IOException e) {
+                System.err.println("[HhVacancyParser] Не удалось сохранить кэш описаний: " + e.getMessage());
             }
+            System.out.printf("[HhVacancyParser] Описания: из кэша %d, запрошено %d, ошибок %d, отложено %d%n",
+                    detailsCached.get(), detailsFetched.get(), detailsFailed.get(),
+                    Math.max(0, -detailBudget.get()));
+        }
+    }
 
-            for (JsonNode item : items) {
+    /**
+     * Подставляет описания из кэша, а недостающие запрашивает параллельно
+     * в пределах ограничителя источника. Вакансия, карточку которой получить
+     * не удалось, остаётся без описания и будет запрошена снова в следующий раз.
+     */
+    @Override
+    protected void enrich(List<Vacancy> vacancies) throws InterruptedException {
+        if (details == null) {
+            return;
+        }
+        List<Callable<Void>> fetches = new ArrayList<>();
+        for (Vacancy vacancy : vacancies) {
+            String id = vacancyId(vacancy.getUrl());
+            if (id == null || vacancy.getDescription() != null) {
+                continue;
+            }
+            String marker = marker(vacancy);
+            String description = marker != null ? details.get(id, marker) : null;
+            if (description != null) {
+                vacancy.setDescription(description);
+                detailsCached.incrementAndGet();
+            } else if (detailBudget.getAndDecrement() > 0) {
+                fetches.add(() -> {
+                    fetchDetail(vacancy, id, marker);
+                    return null;
+                });
+            }
+        }
+        if (fetches.isEmpty()) {
+            return;
+        }
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Future<Void> future : executor.invokeAll(fetches)) {
                 try {
-                    Vacancy vacancy = mapNodeToVacancy(item);
-                    result.add(vacancy);
-                } catch (Exception ex) {
-                    System.err.println("[HhVacancyParser] error mapping item: " + ex.getMessage());
+                    future.get();
+                    detailsFetched.incrementAndGet();
+                } catch (ExecutionException e) {
+                    if (detailsFailed.getAndIncrement() == 0) {
+                        System.err.println("[HhVacancyParser] Не удалось получить карточку вакансии: "
+                                + e.getCause().getMessage());
+                    }
                 }
             }
+        }
+    }
 
-            if (items.size() < PER_PAGE) {
-                break;
+    private void fetchDetail(Vacancy vacancy, String id, String marker) throws IOException, InterruptedException {
+        limiter().acquire();
+        SourceRateLimiter.Outcome outcome = SourceRateLimiter.Outcome.FAILED;
+        Duration retryAfter = null;
+        try {
+            HttpResponse<InputStream> response = transport.send(transport.newRequest(BASE_URL + "/" + id).build());
+            try (InputStream body = response.body()) {
+                int status = response.statusCode();
+                if (SourceRateLimiter.isThrottled(status)) {
+                    outcome = SourceRateLimiter.Outcome.THROTTLED;
+                    retryAfter = SourceRateLimiter.retryAfter(response.headers());
+                }
+                if (status != 200) {
+                    throw new IOException("HTTP " + status + " для вакансии " + id);
+                }
+                Detail detail = objectMapper.readValue(body, Detail.class);
+                outcome = SourceRateLimiter.Outcome.SUCCESS;
+                if (detail.description() != null) {
+                    vacancy.setDescription(detail.description());
+                    if (marker != null) {
+                        details.put(id, marker, detail.description());
+                    }
+                }
             }
+        } finally {
+            limiter().release(outcome, retryAfter);
+        }
+    }
 
-            page++;
+    /**
+     * Идентификатор вакансии из ссылки вида {@code https://hh.ru/vacancy/123}.
+     */
+    static String vacancyId(String url) {
+        if (url == null) {
+            return null;
         }
+        Matcher m = VACANCY_ID.matcher(url);
+        return m.find() ? m.group(1) : null;
+    }
 
-        return result;
+    /**
+     * Маркер изменения вакансии — хэш её содержимого из выдачи. Дата публикации
+     * для этого не годится: без {@code published_at} вместо неё подставляется текущее
+     * время, и маркер менялся бы при каждой выгрузке. Без хэша кэш не используется.
+     */
+    private static String marker(Vacancy vacancy) {
+        return vacancy.getContentHash();
+    }
+
+    @Override
+    protected List<Item> items(Page page) {
+        return page.items();
+    }
+
+    /**
+     * HH.ru сообщает число страниц ({@code pages}) и найденных вакансий ({@code found});
+     * глубже {@value #MAX_RESULTS} результатов API не отдаёт.
+     */
+    @Override
+    protected int totalPages(Page page) {
+        if (page.pages() != null) {
+            return Math.min(page.pages(), MAX_RESULTS / PER_PAGE);
+        }
+        if (page.found() != null) {
+            return pagesFor(page.found(), PER_PAGE, MAX_RESULTS);
+        }
+        return -1;
+    }
+
+    @Override
+    protected long found(Page page) {
+        return page.found() != null ? page.found() : -1;
     }
 
     /**
-     * Преобразует JSON-объект вакансии из API HH.ru в модель Vacancy.
+     * Преобразует вакансию из API HH.ru в модель Vacancy.
      * Обрабатывает все поля, включая вложенные объекты и nullable значения.
      */
-    private Vacancy mapNodeToVacancy(JsonNode item) {
+    @Override
+    protected Vacancy toVacancy(Item item) {
         Vacancy v = new Vacancy();
 
-        v.setTitle(getText(item, "name"));
-        v.setCompany(getText(item, "employer", "name"));
-        v.setCity(getText(item, "area", "name"));
+        v.setTitle(item.name());
+        v.setCompany(name(item.employer()));
+        v.setCity(name(item.area()));
 
-        JsonNode salaryNode = item.get("salary");
-        if (salaryNode != null && !salaryNode.isNull()) {
-            if (salaryNode.hasNonNull("from")) {
-                v.setSalaryFrom(salaryNode.get("from").asInt());
-            }
-            if (salaryNode.hasNonNull("to")) {
-                v.setSalaryTo(salaryNode.get("to").asInt());
-            }
-            if (salaryNode.hasNonNull("currency")) {
-                v.setCurrency(salaryNode.get("currency").asText());
-            }
+        Salary salary = item.salary();
+        if (salary != null) {
+            v.setSalaryFrom(salary.from());
+            v.setSalaryTo(salary.to());
+            v.setCurrency(salary.currency());
         }
 
-        v.setDescription(getText(item, "description"));
+        v.setDescription(item.description());
 
-        JsonNode snippet = item.get("snippet");
-        if (snippet != null && !snippet.isNull()) {
+        Snippet snippet = item.snippet();
+        if (snippet != null) {
             StringBuilder req = new StringBuilder();
-            JsonNode requirement = snippet.get("requirement");
-            if (requirement != null && !requirement.isNull()) {
-                req.append(requirement.asText());
+            if (snippet.requirement() != null) {
+                req.append(snippet.requirement());
             }
-            JsonNode responsibility = snippet.get("responsibility");
-            if (responsibility != null && !responsibility.isNull()) {
+            if (snippet.responsibility() != null) {
                 if (req.length() > 0) req.append(" | ");
-                req.append(responsibility.asText());
+                req.append(snippet.responsibility());
             }
             v.setRequirements(req.toString());
         }
 
-        String vacancyHtmlUrl = getText(item, "alternate_url");
-        v.setUrl(vacancyHtmlUrl);
-        v.setSource("hh.ru");
-        v.setSourceUrl(vacancyHtmlUrl);
-
-        String publishedAt = getText(item, "published_at");
-        if (publishedAt != null) {
-            try {
-                LocalDateTime pub = LocalDateTime.parse(publishedAt, DateTimeFormatter.ISO_DATE_TIME);
-                v.setPublishedDate(pub);
-            } catch (Exception ex) {
-                v.setPublishedDate(LocalDateTime.now());
-            }
-        } else {
-            v.setPublishedDate(LocalDateTime.now());
-        }
-
+        v.setUrl(item.alternateUrl());
+        v.setSource(SOURCE);
+        v.setSourceUrl(item.alternateUrl());
+        v.setPublishedDate(parsePublished(item.publishedAt()));
         v.setCreatedAt(LocalDateTime.now());
-
-        JsonNode scheduleNode = item.get("schedule");
-        if (scheduleNode != null && !scheduleNode.isNull()) {
-            v.setWorkSchedule(scheduleNode.get("name").asText());
-        }
+        v.setWorkSchedule(name(item.schedule()));
 
         return v;
     }
 
-    /**
-     * Безопасно извлекает вложенное поле из JsonNode.
-     */
-    private String getText(JsonNode node, String... path) {
-        JsonNode curr = node;
-        for (String p : path) {
-            if (curr == null) return null;
-            curr = curr.get(p);
-        }
-        return (curr != null && !curr.isNull()) ? curr.asText() : null;
+    private static String name(Named named) {
+        return named != null ? named.name() : null;
     }
 }
@@ -0,0 +1,38 @@
+package org.example.parser;
+
+/**
+ * Снимок метрик дискового HTTP-кэша.
+ *
+ * @param entries     число записей
+ * @param bytes       суммарный размер сжатых тел на диске
+ * @param maxBytes    предельный размер кэша
+ * @param notModified сколько раз источник ответил 304 на условный запрос
+ * @param unchanged   сколько раз пришёл ответ 200 с тем же телом, что в кэше
+ * @param misses      сколько раз тело оказалось новым или изменённым
+ * @param evictions   сколько записей вытеснено при переполнении
+ */
+public record HttpCacheStats(
+        int entries,
+        long bytes,
+        long maxBytes,
+        long notModified,
+        long unchanged,
+        long misses,
+        long evictions
+) {
+    /**
+     * Доля ответов, для которых разбор JSON не понадобился.
+     */
+    public double hitRatio() {
+        long total = notModified + unchanged + misses;
+        return total == 0 ? 0.0 : (notModified + unchanged) / (double) total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "entries=%d, size=%.1f/%.1f MB, 304=%d, unchanged=%d, miss=%d (%.0f%% hit), evicted=%d",
+                entries, bytes / 1048576.0, maxBytes / 1048576.0, notModified, unchanged, misses,
+                hitRatio() * 100, evictions);
+    }
+}
@@ -0,0 +1,303 @@
+package org.example.parser;
+
+import org.example.config.Config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Дисковый кэш ответов HTTP для страниц выдачи.
+ * <p>
+ * Тело ответа хранится сжатым ({@code <ключ>.gz}), рядом — метаданные
+ * ({@code <ключ>.properties}): URL, валидаторы {@code ETag}/{@code Last-Modified}
+ * и SHA-256 тела. Ключ — SHA-256 URL запроса. При повторном запросе валидаторы
+ * отправляются как {@code If-None-Match}/{@code If-Modified-Since}; ответ 304 или
+ * 200 с тем же хэшем тела означает, что страница не изменилась.
+ * <p>
+ * Суммарный размер сжатых тел ограничен; при переполнении вытесняются давно
+ * не использованные записи. Порядок использования переживает перезапуск
+ * через время изменения файла метаданных.
+ */
+public final class HttpResponseCache {
+
+    /**
+     * Запись кэша.
+     *
+     * @param url          URL запроса
+     * @param etag         значение {@code ETag} или {@code null}
+     * @param lastModified значение {@code Last-Modified} или {@code null}
+     * @param contentHash  SHA-256 тела ответа в hex
+     * @param size         размер сжатого тела на диске
+     */
+    public record Entry(String url, String etag, String lastModified, String contentHash, long size) {
+
+        /** Добавляет к запросу условные заголовки по валидаторам записи. */
+        public void addValidators(HttpRequest.Builder builder) {
+            if (etag != null) {
+                builder.header("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                builder.header("If-Modified-Since", lastModified);
+            }
+        }
+    }
+
+    private final Path directory;
+    private final long maxBytes;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private long notModified;
+    private long unchanged;
+    private long misses;
+    private long evictions;
+
+    public HttpResponseCache(Path directory, long maxBytes) throws IOException {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Размер кэша должен быть положительным: " + maxBytes);
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        loadIndex();
+    }
+
+    /**
+     * Кэш по настройкам {@code http.cache.*} или {@code null}, если он выключен
+     * или каталог недоступен.
+     */
+    public static HttpResponseCache fromConfig() {
+        if (!Config.getBoolean("http.cache.enabled", true)) {
+            return null;
+        }
+        Path dir = Paths.get(Config.get("http.cache.dir", ".cache/http"));
+        long maxBytes = Config.getLong("http.cache.maxMegabytes", 64) * 1024 * 1024;
+        try {
+            return new HttpResponseCache(dir, maxBytes);
+        } catch (IOException e) {
+            System.err.println("[HttpResponseCache] Кэш отключён, каталог недоступен: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Запись для URL или {@code null}, если её нет.
+     */
+    public synchronized Entry lookup(String url) {
+        return entries.get(key(url));
+    }
+
+    /**
+     * Учитывает ответ 304 на условный запрос: запись становится недавно использованной,
+     * а валидаторы обновляются, если сервер прислал новые.
+     *
+     * @return актуальная запись или {@code null}, если её успели вытеснить
+     */
+    public synchronized Entry notModified(String url, HttpHeaders headers) throws IOException {
+        notModified++;
+        String key = key(url);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        String etag = headers.firstValue("ETag").orElse(entry.etag());
+        String lastModified = headers.firstValue("Last-Modified").orElse(entry.lastModified());
+        if (!Objects.equals(etag, entry.etag()) || !Objects.equals(lastModified, entry.lastModified())) {
+            entry = new Entry(url, etag, lastModified, entry.contentHash(), entry.size());
+            entries.put(key, entry);
+            writeMeta(key, entry);
+        } else {
+            Files.setLastModifiedTime(metaFile(key), FileTime.fromMillis(System.currentTimeMillis()));
+        }
+        return entry;
+    }
+
+    /**
+     * Сохраняет тело ответа 200. Если хэш совпал с сохранённым, тело на диск
+     * не переписывается — обновляются только валидаторы.
+     */
+    public synchronized Entry store(String url, HttpHeaders headers, byte[] body) throws IOException {
+        String key = key(url);
+        String hash = sha256(body);
+        String etag = headers.firstValue("ETag").orElse(null);
+        String lastModified = headers.firstValue("Last-Modified").orElse(null);
+        Entry previous = entries.get(key);
+
+        Entry entry;
+        if (previous != null && previous.contentHash().equals(hash)) {
+            unchanged++;
+            entry = new Entry(url, etag, lastModified, hash, previous.size());
+        } else {
+            misses++;
+            byte[] compressed = gzip(body);
+            writeAtomically(bodyFile(key), compressed);
+            entry = new Entry(url, etag, lastModified, hash, compressed.length);
+            totalBytes += entry.size() - (previous != null ? previous.size() : 0);
+        }
+        entries.put(key, entry);
+        writeMeta(key, entry);
+        evictOverflow();
+        return entry;
+    }
+
+    /**
+     * Читает и распаковывает сохранённое тело записи.
+     *
+     * @return тело или {@code null}, если файла уже нет (запись вытеснена или удалена
+     * с диска) — тогда запись убирается из кэша и следующий запрос будет безусловным
+     */
+    public synchronized byte[] read(Entry entry) throws IOException {
+        String key = key(entry.url());
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(bodyFile(key)))) {
+            return in.readAllBytes();
+        } catch (NoSuchFileException e) {
+            Entry removed = entries.remove(key);
+            if (removed != null) {
+                totalBytes -= removed.size();
+            }
+            Files.deleteIfExists(metaFile(key));
+            return null;
+        }
+    }
+
+    public synchronized HttpCacheStats stats() {
+        return new HttpCacheStats(entries.size(), totalBytes, maxBytes, notModified, unchanged, misses, evictions);
+    }
+
+    private void evictOverflow() throws IOException {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && entries.size() > 1 && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            it.remove();
+            totalBytes -= eldest.getValue().size();
+            evictions++;
+            Files.deleteIfExists(metaFile(eldest.getKey()));
+            Files.deleteIfExists(bodyFile(eldest.getKey()));
+        }
+    }
+
+    /**
+     * Восстанавливает индекс по файлам метаданных в порядке их последнего использования.
+     * Записи без тела или с повреждёнными метаданными удаляются.
+     */
+    private void loadIndex() throws IOException {
+        List<Path> metas = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.properties")) {
+            files.forEach(metas::add);
+        }
+        metas.sort(Comparator.comparing(HttpResponseCache::lastModifiedTime));
+        for (Path meta : metas) {
+            String fileName = meta.getFileName().toString();
+            String key = fileName.substring(0, fileName.length() - ".properties".length());
+            Path body = bodyFile(key);
+            Properties props = new Properties();
+            try (Reader reader = Files.newBufferedReader(meta, StandardCharsets.UTF_8)) {
+                props.load(reader);
+            } catch (IOException | IllegalArgumentException e) {
+                props.clear();
+            }
+            String url = props.getProperty("url");
+            String hash = props.getProperty("hash");
+            if (url == null || hash == null || !Files.exists(body) || !key.equals(key(url))) {
+                Files.deleteIfExists(meta);
+                Files.deleteIfExists(body);
+                continue;
+            }
+            Entry entry = new Entry(url, props.getProperty("etag"), props.getProperty("lastModified"),
+                    hash, Files.size(body));
+            entries.put(key, entry);
+            totalBytes += entry.size();
+        }
+        evictOverflow();
+    }
+
+    private void writeMeta(String key, Entry entry) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("url", entry.url());
+        props.setProperty("hash", entry.contentHash());
+        if (entry.etag() != null) {
+            props.setProperty("etag", entry.etag());
+        }
+        if (entry.lastModified() != null) {
+            props.setProperty("lastModified", entry.lastModified());
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            props.store(writer, null);
+        }
+        writeAtomically(metaFile(key), out.toByteArray());
+    }
+
+    private void writeAtomically(Path target, byte[] content) throws IOException {
+        Path tmp = Files.createTempFile(directory, "tmp", ".part");
+        try {
+            Files.write(tmp, content);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private Path bodyFile(String key) {
+        return directory.resolve(key + ".gz");
+    }
+
+    private Path metaFile(String key) {
+        return directory.resolve(key + ".properties");
+    }
+
+    private static FileTime lastModifiedTime(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (OutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static String key(String url) {
+        return sha256(url.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package org.example.parser;
+
+import org.example.config.Config;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Общий HTTP-транспорт парсеров.
+ * <p>
+ * Один {@link HttpClient} на всё приложение: соединения и TLS-сессии переиспользуются
+ * между источниками и выгрузками, HTTP/2 предпочитается (несколько страниц идут
+ * по одному соединению), обработчики ответов выполняются в виртуальных потоках.
+ * Запросы отправляются с {@code Accept-Encoding: gzip, deflate}; сжатое тело
+ * распаковывается при чтении, так что парсеры получают обычный JSON.
+ * <p>
+ * По каждому хосту ведётся статистика: число запросов, байты по сети и после
+ * распаковки, время от отправки запроса до закрытия тела ответа.
+ */
+public final class HttpTransport {
+
+    private static final String USER_AGENT = "java-http-client";
+
+    private static final class Holder {
+        static final HttpTransport SHARED = fromConfig();
+    }
+
+    private final HttpClient client;
+    private final Duration requestTimeout;
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Транспорт поверх готового клиента, например заглушки в тестах.
+     */
+    public HttpTransport(HttpClient client) {
+        this(client, Duration.ofSeconds(Config.getLong("http.requestTimeoutSeconds", 30)));
+    }
+
+    public HttpTransport(HttpClient client, Duration requestTimeout) {
+        this.client = client;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Транспорт, общий для всех парсеров приложения.
+     */
+    public static HttpTransport shared() {
+        return Holder.SHARED;
+    }
+
+    private static HttpTransport fromConfig() {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(Config.getLong("http.connectTimeoutSeconds", 10)))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        return new HttpTransport(client);
+    }
+
+    /**
+     * Заготовка GET-запроса с общими заголовками и сроком ответа.
+     */
+    public HttpRequest.Builder newRequest(String url) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(requestTimeout)
+                .header("User-Agent", USER_AGENT)
+                .header("Accept-Encoding", "gzip, deflate")
+                .GET();
+    }
+
+    public HttpResponse<InputStream> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, bodyHandler(request));
+    }
+
+    public CompletableFuture<HttpResponse<InputStream>> sendAsync(HttpRequest request) {
+        return client.sendAsync(request, bodyHandler(request));
+    }
+
+    /**
+     * Статистика по хостам, упорядоченная по имени хоста.
+     */
+    public Map<String, HttpTransportStats> stats() {
+        Map<String, HttpTransportStats> result = new TreeMap<>();
+        counters.forEach((host, c) -> result.put(host, c.snapshot()));
+        return result;
+    }
+
+    /**
+     * Тело ответа как поток: распаковывается по {@code Content-Encoding}, а при закрытии
+     * в статистику хоста записываются объём и время запроса.
+     */
+    private HttpResponse.BodyHandler<InputStream> bodyHandler(HttpRequest request) {
+        long start = System.nanoTime();
+        Counters hostCounters = counters.computeIfAbsent(String.valueOf(request.uri().getHost()), h -> new Counters());
+        return info -> HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofInputStream(), raw -> {
+            MeteredStream wire = new MeteredStream(raw, null);
+            String encoding = info.headers().firstValue("Content-Encoding").orElse("identity");
+            return new MeteredStream(new DecodingStream(wire, encoding.trim().toLowerCase()),
+                    body -> hostCounters.record(wire.count, body.count, start));
+        });
+    }
+
+    private static final class Counters {
+        final AtomicLong requests = new AtomicLong();
+        final AtomicLong wireBytes = new AtomicLong();
+        final AtomicLong bodyBytes = new AtomicLong();
+        final AtomicLong totalNanos = new AtomicLong();
+        final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long wire, long body, long start) {
+            long elapsed = System.nanoTime() - start;
+            requests.incrementAndGet();
+            wireBytes.addAndGet(wire);
+            bodyBytes.addAndGet(body);
+            totalNanos.addAndGet(elapsed);
+            maxNanos.accumulateAndGet(elapsed, Math::max);
+        }
+
+        HttpTransportStats snapshot() {
+            long n = requests.get();
+            return new HttpTransportStats(n, wireBytes.get(), bodyBytes.get(),
+                    n == 0 ? 0.0 : totalNanos.get() / 1_000_000.0 / n,
+                    maxNanos.get() / 1_000_000.0);
+        }
+    }
+
+    /**
+     * Распаковывающий поток, создаваемый при первом чтении: конструктор GZIPInputStream
+     * читает заголовок, а блокировать поток HttpClient до прихода тела нельзя.
+     */
+    private static final class DecodingStream extends InputStream {
+        private final InputStream wire;
+        private final String encoding;
+        private InputStream decoded;
+
+        DecodingStream(InputStream wire, String encoding) {
+            this.wire = wire;
+            this.encoding = encoding;
+        }
+
+        private InputStream decoded() throws IOException {
+            if (decoded == null) {
+                decoded = switch (encoding) {
+                    case "gzip", "x-gzip" -> new GZIPInputStream(wire);
+                    case "deflate" -> new InflaterInputStream(wire);
+                    default -> wire;
+                };
+            }
+            return decoded;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return decoded().read();
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            return decoded().read(buf, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (decoded != null) {
+                decoded.close();
+            } else {
+                wire.close();
+            }
+        }
+    }
+
+    /**
+     * Поток, считающий прочитанные байты; при первом закрытии вызывает {@code onClose}.
+     */
+    private static final class MeteredStream extends FilterInputStream {
+        private final Consumer<MeteredStream> onClose;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private long count;
+
+        MeteredStream(InputStream in, Consumer<MeteredStream> onClose) {
+            super(in);
+            this.onClose = onClose;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            int n = super.read(buf, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed.compareAndSet(false, true)) {
+                try {
+                    super.close();
+                } finally {
+                    if (onClose != null) {
+                        onClose.accept(this);
+                    }
+                }
+            }
+        }
+    }
+}
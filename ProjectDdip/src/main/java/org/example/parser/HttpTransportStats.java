@@ -0,0 +1,33 @@
+package org.example.parser;
+
+/**
+ * Снимок статистики HTTP-транспорта по одному хосту.
+ *
+ * @param requests         число завершённых запросов (тело ответа прочитано и закрыто)
+ * @param wireBytes        байты тел ответов, полученные по сети
+ * @param bodyBytes        байты тел после распаковки
+ * @param avgLatencyMillis среднее время от отправки запроса до закрытия тела
+ * @param maxLatencyMillis максимальное время запроса
+ */
+public record HttpTransportStats(
+        long requests,
+        long wireBytes,
+        long bodyBytes,
+        double avgLatencyMillis,
+        double maxLatencyMillis
+) {
+    /**
+     * Во сколько раз тела сжаты при передаче.
+     */
+    public double compressionRatio() {
+        return wireBytes == 0 ? 1.0 : bodyBytes / (double) wireBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "requests=%d, wire=%.1f KB, body=%.1f KB (x%.1f), latency avg=%.0fms max=%.0fms",
+                requests, wireBytes / 1024.0, bodyBytes / 1024.0, compressionRatio(),
+                avgLatencyMillis, maxLatencyMillis);
+    }
+}
@@ -0,0 +1,622 @@
+package org.example.parser;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.example.config.Config;
+import org.example.model.ContentHash;
+import org.example.model.Vacancy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Общая часть парсеров постраничных API.
+ * <p>
+ * Выгрузка идёт по срезам {@link CrawlPlan}: ключевые слова × регионы × роли.
+ * Первая страница среза запрашивается синхронно; из неё берётся общее число страниц
+ * ({@link #totalPages}), и остальные страницы запрашиваются параллельно
+ * через {@link HttpTransport#sendAsync}; сколько запросов идёт одновременно, решает
+ * ограничитель источника. Результаты собираются в порядке страниц. Если API не сообщило
+ * итоги, страницы читаются последовательно до первой неполной. Для инкрементальной
+ * выгрузки нижняя граница даты публикации передаётся в URL каждой страницы.
+ * <p>
+ * Если по срезу найдено больше вакансий, чем API отдаёт постранично ({@link #maxResults}),
+ * срез делится пополам по периоду публикации, пока каждая часть не уложится в предел.
+ * Вакансии, попавшие в несколько срезов, передаются дальше один раз (по URL).
+ * <p>
+ * Все запросы источника проходят через {@link SourceRateLimiter}: он ограничивает частоту
+ * и подстраивает число одновременных запросов. На 429 и 5xx тело ответа не разбирается —
+ * запрос страницы повторяется после паузы (не больше {@code parser.maxRetries} раз),
+ * на прочие коды ошибок выгрузка прерывается с {@link IOException}.
+ * <p>
+ * Тело ответа читается потоком ({@code ofInputStream}) и сразу связывается
+ * с DTO страницы {@code P} — без промежуточной строки и дерева JsonNode.
+ * <p>
+ * С {@link HttpResponseCache} запрос отправляется условным, а тело ответа 200
+ * сохраняется в кэш. Если источник ответил 304 или прислал тело с тем же хэшем,
+ * разобранная ранее страница берётся из памяти без повторного разбора JSON.
+ *
+ * @param <P> DTO страницы ответа
+ * @param <I> DTO вакансии в ответе
+ */
+public abstract class PagedVacancyParser<P, I> implements VacancyParser {
+
+    protected final HttpTransport transport;
+    protected final ObjectMapper objectMapper;
+    private final String source;
+    private final ObjectReader pageReader;
+    private final SourceRateLimiter limiter;
+    private final int maxRetries;
+    private final HttpResponseCache cache;
+    private final CrawlPlan plan;
+    /** Разобранные страницы по хэшу тела; используются, пока страница не меняется. */
+    private final Map<String, P> decodedPages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, P> eldest) {
+            return size() > DECODED_PAGES;
+        }
+    };
+
+    private static final int DECODED_PAGES = 64;
+
+    /**
+     * Запрос страницы.
+     *
+     * @param cached запись кэша, по которой запрос сделан условным, или {@code null}
+     */
+    private record PageRequest(String url, HttpRequest request, HttpResponseCache.Entry cached) {
+    }
+
+    /**
+     * Ответ 429 или 5xx: страницу нужно запросить повторно.
+     */
+    private static final class ThrottledException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ThrottledException(int status) {
+            super("HTTP " + status, null, false, false);
+            this.status = status;
+        }
+    }
+
+    /**
+     * Ответ 304, а сохранённого тела уже нет (запись вытеснена или файл удалён):
+     * страницу нужно запросить без условных заголовков.
+     */
+    private static final class StaleCacheException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        StaleCacheException(String url) {
+            super("нет сохранённого ответа для " + url, null, false, false);
+        }
+    }
+
+    /**
+     * Разрешение ограничителя на один запрос; возвращается ровно один раз,
+     * даже если ответ обработан и запрос отменён одновременно.
+     */
+    private final class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release(SourceRateLimiter.Outcome outcome, Duration retryAfter) {
+            if (released.compareAndSet(false, true)) {
+                limiter.release(outcome, retryAfter);
+            }
+        }
+    }
+
+    /**
+     * @param source имя источника; передаётся сюда, а не берётся из переопределяемого метода,
+     *               потому что по нему уже в конструкторе создаётся ограничитель
+     * @param cache  дисковый кэш ответов или {@code null}, если страницы не кэшируются
+     * @param plan   срезы выгрузки
+     */
+    protected PagedVacancyParser(String source,
+                                 HttpTransport transport,
+                                 ObjectMapper objectMapper,
+                                 Class<P> pageType,
+                                 int maxConcurrency,
+                                 HttpResponseCache cache,
+                                 CrawlPlan plan) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Число параллельных запросов должно быть положительным: " + maxConcurrency);
+        }
+        this.source = source;
+        this.transport = transport;
+        this.objectMapper = objectMapper;
+        this.pageReader = objectMapper.readerFor(pageType);
+        this.limiter = SourceRateLimiter.fromConfig(source, maxConcurrency);
+        this.maxRetries = Config.getInt("parser.maxRetries", 3);
+        this.cache = cache;
+        this.plan = plan;
+    }
+
+    /**
+     * Число одновременно запрашиваемых страниц по умолчанию.
+     */
+    protected static int defaultConcurrency() {
+        return Config.getInt("parser.maxConcurrentPages", 4);
+    }
+
+    @Override
+    public final String source() {
+        return source;
+    }
+
+    /** Ограничитель запросов источника. */
+    public SourceRateLimiter limiter() {
+        return limiter;
+    }
+
+    /** Имя парсера для сообщений в лог. */
+    protected abstract String name();
+
+    /** Размер страницы. */
+    protected abstract int perPage();
+
+    /** Сколько вакансий API отдаёт по одному запросу постранично. */
+    protected abstract int maxResults();
+
+    /**
+     * URL страницы среза с номером {@code page}, начиная с 0.
+     */
+    protected abstract String pageUrl(CrawlSlice slice, int page);
+
+    /** Вакансии страницы; {@code null}, если их в ответе нет. */
+    protected abstract List<I> items(P page);
+
+    /**
+     * Общее число страниц по итогам из ответа на первую страницу
+     * или {@code -1}, если итогов в ответе нет.
+     */
+    protected abstract int totalPages(P page);
+
+    /**
+     * Сколько вакансий нашёл источник по запросу или {@code -1}, если он не сообщает.
+     */
+    protected abstract long found(P page);
+
+    protected abstract Vacancy toVacancy(I item);
+
+    /**
+     * Дополняет вакансии страницы перед передачей дальше, например полными описаниями.
+     * Вызывается в потоке выгрузки по порядку страниц, когда разрешение ограничителя
+     * на саму страницу уже возвращено. По умолчанию ничего не делает.
+     */
+    protected void enrich(List<Vacancy> vacancies) throws InterruptedException {
+    }
+
+    @Override
+    public List<Vacancy> fetchVacancies() throws IOException, InterruptedException {
+        return fetchVacancies(null);
+    }
+
+    @Override
+    public List<Vacancy> fetchVacancies(LocalDateTime since) throws IOException, InterruptedException {
+        List<Vacancy> result = new ArrayList<>();
+        fetchVacancies(since, result::addAll);
+        return result;
+    }
+
+    /**
+     * Передаёт вакансии каждой страницы в {@code target}, как только страница получена
+     * и дополнена {@link #enrich} (для параллельно запрашиваемых страниц — в порядке номеров).
+     */
+    @Override
+    public void fetchVacancies(LocalDateTime since, PageSink target) throws IOException, InterruptedException {
+        Set<String> seen = new HashSet<>();
+        PageSink sink = vacancies -> {
+            vacancies.removeIf(v -> v.getUrl() != null && !seen.add(v.getUrl()));
+            enrich(vacancies);
+            target.accept(vacancies);
+        };
+        LocalDateTime now = LocalDateTime.now();
+        // граница инкрементальной выгрузки выравнивается до часа, чтобы URL повторялись
+        // между выгрузками одного часа; лишние вакансии отсеются по хэшу содержимого
+        for (CrawlSlice slice : plan.slices(since != null ? since.truncatedTo(ChronoUnit.HOURS) : null)) {
+            fetchSlice(slice, now, sink);
+        }
+    }
+
+    /**
+     * Выгружает срез; если по нему найдено больше {@link #maxResults} вакансий,
+     * вместо него выгружаются половины его периода публикации.
+     */
+    private void fetchSlice(CrawlSlice slice, LocalDateTime now, PageSink sink)
+            throws IOException, InterruptedException {
+        P page = fetchPage(request(slice, 0), 0, 0);
+        if (page == null) {
+            return;
+        }
+        long found = found(page);
+        if (found > maxResults()) {
+            List<CrawlSlice> halves = slice.split(now.minus(plan.horizon()), now, plan.minWindow());
+            if (!halves.isEmpty()) {
+                System.out.printf("[%s] %s: найдено %d при пределе %d, срез делится по датам%n",
+                        name(), slice, found, maxResults());
+                for (CrawlSlice half : halves) {
+                    fetchSlice(half, now, sink);
+                }
+                return;
+            }
+            System.err.printf("[%s] %s: найдено %d при пределе %d, срез делить дальше нельзя — " +
+                    "часть вакансий не выгружена%n", name(), slice, found, maxResults());
+        }
+
+        List<Vacancy> first = new ArrayList<>();
+        int count = mapItems(page, first);
+        sink.accept(first);
+
+        int totalPages = totalPages(page);
+        if (totalPages < 0) {
+            if (count == perPage()) {
+                fetchSequentially(1, slice, sink);
+            }
+        } else if (totalPages > 1) {
+            fetchConcurrently(totalPages, slice, sink);
+        }
+    }
+
+    /**
+     * Разбирает тело одной страницы ответа в вакансии.
+     */
+    public List<Vacancy> parsePage(InputStream body) throws IOException {
+        List<Vacancy> vacancies = new ArrayList<>();
+        mapItems(readPage(body), vacancies);
+        return vacancies;
+    }
+
+    private P readPage(InputStream body) throws IOException {
+        try (InputStream in = body) {
+            return pageReader.readValue(in);
+        }
+    }
+
+    /**
+     * Страница из ответа. Без кэша тело разбирается потоком; с кэшем оно читается целиком,
+     * сохраняется, и разбор пропускается, если содержимое страницы не изменилось.
+     */
+    private P readPage(PageRequest request, HttpResponse<InputStream> response) throws IOException {
+        if (cache == null) {
+            return readPage(response.body());
+        }
+        if (response.statusCode() == 304 && request.cached() != null) {
+            response.body().close();
+            HttpResponseCache.Entry entry = cache.notModified(request.url(), response.headers());
+            if (entry == null) {
+                throw new StaleCacheException(request.url());
+            }
+            P page = decodedPage(entry.contentHash());
+            if (page == null) {
+                byte[] body = cache.read(entry);
+                if (body == null) {
+                    throw new StaleCacheException(request.url());
+                }
+                page = rememberPage(entry.contentHash(), readPage(new ByteArrayInputStream(body)));
+            }
+            return page;
+        }
+        byte[] body;
+        try (InputStream in = response.body()) {
+            body = in.readAllBytes();
+        }
+        if (response.statusCode() != 200) {
+            return readPage(new ByteArrayInputStream(body));
+        }
+        HttpResponseCache.Entry entry = cache.store(request.url(), response.headers(), body);
+        P page = decodedPage(entry.contentHash());
+        if (page == null) {
+            page = rememberPage(entry.contentHash(), readPage(new ByteArrayInputStream(body)));
+        }
+        return page;
+    }
+
+    private P decodedPage(String contentHash) {
+        synchronized (decodedPages) {
+            return decodedPages.get(contentHash);
+        }
+    }
+
+    private P rememberPage(String contentHash, P page) {
+        synchronized (decodedPages) {
+            decodedPages.put(contentHash, page);
+        }
+        return page;
+    }
+
+    /**
+     * Последовательный обход, пока страницы полные, — когда итоги неизвестны.
+     */
+    private void fetchSequentially(int fromPage, CrawlSlice slice, PageSink sink)
+            throws IOException, InterruptedException {
+        for (int page = fromPage; ; page++) {
+            P body = fetchPage(request(slice, page), page, 0);
+            if (body == null) {
+                return;
+            }
+            List<Vacancy> vacancies = new ArrayList<>();
+            int count = mapItems(body, vacancies);
+            sink.accept(vacancies);
+            if (count < perPage()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Запрашивает страницы 1..totalPages-1 параллельно; число запросов в полёте
+     * задаёт ограничитель источника. Ответы разбираются по мере завершения, а в
+     * {@code sink} страницы уходят по порядку номеров, как только готовы все
+     * предыдущие. Первая ошибка любой страницы сразу отменяет остальные. Страницы,
+     * на которые источник ответил 429 или 5xx, запрашиваются повторно, когда до них
+     * доходит очередь.
+     */
+    private void fetchConcurrently(int totalPages, CrawlSlice slice, PageSink sink)
+            throws IOException, InterruptedException {
+        List<PageRequest> requests = new ArrayList<>();
+        List<CompletableFuture<List<Vacancy>>> pages = new ArrayList<>();
+        BlockingQueue<Integer> completed = new LinkedBlockingQueue<>();
+        BitSet ready = new BitSet();
+        int next = 0;
+        try {
+            for (int page = 1; page < totalPages; page++) {
+                limiter.acquire();
+                int p = page;
+                PageRequest request = request(slice, p);
+                Permit permit = new Permit();
+                CompletableFuture<HttpResponse<InputStream>> sent = transport.sendAsync(request.request());
+                CompletableFuture<List<Vacancy>> future = sent.handle((r, e) -> decodePage(request, r, e, p, permit));
+                sent.whenComplete((r, e) -> {
+                    if (future.isCancelled()) {
+                        closeQuietly(r);
+                        permit.release(SourceRateLimiter.Outcome.FAILED, null);
+                    }
+                });
+                int index = pages.size();
+                requests.add(request);
+                pages.add(future);
+                future.whenComplete((r, e) -> completed.add(index));
+                for (Integer done = completed.poll(); done != null; done = completed.poll()) {
+                    next = collect(done, pages, requests, ready, next, sink);
+                }
+            }
+            while (next < pages.size()) {
+                next = collect(completed.take(), pages, requests, ready, next, sink);
+            }
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } finally {
+            pages.forEach(f -> f.cancel(true));
+        }
+    }
+
+    /**
+     * Учитывает завершившуюся страницу и отдаёт в {@code sink} готовые страницы,
+     * идущие подряд с {@code next}.
+     *
+     * @return номер первой ещё не отданной страницы
+     * @throws ExecutionException страница завершилась ошибкой, после которой продолжать незачем
+     */
+    private int collect(int index, List<CompletableFuture<List<Vacancy>>> pages, List<PageRequest> requests,
+                        BitSet ready, int next, PageSink sink)
+            throws ExecutionException, IOException, InterruptedException {
+        if (failedFast(pages.get(index))) {
+            pages.get(index).get();
+        }
+        ready.set(index);
+        for (; next < pages.size() && ready.get(next); next++) {
+            List<Vacancy> vacancies;
+            try {
+                vacancies = pages.get(next).get();
+            } catch (ExecutionException e) {
+                PageRequest request = e.getCause() instanceof StaleCacheException
+                        ? unconditional(requests.get(next)) : requests.get(next);
+                vacancies = new ArrayList<>();
+                mapItems(fetchPage(request, next + 1, 1), vacancies);
+            }
+            sink.accept(vacancies);
+        }
+        return next;
+    }
+
+    private List<Vacancy> decodePage(PageRequest request, HttpResponse<InputStream> response, Throwable error,
+                                     int page, Permit permit) {
+        if (error != null) {
+            permit.release(SourceRateLimiter.Outcome.FAILED, null);
+            throw error instanceof CompletionException ce ? ce : new CompletionException(error);
+        }
+        try {
+            List<Vacancy> vacancies = new ArrayList<>();
+            mapItems(completePage(request, response, page, permit), vacancies);
+            return vacancies;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Синхронный запрос страницы через ограничитель; на 429 и 5xx запрос повторяется.
+     *
+     * @param attempt сколько попыток уже сделано
+     * @return страница или {@code null}, если источник ответил 400/401
+     */
+    private P fetchPage(PageRequest request, int page, int attempt) throws IOException, InterruptedException {
+        for (; ; attempt++) {
+            limiter.acquire();
+            Permit permit = new Permit();
+            try {
+                return completePage(request, transport.send(request.request()), page, permit);
+            } catch (StaleCacheException e) {
+                System.err.println("[" + name() + "] " + e.getMessage() + ", page " + page + " is refetched");
+                request = unconditional(request);
+            } catch (ThrottledException e) {
+                if (attempt >= maxRetries) {
+                    throw new IOException("[" + name() + "] HTTP " + e.status + " for page " + page
+                            + " after " + attempt + " retries");
+                }
+                System.err.println("[" + name() + "] HTTP " + e.status + " for page " + page + ", retrying");
+            } finally {
+                permit.release(SourceRateLimiter.Outcome.FAILED, null);
+            }
+        }
+    }
+
+    /**
+     * Разбирает ответ на запрос страницы и возвращает разрешение ограничителю.
+     *
+     * @return страница или {@code null}, если источник ответил 400 (страниц больше нет) или 401
+     * @throws ThrottledException ответ 429 или 5xx — страницу нужно запросить повторно
+     */
+    private P completePage(PageRequest request, HttpResponse<InputStream> response, int page, Permit permit)
+            throws IOException {
+        int status = response.statusCode();
+        if (SourceRateLimiter.isThrottled(status)) {
+            closeQuietly(response);
+            permit.release(SourceRateLimiter.Outcome.THROTTLED, SourceRateLimiter.retryAfter(response.headers()));
+            throw new ThrottledException(status);
+        }
+        SourceRateLimiter.Outcome outcome = SourceRateLimiter.Outcome.FAILED;
+        try {
+            if (status == 400 || status == 401) {
+                closeQuietly(response);
+                outcome = SourceRateLimiter.Outcome.SUCCESS;
+                return null;
+            }
+            if (status != 200 && status != 304) {
+                closeQuietly(response);
+                throw new IOException("[" + name() + "] HTTP " + status + " for page " + page);
+            }
+            P result;
+            try {
+                result = readPage(request, response);
+            } catch (StaleCacheException e) {
+                // 304 без сохранённого тела — ответ источника всё равно успешный
+                outcome = SourceRateLimiter.Outcome.SUCCESS;
+                throw e;
+            }
+            outcome = SourceRateLimiter.Outcome.SUCCESS;
+            return result;
+        } finally {
+            permit.release(outcome, null);
+        }
+    }
+
+    /**
+     * Завершился ли запрос ошибкой, после которой остальные страницы запрашивать незачем.
+     */
+    private static boolean failedFast(CompletableFuture<?> future) {
+        if (!future.isCompletedExceptionally() || future.isCancelled()) {
+            return false;
+        }
+        Throwable error = future.exceptionNow();
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return !(error instanceof ThrottledException || error instanceof StaleCacheException);
+    }
+
+    private static void closeQuietly(HttpResponse<InputStream> response) {
+        if (response == null || response.body() == null) {
+            return;
+        }
+        try {
+            response.body().close();
+        } catch (IOException ignored) {
+            // тело ответа не нужно
+        }
+    }
+
+    /**
+     * Преобразует вакансии страницы и добавляет их в {@code target}.
+     *
+     * @return число элементов на странице, включая не прошедшие преобразование
+     */
+    private int mapItems(P page, List<Vacancy> target) {
+        List<I> items = page != null ? items(page) : null;
+        if (items == null) {
+            return 0;
+        }
+        for (I item : items) {
+            try {
+                Vacancy vacancy = toVacancy(item);
+                vacancy.setContentHash(ContentHash.of(vacancy));
+                target.add(vacancy);
+            } catch (Exception ex) {
+                System.err.println("[" + name() + "] error mapping item: " + ex.getMessage());
+            }
+        }
+        return items.size();
+    }
+
+    private PageRequest request(CrawlSlice slice, int page) {
+        String url = pageUrl(slice, page);
+        HttpRequest.Builder builder = transport.newRequest(url);
+        HttpResponseCache.Entry cached = cache != null ? cache.lookup(url) : null;
+        if (cached != null) {
+            cached.addValidators(builder);
+        }
+        return new PageRequest(url, builder.build(), cached);
+    }
+
+    private PageRequest unconditional(PageRequest request) {
+        return new PageRequest(request.url(), transport.newRequest(request.url()).build(), null);
+    }
+
+    private static IOException unwrap(Throwable cause) {
+        if (cause instanceof UncheckedIOException u) {
+            return u.getCause();
+        }
+        if (cause instanceof IOException io) {
+            return io;
+        }
+        if (cause instanceof RuntimeException re) {
+            throw re;
+        }
+        return new IOException(cause);
+    }
+
+    /**
+     * Число страниц по общему числу найденных вакансий с учётом предела глубины выдачи API.
+     */
+    protected static int pagesFor(long found, int perPage, int maxResults) {
+        long reachable = Math.min(found, maxResults);
+        return (int) ((reachable + perPage - 1) / perPage);
+    }
+
+    /**
+     * Дата публикации в формате ISO; если её нет или она не разбирается — текущее время.
+     */
+    protected static LocalDateTime parsePublished(String publishedAt) {
+        if (publishedAt != null) {
+            try {
+                return LocalDateTime.parse(publishedAt, DateTimeFormatter.ISO_DATE_TIME);
+            } catch (Exception ex) {
+                return LocalDateTime.now();
+            }
+        }
+        return LocalDateTime.now();
+    }
+}
@@ -0,0 +1,245 @@
+package org.example.parser;
+
+import org.example.config.Config;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ограничитель запросов к одному источнику.
+ * <p>
+ * Частоту задаёт корзина токенов: не больше {@code rate} запросов в секунду
+ * с запасом {@code burst}. Число одновременных запросов подстраивается по AIMD:
+ * каждый успешный ответ увеличивает предел примерно на единицу за «окно»
+ * ({@code +1/limit}), ответ 429 или 5xx вдвое уменьшает и предел, и частоту.
+ * После такого ответа новые запросы не выдаются до истечения {@code Retry-After}
+ * (как есть, без ограничения сверху), а если источник его не прислал — экспоненциальной
+ * паузы (1 с, 2 с, … до минуты).
+ * Успешные ответы постепенно возвращают частоту к настроенной.
+ * <p>
+ * Ожидание построено на {@link ReentrantLock}, а не на {@code synchronized}/{@code wait},
+ * чтобы не занимать несущие потоки виртуальных потоков.
+ */
+public final class SourceRateLimiter {
+
+    private static final Duration MIN_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(1);
+
+    /**
+     * Итог запроса для подстройки предела.
+     */
+    public enum Outcome {
+        /** Ответ получен, источник не перегружен. */
+        SUCCESS,
+        /** 429 или 5xx: источник просит снизить нагрузку. */
+        THROTTLED,
+        /** Сетевая ошибка или отмена: предел не меняется. */
+        FAILED
+    }
+
+    private final String source;
+    private final double maxRate;
+    private final double burst;
+    private final int maxConcurrency;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private double rate;
+    private double tokens;
+    private long refilledAt;
+    private double limit;
+    private int inFlight;
+    private long pausedUntil;
+    private Duration backoff = MIN_BACKOFF;
+    private long throttled;
+
+    /**
+     * @param rate           предельная частота запросов в секунду
+     * @param burst          сколько запросов можно отправить подряд без ожидания
+     * @param maxConcurrency предельное число одновременных запросов
+     */
+    public SourceRateLimiter(String source, double rate, int burst, int maxConcurrency) {
+        if (rate <= 0 || burst <= 0 || maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Параметры ограничителя должны быть положительными");
+        }
+        this.source = source;
+        this.maxRate = rate;
+        this.burst = burst;
+        this.maxConcurrency = maxConcurrency;
+        this.rate = rate;
+        this.tokens = burst;
+        this.limit = maxConcurrency;
+        this.refilledAt = System.nanoTime();
+        this.pausedUntil = refilledAt;
+    }
+
+    /**
+     * Ограничитель по настройкам {@code parser.requestsPerSecond} и {@code parser.burst};
+     * для отдельного источника их можно переопределить ключами с суффиксом {@code .<source>}.
+     */
+    public static SourceRateLimiter fromConfig(String source, int maxConcurrency) {
+        double rate = Double.parseDouble(setting("parser.requestsPerSecond", source, "5"));
+        int burst = Integer.parseInt(setting("parser.burst", source, String.valueOf(maxConcurrency)));
+        return new SourceRateLimiter(source, rate, burst, maxConcurrency);
+    }
+
+    private static String setting(String key, String source, String defaultValue) {
+        String value = source != null ? Config.get(key + "." + source) : null;
+        return (value != null ? value : Config.get(key, defaultValue)).trim();
+    }
+
+    /**
+     * Ждёт разрешения на запрос: свободного места в пределе, токена и окончания паузы.
+     * Каждому успешному вызову должен соответствовать ровно один {@link #release}.
+     */
+    public void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                refill(now);
+                long waitNanos;
+                if (now - pausedUntil < 0) {
+                    waitNanos = pausedUntil - now;
+                } else if (inFlight >= (int) limit) {
+                    waitNanos = Long.MAX_VALUE;
+                } else if (tokens < 1.0) {
+                    waitNanos = (long) ((1.0 - tokens) / rate * 1_000_000_000L) + 1;
+                } else {
+                    tokens -= 1.0;
+                    inFlight++;
+                    return;
+                }
+                if (waitNanos == Long.MAX_VALUE) {
+                    changed.await();
+                } else {
+                    changed.awaitNanos(waitNanos);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Возвращает разрешение и подстраивает предел по итогу запроса.
+     *
+     * @param retryAfter пауза из {@code Retry-After} или {@code null}
+     */
+    public void release(Outcome outcome, Duration retryAfter) {
+        lock.lock();
+        try {
+            inFlight--;
+            // токены, накопленные по прежней частоте, начисляются до её изменения
+            refill(System.nanoTime());
+            switch (outcome) {
+                case SUCCESS -> {
+                    limit = Math.min(maxConcurrency, limit + 1.0 / limit);
+                    rate = Math.min(maxRate, rate + maxRate / 10);
+                    backoff = MIN_BACKOFF;
+                }
+                case THROTTLED -> {
+                    throttled++;
+                    limit = Math.max(1.0, limit / 2);
+                    rate = Math.max(maxRate / 16, rate / 2);
+                    tokens = Math.min(tokens, 0.0);
+                    Duration pause = retryAfter != null ? retryAfter : backoff;
+                    backoff = min(backoff.multipliedBy(2), MAX_BACKOFF);
+                    long until = System.nanoTime() + pause.toNanos();
+                    if (until - pausedUntil > 0) {
+                        pausedUntil = until;
+                    }
+                    System.err.printf("[SourceRateLimiter] %s: снижение нагрузки, пауза %d мс, " +
+                                    "параллельно %d, %.1f запр/с%n",
+                            source, pause.toMillis(), (int) limit, rate);
+                }
+                case FAILED -> {
+                }
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Текущий предел одновременных запросов. */
+    public int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Текущая частота запросов в секунду. */
+    public double rate() {
+        lock.lock();
+        try {
+            return rate;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Сколько раз источник просил снизить нагрузку. */
+    public long throttled() {
+        lock.lock();
+        try {
+            return throttled;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Нужно ли снизить нагрузку и повторить запрос с таким кодом ответа.
+     */
+    public static boolean isThrottled(int status) {
+        return status == 429 || status >= 500;
+    }
+
+    /**
+     * Пауза из заголовка {@code Retry-After}: число секунд или HTTP-дата;
+     * {@code null}, если заголовка нет или он не разбирается.
+     */
+    public static Duration retryAfter(HttpHeaders headers) {
+        if (headers == null) {
+            return null;
+        }
+        String value = headers.firstValue("Retry-After").map(String::trim).orElse(null);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            try {
+                Duration d = Duration.between(ZonedDateTime.now(),
+                        ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME));
+                return d.isNegative() ? Duration.ZERO : d;
+            } catch (Exception ex) {
+                return null;
+            }
+        }
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(burst, tokens + (now - refilledAt) / 1_000_000_000.0 * rate);
+        refilledAt = now;
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: параллельно %d, %.1f запр/с, замедлений %d",
+                source, limit(), rate(), throttled());
+    }
+}
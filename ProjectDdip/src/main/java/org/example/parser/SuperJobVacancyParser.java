@@ -1,158 +1,222 @@
 package org.example.parser;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.model.Vacancy;
 
-import java.io.IOException;
-import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.time.ZoneId;
 import java.util.List;
 
 /**
  * Парсер вакансий с SuperJob.ru через их публичный API.
 
  */
-public class SuperJobVacancyParser implements VacancyParser {
+public class SuperJobVacancyParser extends PagedVacancyParser<SuperJobVacancyParser.Page, SuperJobVacancyParser.Item> {
 
     private static final String BASE_URL = "https://api.superjob.ru/2.0/vacancies/";
     private static final int PER_PAGE = 100;
     private static final String SEARCH_TEXT = "java";
+    private static final String SOURCE = "superjob.ru";
+    private static final int MAX_RESULTS = 500;
 
-    private final HttpClient httpClient;
-    private final ObjectMapper objectMapper;
+    /**
+     * Страница выдачи {@code GET /2.0/vacancies/}; читаются только нужные поля.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Page(List<Item> objects, Long total, Boolean more) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Item(String profession,
+                       Titled client,
+                       Titled town,
+                       Payment payment,
+                       String vacancyRichText,
+                       String candidat,
+                       String link,
+                       @JsonProperty("date_published") String datePublished,
+                       @JsonProperty("type_of_work") Titled typeOfWork) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Titled(String title) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Payment(Integer from, Integer to, String currency) {
+    }
 
     public SuperJobVacancyParser() {
-        this(HttpClient.newHttpClient(), new ObjectMapper());
+        this((HttpResponseCache) null);
+    }
+
+    /**
+     * Парсер на общем транспорте {@link HttpTransport#shared()}.
+     *
+     * @param cache дисковый кэш ответов или {@code null}
+     */
+    public SuperJobVacancyParser(HttpResponseCache cache) {
+        this(builder(HttpTransport.shared(), new ObjectMapper()).cache(cache));
     }
 
     public SuperJobVacancyParser(HttpClient httpClient, ObjectMapper objectMapper) {
-        this.httpClient = httpClient;
-        this.objectMapper = objectMapper;
+        this(builder(new HttpTransport(httpClient), objectMapper));
     }
 
-    @Override
-    public List<Vacancy> fetchVacancies() throws IOException, InterruptedException {
-        List<Vacancy> result = new ArrayList<>();
-        int page = 0;
-
-        while (true) {
-            String url = String.format(
-                    "%s?keyword=%s&count=%d&page=%d",
-                    BASE_URL, SEARCH_TEXT, PER_PAGE, page
-            );
-            
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("User-Agent", "java-http-client")
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = httpClient.send(
-                    request, HttpResponse.BodyHandlers.ofString()
-            );
-
-            if (response.statusCode() == 400) {
-                break;
-            }
-            else if (response.statusCode() != 401 && response.statusCode() != 200) {
-                System.err.println("[SuperJobVacancyParser] non-200 response: " + response.statusCode() + " for page " + page);
-            }
-
-            String body = response.body();
-            JsonNode root = objectMapper.readTree(body);
-            JsonNode items = root.get("objects");
-            if (items == null || !items.isArray() || items.size() == 0) {
-                break;
-            }
-
-            for (JsonNode item : items) {
-                try {
-                    Vacancy vacancy = mapNodeToVacancy(item);
-                    result.add(vacancy);
-                } catch (Exception ex) {
-                    System.err.println("[SuperJobVacancyParser] error mapping item: " + ex.getMessage());
-                }
-            }
-
-            if (items.size() < PER_PAGE) {
-                break;
-            }
-
-            page++;
-        }
+    private SuperJobVacancyParser(Builder builder) {
+        super(SOURCE, builder.transport, builder.objectMapper, Page.class, builder.maxConcurrency, builder.cache,
+                builder.plan != null ? builder.plan : CrawlPlan.fromConfig(SOURCE, SEARCH_TEXT));
+    }
 
-        return result;
+    public static Builder builder(HttpTransport transport, ObjectMapper objectMapper) {
+        return new Builder(transport, objectMapper);
     }
 
     /**
-     * Преобразует JSON-объект вакансии из API SuperJob.ru в модель Vacancy.
-     * Обрабатывает все поля, включая вложенные объекты и nullable значения.
+     * Настройки парсера; не заданные берутся из конфигурации.
      */
-    private Vacancy mapNodeToVacancy(JsonNode item) {
-        Vacancy v = new Vacancy();
+    public static final class Builder {
+        private final HttpTransport transport;
+        private final ObjectMapper objectMapper;
+        private int maxConcurrency = defaultConcurrency();
+        private HttpResponseCache cache;
+        private CrawlPlan plan;
+
+        private Builder(HttpTransport transport, ObjectMapper objectMapper) {
+            this.transport = transport;
+            this.objectMapper = objectMapper;
+        }
 
-        v.setTitle(getText(item, "profession"));
-        v.setCompany(getText(item, "client", "title"));
-        v.setCity(getText(item, "town", "title"));
-
-        JsonNode paymentNode = item.get("payment");
-        if (paymentNode != null && !paymentNode.isNull()) {
-            if (paymentNode.hasNonNull("from")) {
-                v.setSalaryFrom(paymentNode.get("from").asInt());
-            }
-            if (paymentNode.hasNonNull("to")) {
-                v.setSalaryTo(paymentNode.get("to").asInt());
-            }
-            if (paymentNode.hasNonNull("currency")) {
-                v.setCurrency(paymentNode.get("currency").asText());
-            }
+        /** Число одновременно запрашиваемых страниц. */
+        public Builder maxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+            return this;
         }
 
-        v.setDescription(getText(item, "vacancyRichText"));
-        v.setRequirements(getText(item, "candidat"));
-
-        String vacancyUrl = getText(item, "link");
-        v.setUrl(vacancyUrl);
-        v.setSource("superjob.ru");
-        v.setSourceUrl(vacancyUrl);
-
-        String publishedAt = getText(item, "date_published");
-        if (publishedAt != null) {
-            try {
-                LocalDateTime pub = LocalDateTime.parse(publishedAt, DateTimeFormatter.ISO_DATE_TIME);
-                v.setPublishedDate(pub);
-            } catch (Exception ex) {
-                v.setPublishedDate(LocalDateTime.now());
-            }
-        } else {
-            v.setPublishedDate(LocalDateTime.now());
+        /** Дисковый кэш ответов; {@code null} — без кэша. */
+        public Builder cache(HttpResponseCache cache) {
+            this.cache = cache;
+            return this;
         }
 
-        v.setCreatedAt(LocalDateTime.now());
+        /** Срезы выгрузки: ключевые слова, регионы ({@code town}) и рубрики ({@code catalogues}). */
+        public Builder plan(CrawlPlan plan) {
+            this.plan = plan;
+            return this;
+        }
 
-        JsonNode scheduleNode = item.get("type_of_work");
-        if (scheduleNode != null && !scheduleNode.isNull()) {
-            v.setWorkSchedule(scheduleNode.get("title").asText());
+        public SuperJobVacancyParser build() {
+            return new SuperJobVacancyParser(this);
         }
+    }
 
-        return v;
+    @Override
+    protected String name() {
+        return "SuperJobVacancyParser";
+    }
+
+    @Override
+    protected int perPage() {
+        return PER_PAGE;
+    }
+
+    @Override
+    protected int maxResults() {
+        return MAX_RESULTS;
+    }
+
+    /**
+     * Регион и рубрика передаются как {@code town} и {@code catalogues}, период публикации —
+     * как {@code date_published_from}/{@code date_published_to} в unix-времени (секунды).
+     */
+    @Override
+    protected String pageUrl(CrawlSlice slice, int page) {
+        StringBuilder url = new StringBuilder(String.format(
+                "%s?keyword=%s&count=%d&page=%d",
+                BASE_URL, URLEncoder.encode(slice.keyword(), StandardCharsets.UTF_8), PER_PAGE, page
+        ));
+        if (slice.area() != null) {
+            url.append("&town=").append(URLEncoder.encode(slice.area(), StandardCharsets.UTF_8));
+        }
+        if (slice.role() != null) {
+            url.append("&catalogues=").append(URLEncoder.encode(slice.role(), StandardCharsets.UTF_8));
+        }
+        if (slice.from() != null) {
+            url.append("&date_published_from=").append(epochSeconds(slice.from()));
+        }
+        if (slice.to() != null) {
+            url.append("&date_published_to=").append(epochSeconds(slice.to()));
+        }
+        return url.toString();
+    }
+
+    private static long epochSeconds(LocalDateTime date) {
+        return date.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    @Override
+    protected List<Item> items(Page page) {
+        return page.objects();
     }
 
     /**
-     * Безопасно извлекает вложенное поле из JsonNode.
+     * SuperJob сообщает общее число вакансий ({@code total}) и признак следующей
+     * страницы ({@code more}); глубже {@value #MAX_RESULTS} результатов API не отдаёт.
      */
-    private String getText(JsonNode node, String... path) {
-        JsonNode curr = node;
-        for (String p : path) {
-            if (curr == null) return null;
-            curr = curr.get(p);
+    @Override
+    protected int totalPages(Page page) {
+        if (page.total() != null) {
+            return pagesFor(page.total(), PER_PAGE, MAX_RESULTS);
+        }
+        if (Boolean.FALSE.equals(page.more())) {
+            return 1;
         }
-        return (curr != null && !curr.isNull()) ? curr.asText() : null;
+        return -1;
+    }
+
+    @Override
+    protected long found(Page page) {
+        return page.total() != null ? page.total() : -1;
+    }
+
+    /**
+     * Преобразует вакансию из API SuperJob.ru в модель Vacancy.
+     * Обрабатывает все поля, включая вложенные объекты и nullable значения.
+     */
+    @Override
+    protected Vacancy toVacancy(Item item) {
+        Vacancy v = new Vacancy();
+
+        v.setTitle(item.profession());
+        v.setCompany(title(item.client()));
+        v.setCity(title(item.town()));
+
+        Payment payment = item.payment();
+        if (payment != null) {
+            v.setSalaryFrom(payment.from());
+            v.setSalaryTo(payment.to());
+            v.setCurrency(payment.currency());
+        }
+
+        v.setDescription(item.vacancyRichText());
+        v.setRequirements(item.candidat());
+
+        v.setUrl(item.link());
+        v.setSource(SOURCE);
+        v.setSourceUrl(item.link());
+        v.setPublishedDate(parsePublished(item.datePublished()));
+        v.setCreatedAt(LocalDateTime.now());
+        v.setWorkSchedule(title(item.typeOfWork()));
+
+        return v;
+    }
+
+    private static String title(Titled titled) {
+        return titled != null ? titled.title() : null;
     }
 }
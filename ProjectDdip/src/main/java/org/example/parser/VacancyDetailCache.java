@@ -0,0 +1,145 @@
+package org.example.parser;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.config.Config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Кэш подробных описаний вакансий одного источника.
+ * <p>
+ * Запись хранит описание вместе с маркером изменения вакансии из выдачи (например,
+ * датой публикации): пока маркер тот же, описание берётся из кэша и карточка
+ * вакансии повторно не запрашивается. Записи держатся в памяти в порядке
+ * использования, число записей ограничено; на диск кэш сохраняется одним сжатым
+ * JSON-файлом по {@link #flush()}.
+ */
+public final class VacancyDetailCache {
+
+    /**
+     * Запись кэша.
+     *
+     * @param marker      маркер изменения вакансии, с которым получено описание
+     * @param description описание вакансии
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Detail(String marker, String description) {
+    }
+
+    private static final TypeReference<LinkedHashMap<String, Detail>> FILE_TYPE = new TypeReference<>() {
+    };
+
+    private final Path file;
+    private final int maxEntries;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Detail> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private boolean dirty;
+
+    /**
+     * Нечитаемый файл кэша не считается ошибкой: кэш начинается пустым,
+     * а файл перезаписывается при следующем сохранении.
+     *
+     * @param file       файл кэша или {@code null}, если кэш живёт только в памяти
+     * @param maxEntries предельное число записей
+     */
+    public VacancyDetailCache(Path file, int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Размер кэша должен быть положительным: " + maxEntries);
+        }
+        this.file = file;
+        this.maxEntries = maxEntries;
+        if (file != null && Files.exists(file)) {
+            try {
+                load();
+            } catch (IOException e) {
+                entries.clear();
+                System.err.println("[VacancyDetailCache] Файл " + file + " не прочитан, кэш пуст: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Кэш источника по настройкам {@code parser.details.*} или {@code null},
+     * если дозагрузка описаний выключена.
+     */
+    public static VacancyDetailCache fromConfig(String source) {
+        if (!Config.getBoolean("parser.details.enabled", true)) {
+            return null;
+        }
+        Path file = Paths.get(Config.get("parser.details.dir", ".cache/details"), source + ".json.gz");
+        return new VacancyDetailCache(file, Config.getInt("parser.details.maxEntries", 20000));
+    }
+
+    /**
+     * Описание вакансии или {@code null}, если его нет или вакансия изменилась.
+     */
+    public synchronized String get(String id, String marker) {
+        Detail detail = entries.get(id);
+        return detail != null && Objects.equals(detail.marker(), marker) ? detail.description() : null;
+    }
+
+    public synchronized void put(String id, String marker, String description) {
+        entries.put(id, new Detail(marker, description));
+        dirty = true;
+        evictOverflow();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Сохраняет кэш на диск, если он изменился с прошлого сохранения.
+     */
+    public synchronized void flush() throws IOException {
+        if (!dirty || file == null) {
+            return;
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), "tmp", ".part");
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp))) {
+                objectMapper.writeValue(out, entries);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private void load() throws IOException {
+        Map<String, Detail> stored;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            stored = objectMapper.readValue(in, FILE_TYPE);
+        }
+        stored.forEach((id, detail) -> {
+            if (detail != null && detail.description() != null) {
+                entries.put(id, detail);
+            }
+        });
+        evictOverflow();
+    }
+
+    private void evictOverflow() {
+        Iterator<String> eldest = entries.keySet().iterator();
+        while (entries.size() > maxEntries) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+}
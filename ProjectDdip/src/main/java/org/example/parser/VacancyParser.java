@@ -3,6 +3,7 @@ package org.example.parser;
 import org.example.model.Vacancy;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -18,4 +19,37 @@ public interface VacancyParser {
      * @throws InterruptedException при прерывании запроса
      */
     List<Vacancy> fetchVacancies() throws IOException, InterruptedException;
+
+    /**
+     * Инкрементальная выгрузка: только вакансии, опубликованные или обновлённые
+     * начиная с {@code since}. Такая выгрузка неполная, поэтому по ней нельзя
+     * определять удалённые вакансии. Реализация по умолчанию делает полную выгрузку.
+     */
+    default List<Vacancy> fetchVacancies(LocalDateTime since) throws IOException, InterruptedException {
+        return fetchVacancies();
+    }
+
+    /**
+     * Приёмник порций выгрузки. Может блокироваться, если получатель не успевает.
+     */
+    @FunctionalInterface
+    interface PageSink {
+        void accept(List<Vacancy> page) throws InterruptedException;
+    }
+
+    /**
+     * Выгрузка с передачей вакансий порциями по мере получения — для записи в БД
+     * параллельно с выгрузкой. Реализация по умолчанию передаёт всю выгрузку одной порцией.
+     *
+     * @param since нижняя граница для инкрементальной выгрузки или {@code null} для полной
+     */
+    default void fetchVacancies(LocalDateTime since, PageSink sink) throws IOException, InterruptedException {
+        sink.accept(since == null ? fetchVacancies() : fetchVacancies(since));
+    }
+
+    /**
+     * Значение поля {@code source} у вакансий этого ресурса (например, {@code hh.ru}).
+     * По нему сервис не помечает удалёнными вакансии ресурса, выгрузка которого не завершилась.
+     */
+    String source();
 }
@@ -0,0 +1,28 @@
+package org.example.repository;
+
+import java.util.List;
+
+/**
+ * Результат пакетной записи: число успешно записанных строк и
+ * список строк, которые не удалось записать.
+ */
+public record BatchResult(int succeeded, List<Failure> failures) {
+
+    /**
+     * Ошибка записи одной строки.
+     *
+     * @param index   позиция строки во входной коллекции
+     * @param key     ключ строки для диагностики (URL или id вакансии)
+     * @param message текст ошибки от БД
+     */
+    public record Failure(int index, String key, String message) {
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    public static BatchResult empty() {
+        return new BatchResult(0, List.of());
+    }
+}
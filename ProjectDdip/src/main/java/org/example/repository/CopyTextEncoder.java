@@ -0,0 +1,154 @@
+package org.example.repository;
+
+import org.example.model.ContentHash;
+import org.example.model.Vacancy;
+import org.example.model.VacancyChange;
+
+import java.time.LocalDateTime;
+
+/**
+ * Кодирование строк в текстовый формат PostgreSQL COPY:
+ * поля разделяются табуляцией, строки — переводом строки, NULL записывается как {@code \N}.
+ * Обратный слэш, табуляция и переводы строк внутри значений экранируются,
+ * поэтому HTML из description/requirements передаётся без искажений.
+ */
+final class CopyTextEncoder {
+
+    static final String VACANCY_COLUMNS =
+            "title, company, city, salary_from, salary_to, currency, description, url, " +
+            "published_date, source, source_url, requirements, work_schedule, created_at, is_active, closed_at, " +
+            "content_hash";
+
+    static final String STAGING_COLUMNS =
+            "title, company, city, salary_from, salary_to, currency, description, url, " +
+            "published_date, source, source_url, requirements, work_schedule, created_at, content_hash";
+
+    static final String CHANGE_COLUMNS =
+            "vacancy_id, url, change_type, event_time, title, company, city, " +
+            "salary_from, salary_to, currency, published_date, work_schedule";
+
+    private CopyTextEncoder() {
+    }
+
+    /**
+     * Строка для таблицы vacancies в порядке {@link #VACANCY_COLUMNS}.
+     */
+    static void appendVacancy(StringBuilder sb, Vacancy v) {
+        appendVacancyFields(sb, v);
+        sb.append('\t');
+        appendValue(sb, v.getIsActive() != null ? (v.getIsActive() ? "t" : "f") : "t");
+        sb.append('\t');
+        appendValue(sb, v.getClosedAt());
+        sb.append('\t');
+        appendValue(sb, ContentHash.ofStored(v));
+        sb.append('\n');
+    }
+
+    /**
+     * Строка для временной таблицы синхронизации в порядке {@link #STAGING_COLUMNS}.
+     */
+    static void appendStagingVacancy(StringBuilder sb, Vacancy v) {
+        appendVacancyFields(sb, v);
+        sb.append('\t');
+        appendValue(sb, ContentHash.ofStored(v));
+        sb.append('\n');
+    }
+
+    private static void appendVacancyFields(StringBuilder sb, Vacancy v) {
+        appendValue(sb, v.getTitle());
+        sb.append('\t');
+        appendValue(sb, v.getCompany());
+        sb.append('\t');
+        appendValue(sb, v.getCity());
+        sb.append('\t');
+        appendValue(sb, v.getSalaryFrom());
+        sb.append('\t');
+        appendValue(sb, v.getSalaryTo());
+        sb.append('\t');
+        appendValue(sb, v.getCurrency());
+        sb.append('\t');
+        appendValue(sb, v.getDescription());
+        sb.append('\t');
+        appendValue(sb, v.getUrl());
+        sb.append('\t');
+        appendValue(sb, v.getPublishedDate());
+        sb.append('\t');
+        appendValue(sb, v.getSource());
+        sb.append('\t');
+        appendValue(sb, v.getSourceUrl());
+        sb.append('\t');
+        appendValue(sb, v.getRequirements());
+        sb.append('\t');
+        appendValue(sb, v.getWorkSchedule());
+        sb.append('\t');
+        appendValue(sb, v.getCreatedAt());
+    }
+
+    /**
+     * Строка для таблицы vacancy_changes в порядке {@link #CHANGE_COLUMNS}.
+     */
+    static void appendChange(StringBuilder sb, VacancyChange c) {
+        appendValue(sb, c.getVacancyId());
+        sb.append('\t');
+        appendValue(sb, c.getUrl());
+        sb.append('\t');
+        appendValue(sb, c.getChangeType());
+        sb.append('\t');
+        appendValue(sb, c.getEventTime());
+        sb.append('\t');
+        appendValue(sb, c.getTitle());
+        sb.append('\t');
+        appendValue(sb, c.getCompany());
+        sb.append('\t');
+        appendValue(sb, c.getCity());
+        sb.append('\t');
+        appendValue(sb, c.getSalaryFrom());
+        sb.append('\t');
+        appendValue(sb, c.getSalaryTo());
+        sb.append('\t');
+        appendValue(sb, c.getCurrency());
+        sb.append('\t');
+        appendValue(sb, c.getPublishedDate());
+        sb.append('\t');
+        appendValue(sb, c.getWorkSchedule());
+        sb.append('\n');
+    }
+
+    private static void appendValue(StringBuilder sb, Number value) {
+        if (value == null) {
+            sb.append("\\N");
+        } else {
+            sb.append(value);
+        }
+    }
+
+    private static void appendValue(StringBuilder sb, LocalDateTime value) {
+        if (value == null) {
+            sb.append("\\N");
+        } else {
+            sb.append(value);
+        }
+    }
+
+    /**
+     * Экранирует значение для текстового формата COPY.
+     * Символ NUL PostgreSQL в тексте хранить не умеет, поэтому он отбрасывается.
+     */
+    static void appendValue(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append("\\N");
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> sb.append("\\\\");
+                case '\t' -> sb.append("\\t");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\0' -> { }
+                default -> sb.append(c);
+            }
+        }
+    }
+}
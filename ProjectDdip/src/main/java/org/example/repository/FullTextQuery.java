@@ -0,0 +1,106 @@
+package org.example.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Преобразует пользовательский поисковый запрос в текст для {@code to_tsquery}.
+ * <ul>
+ *   <li>слова объединяются через И: {@code java spring} → {@code 'java' & 'spring'}</li>
+ *   <li>фраза в кавычках ищется подряд: {@code "java developer"} → {@code 'java' <-> 'developer'}</li>
+ *   <li>звёздочка в конце слова — поиск по префиксу: {@code разраб*} → {@code 'разраб':*}</li>
+ *   <li>минус перед словом исключает его: {@code -junior} → {@code !'junior'}</li>
+ * </ul>
+ * Каждое слово берётся в кавычки, поэтому спецсимволы tsquery во вводе не ломают запрос.
+ */
+public final class FullTextQuery {
+
+    private FullTextQuery() {
+    }
+
+    /**
+     * @return текст tsquery или {@code null}, если во вводе нет ни одного слова
+     */
+    public static String toTsQuery(String input) {
+        if (input == null) {
+            return null;
+        }
+        List<String> terms = new ArrayList<>();
+        int i = 0;
+        int n = input.length();
+        while (i < n) {
+            char c = input.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            boolean negate = false;
+            if (c == '-' && i + 1 < n && !Character.isWhitespace(input.charAt(i + 1))) {
+                negate = true;
+                i++;
+                c = input.charAt(i);
+            }
+            String term;
+            if (c == '"') {
+                int close = input.indexOf('"', i + 1);
+                int end = close < 0 ? n : close;
+                term = phrase(input.substring(i + 1, end));
+                i = close < 0 ? n : close + 1;
+            } else {
+                int end = i;
+                while (end < n && !Character.isWhitespace(input.charAt(end)) && input.charAt(end) != '"') {
+                    end++;
+                }
+                term = word(input.substring(i, end));
+                i = end;
+            }
+            if (term != null) {
+                terms.add(negate ? "!(" + term + ")" : term);
+            }
+        }
+        if (terms.isEmpty() || terms.stream().allMatch(t -> t.startsWith("!"))) {
+            return null;
+        }
+        return String.join(" & ", terms);
+    }
+
+    private static String phrase(String text) {
+        List<String> words = new ArrayList<>();
+        for (String token : text.trim().split("\\s+")) {
+            String w = word(token);
+            if (w != null) {
+                words.add(w);
+            }
+        }
+        if (words.isEmpty()) {
+            return null;
+        }
+        return words.size() == 1 ? words.get(0) : "(" + String.join(" <-> ", words) + ")";
+    }
+
+    private static String word(String token) {
+        boolean prefix = token.endsWith("*");
+        String clean = stripPunctuation(prefix ? token.substring(0, token.length() - 1) : token);
+        if (clean.isEmpty()) {
+            return null;
+        }
+        String quoted = "'" + clean.replace("\\", "\\\\").replace("'", "''") + "'";
+        return prefix ? quoted + ":*" : quoted;
+    }
+
+    /**
+     * Убирает знаки препинания по краям слова, сохраняя внутренние (c++, node.js, 1с:предприятие).
+     */
+    private static String stripPunctuation(String token) {
+        int start = 0;
+        int end = token.length();
+        while (start < end && !Character.isLetterOrDigit(token.charAt(start))) {
+            start++;
+        }
+        while (end > start && !Character.isLetterOrDigit(token.charAt(end - 1))
+                && token.charAt(end - 1) != '+' && token.charAt(end - 1) != '#') {
+            end--;
+        }
+        return token.substring(start, end);
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.repository;
+
+import java.util.List;
+
+/**
+ * Страница выдачи с курсорами для перехода на соседние страницы.
+ *
+ * @param items          элементы страницы
+ * @param nextCursor     курсор следующей страницы или {@code null}, если это последняя
+ * @param previousCursor курсор предыдущей страницы или {@code null}, если это первая
+ */
+public record Page<T>(List<T> items, String nextCursor, String previousCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public boolean hasPrevious() {
+        return previousCursor != null;
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Позиция в keyset-выдаче: значения ключа сортировки и id граничной строки.
+ * Для клиента курсор непрозрачен — это строка в base64url.
+ *
+ * @param sort      сортировка, для которой выдан курсор
+ * @param backward  {@code true}, если курсор ведёт на предыдущую страницу
+ * @param keyValues текстовые значения ключа сортировки
+ * @param id        id граничной строки
+ */
+public record PageCursor(VacancySort sort, boolean backward, List<String> keyValues, long id) {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public String encode() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(sort.name()).append('.').append(backward ? 'B' : 'F').append('.').append(id);
+        for (String value : keyValues) {
+            sb.append('.').append(ENCODER.encodeToString(value.getBytes(StandardCharsets.UTF_8)));
+        }
+        return ENCODER.encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбирает курсор и проверяет, что он выдан для указанной сортировки.
+     *
+     * @throws IllegalArgumentException если курсор повреждён или относится к другой сортировке
+     */
+    public static PageCursor decode(String cursor, VacancySort expectedSort) {
+        PageCursor parsed;
+        try {
+            parsed = parse(cursor);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Некорректный курсор страницы", e);
+        }
+        if (parsed.sort() != expectedSort) {
+            throw new IllegalArgumentException("Курсор выдан для сортировки " + parsed.sort());
+        }
+        return parsed;
+    }
+
+    private static PageCursor parse(String cursor) {
+        String raw = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+        String[] parts = raw.split("\\.", -1);
+        VacancySort sort = VacancySort.valueOf(parts[0]);
+        if (parts.length != 3 + sort.keys().size() || !(parts[1].equals("B") || parts[1].equals("F"))) {
+            throw new IllegalArgumentException("Неверная структура курсора");
+        }
+        List<String> values = new ArrayList<>();
+        for (int i = 3; i < parts.length; i++) {
+            values.add(new String(DECODER.decode(parts[i]), StandardCharsets.UTF_8));
+        }
+        return new PageCursor(sort, parts[1].equals("B"), values, Long.parseLong(parts[2]));
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.repository;
+
+/**
+ * Итог множественной синхронизации выгрузки с таблицей vacancies.
+ *
+ * @param staged      сколько уникальных вакансий загружено во временную таблицу
+ * @param added       новые вакансии (ADDED)
+ * @param reactivated вакансии, снова появившиеся в выдаче (UPDATED)
+ * @param removed     вакансии, пропавшие из выдачи (REMOVED)
+ * @param updated     вакансии, у которых изменилось содержимое (UPDATED с diff)
+ */
+public record ReconcileResult(int staged, int added, int reactivated, int removed, int updated) {
+
+    public ReconcileResult(int staged, int added, int reactivated, int removed) {
+        this(staged, added, reactivated, removed, 0);
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Отметка инкрементальной выгрузки источника.
+ *
+ * @param source      источник ({@code hh.ru}, {@code superjob.ru})
+ * @param fetchedAt   время начала последней успешной выгрузки
+ * @param fullCrawlAt время начала последнего успешного полного обхода или {@code null}
+ */
+public record SyncWatermark(String source, LocalDateTime fetchedAt, LocalDateTime fullCrawlAt) {
+}
@@ -0,0 +1,146 @@
+package org.example.repository;
+
+import org.example.db.DatabaseManager;
+import org.example.model.Vacancy;
+import org.example.model.VacancyChange;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.function.BiConsumer;
+
+/**
+ * Массовая загрузка вакансий и журнала изменений через PostgreSQL {@code COPY FROM STDIN}.
+ * Используется для первичной загрузки и полных пересинхронизаций, когда даже
+ * пакетные INSERT слишком медленные. Строки кодируются в текстовый формат COPY
+ * и отправляются на сервер порциями, не накапливая всю выгрузку в памяти.
+ */
+public class VacancyBulkLoader {
+    private static final int FLUSH_THRESHOLD = 64 * 1024;
+
+    private final DatabaseManager dbManager;
+
+    public VacancyBulkLoader() {
+        try {
+            this.dbManager = DatabaseManager.getInstance();
+        } catch (SQLException e) {
+            throw new RuntimeException("Не удалось инициализировать DatabaseManager", e);
+        }
+    }
+
+    public VacancyBulkLoader(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+    }
+
+    /**
+     * Загружает вакансии в таблицу vacancies.
+     *
+     * @return число загруженных строк
+     */
+    public long copyVacancies(Iterable<Vacancy> vacancies) throws SQLException {
+        try (Connection conn = dbManager.getConnection()) {
+            return copy(conn, "vacancies", CopyTextEncoder.VACANCY_COLUMNS, vacancies, CopyTextEncoder::appendVacancy);
+        }
+    }
+
+    /**
+     * Загружает записи журнала в таблицу vacancy_changes.
+     *
+     * @return число загруженных строк
+     */
+    public long copyChanges(Iterable<VacancyChange> changes) throws SQLException {
+        try (Connection conn = dbManager.getConnection()) {
+            return copy(conn, "vacancy_changes", CopyTextEncoder.CHANGE_COLUMNS, changes, CopyTextEncoder::appendChange);
+        }
+    }
+
+    /**
+     * Загружает новые вакансии и в той же транзакции пишет для них события ADDED
+     * с присвоенными id одним INSERT ... SELECT.
+     * Вакансии с уже существующим URL приведут к ошибке всей загрузки,
+     * поэтому вызывающий код должен передавать только новые URL.
+     *
+     * @return число загруженных вакансий
+     */
+    public long copyNewVacancies(Collection<Vacancy> vacancies, LocalDateTime now) throws SQLException {
+        if (vacancies.isEmpty()) {
+            return 0;
+        }
+        try (Connection conn = dbManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                long copied = copy(conn, "vacancies", CopyTextEncoder.VACANCY_COLUMNS, vacancies,
+                        CopyTextEncoder::appendVacancy);
+
+                String sql = """
+                    INSERT INTO vacancy_changes (
+                      vacancy_id, url, change_type, event_time, title, company, city,
+                      salary_from, salary_to, currency, published_date, work_schedule
+                    )
+                    SELECT id, url, 'ADDED', ?, title, company, city,
+                           salary_from, salary_to, currency, published_date, work_schedule
+                    FROM vacancies
+                    WHERE url = ANY(?)
+                    """;
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setObject(1, now);
+                    Array urls = conn.createArrayOf("VARCHAR", vacancies.stream().map(Vacancy::getUrl).toArray());
+                    ps.setArray(2, urls);
+                    ps.executeUpdate();
+                }
+                conn.commit();
+                return copied;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Загружает вакансии во временную таблицу vacancy_staging на переданном соединении.
+     */
+    static long copyStaging(Connection conn, Iterable<Vacancy> vacancies) throws SQLException {
+        return copy(conn, "vacancy_staging", CopyTextEncoder.STAGING_COLUMNS, vacancies,
+                CopyTextEncoder::appendStagingVacancy);
+    }
+
+    private static <T> long copy(Connection conn,
+                                 String table,
+                                 String columns,
+                                 Iterable<T> rows,
+                                 BiConsumer<StringBuilder, T> encoder) throws SQLException {
+        String sql = "COPY " + table + " (" + columns + ") FROM STDIN";
+        CopyIn copyIn = conn.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+        try {
+            StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD + 4096);
+            for (T row : rows) {
+                encoder.accept(buffer, row);
+                if (buffer.length() >= FLUSH_THRESHOLD) {
+                    flush(copyIn, buffer);
+                }
+            }
+            flush(copyIn, buffer);
+            return copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static void flush(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+}
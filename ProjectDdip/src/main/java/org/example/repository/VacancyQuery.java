@@ -0,0 +1,347 @@
+package org.example.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Составной запрос к вакансиям: фильтры, сортировка, лимит и набор колонок.
+ * <p>
+ * Компилируется в один параметризованный SQL-запрос, поэтому комбинация
+ * «город + зарплата + ключевые слова + сортировка» выполняется за одно обращение к БД.
+ * Текст SQL зависит только от формы запроса (какие фильтры заданы, сортировка,
+ * проекция), а не от значений, поэтому строится один раз на форму и берётся из кэша;
+ * значения передаются параметрами. По умолчанию ищутся только активные вакансии —
+ * под такие условия в схеме есть частичные индексы {@code WHERE is_active}.
+ */
+public final class VacancyQuery {
+
+    /**
+     * Набор читаемых колонок.
+     */
+    public enum Projection {
+        /** Все поля вакансии. */
+        FULL("id, title, company, city, salary_from, salary_to, currency, description, url, " +
+                "published_date, source, source_url, requirements, work_schedule, created_at, is_active"),
+        /** Поля для табличного вывода, без длинных текстов description и requirements. */
+        SUMMARY("id, title, company, city, salary_from, salary_to, currency, url, " +
+                "published_date, source, source_url, work_schedule, created_at, is_active");
+
+        private final String columns;
+
+        Projection(String columns) {
+            this.columns = columns;
+        }
+
+        String columns() {
+            return columns;
+        }
+
+        public boolean includesText() {
+            return this == FULL;
+        }
+    }
+
+    private static final ConcurrentMap<String, String> SQL_CACHE = new ConcurrentHashMap<>();
+
+    private final String city;
+    private final String company;
+    private final Integer minSalary;
+    private final Integer maxSalary;
+    private final String keyword;
+    private final String tsQuery;
+    private final VacancySort sort;
+    private final int limit;
+    private final long offset;
+    private final Projection projection;
+    private final boolean includeInactive;
+
+    private VacancyQuery(Builder b) {
+        this.city = b.city;
+        this.company = b.company;
+        this.minSalary = b.minSalary;
+        this.maxSalary = b.maxSalary;
+        this.keyword = b.keyword;
+        this.tsQuery = b.keyword != null ? FullTextQuery.toTsQuery(b.keyword) : null;
+        this.sort = b.sort;
+        this.limit = b.limit;
+        this.offset = b.offset;
+        this.projection = b.projection;
+        this.includeInactive = b.includeInactive;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public String city() {
+        return city;
+    }
+
+    public String company() {
+        return company;
+    }
+
+    public Integer minSalary() {
+        return minSalary;
+    }
+
+    public Integer maxSalary() {
+        return maxSalary;
+    }
+
+    public String keyword() {
+        return keyword;
+    }
+
+    /**
+     * Явно заданная сортировка или {@code null}: тогда с ключевыми словами
+     * результаты упорядочены по релевантности, без них — по дате публикации.
+     */
+    public VacancySort sort() {
+        return sort;
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public long offset() {
+        return offset;
+    }
+
+    public Projection projection() {
+        return projection;
+    }
+
+    public boolean includeInactive() {
+        return includeInactive;
+    }
+
+    /**
+     * {@code true}, если ключевые слова заданы, но в них нет ни одного искомого слова —
+     * такой запрос заведомо ничего не находит, и обращаться к БД не нужно.
+     */
+    public boolean matchesNothing() {
+        return keyword != null && tsQuery == null;
+    }
+
+    /**
+     * Действующая сортировка: явно выбранная, а без неё — по релевантности, если заданы
+     * ключевые слова, иначе по дате публикации. Релевантность без ключевых слов не определена
+     * и тоже заменяется датой публикации.
+     */
+    public VacancySort pageSort() {
+        if (sort != null && (sort != VacancySort.RELEVANCE || tsQuery != null)) {
+            return sort;
+        }
+        return tsQuery != null ? VacancySort.RELEVANCE : VacancySort.PUBLISHED_DESC;
+    }
+
+    /**
+     * Форма запроса — всё, от чего зависит текст SQL.
+     */
+    String shape() {
+        return (city != null ? "c" : "") + (company != null ? "o" : "") +
+                (minSalary != null ? "f" : "") + (maxSalary != null ? "t" : "") +
+                (tsQuery != null ? "k" : "") + (includeInactive ? "i" : "") +
+                "|" + sort + "|" + projection + "|" + (limit > 0 ? "L" : "") + (offset > 0 ? "O" : "");
+    }
+
+    /**
+     * SQL для выборки списком. Параметры привязываются {@link #bindList}.
+     */
+    String listSql() {
+        return SQL_CACHE.computeIfAbsent("list|" + shape(), k -> {
+            StringBuilder sql = select(false);
+            sql.append(" ORDER BY ").append(pageSort().orderBy(false));
+            if (limit > 0) {
+                sql.append(" LIMIT ?");
+            }
+            if (offset > 0) {
+                sql.append(" OFFSET ?");
+            }
+            return sql.toString();
+        });
+    }
+
+    /**
+     * SQL для keyset-страницы по {@link #pageSort()}: с условием перехода от курсора,
+     * если {@code position} задан, и LIMIT размера страницы. Параметры — {@link #bindPage}.
+     */
+    String pageSql(PageCursor position) {
+        String direction = position == null ? "first" : position.backward() ? "back" : "fwd";
+        return SQL_CACHE.computeIfAbsent("page|" + direction + "|" + shape(), k -> {
+            VacancySort pageSort = pageSort();
+            StringBuilder sql = select(true);
+            if (position != null) {
+                sql.append(" AND ").append(pageSort.seekPredicate(position.backward()));
+            }
+            boolean backward = position != null && position.backward();
+            return sql.append(" ORDER BY ").append(pageSort.orderBy(backward)).append(" LIMIT ?").toString();
+        });
+    }
+
+    private StringBuilder select(boolean withSortKeys) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(projection.columns());
+        if (withSortKeys) {
+            sql.append(", ").append(pageSort().selectKeys());
+        }
+        sql.append(" FROM vacancies");
+        if (tsQuery != null) {
+            sql.append(", (SELECT to_tsquery('russian', ?) || to_tsquery('english', ?) AS q) query");
+        }
+        sql.append(" WHERE ").append(includeInactive ? "true" : "is_active = true");
+        if (city != null) {
+            sql.append(" AND city = ?");
+        }
+        if (company != null) {
+            sql.append(" AND company = ?");
+        }
+        if (minSalary != null) {
+            sql.append(" AND salary_from >= ?");
+        }
+        if (maxSalary != null) {
+            sql.append(" AND salary_to <= ?");
+        }
+        if (tsQuery != null) {
+            sql.append(" AND search_vector @@ query.q");
+        }
+        return sql;
+    }
+
+    private int bindFilters(PreparedStatement ps) throws SQLException {
+        int idx = 1;
+        if (tsQuery != null) {
+            ps.setString(idx++, tsQuery);
+            ps.setString(idx++, tsQuery);
+        }
+        if (city != null) {
+            ps.setString(idx++, city);
+        }
+        if (company != null) {
+            ps.setString(idx++, company);
+        }
+        if (minSalary != null) {
+            ps.setInt(idx++, minSalary);
+        }
+        if (maxSalary != null) {
+            ps.setInt(idx++, maxSalary);
+        }
+        return idx;
+    }
+
+    void bindList(PreparedStatement ps) throws SQLException {
+        int idx = bindFilters(ps);
+        if (limit > 0) {
+            ps.setInt(idx++, limit);
+        }
+        if (offset > 0) {
+            ps.setLong(idx, offset);
+        }
+    }
+
+    void bindPage(PreparedStatement ps, PageCursor position, int pageSize) throws SQLException {
+        int idx = bindFilters(ps);
+        if (position != null) {
+            for (String value : position.keyValues()) {
+                ps.setString(idx++, value);
+            }
+            ps.setLong(idx++, position.id());
+        }
+        ps.setInt(idx, pageSize + 1);
+    }
+
+    /**
+     * Число закэшированных форм SQL.
+     */
+    static int cachedShapes() {
+        return SQL_CACHE.size();
+    }
+
+    public static final class Builder {
+        private String city;
+        private String company;
+        private Integer minSalary;
+        private Integer maxSalary;
+        private String keyword;
+        private VacancySort sort;
+        private int limit;
+        private long offset;
+        private Projection projection = Projection.FULL;
+        private boolean includeInactive;
+
+        private Builder() {
+        }
+
+        public Builder city(String city) {
+            this.city = blankToNull(city);
+            return this;
+        }
+
+        public Builder company(String company) {
+            this.company = blankToNull(company);
+            return this;
+        }
+
+        /** Минимальная зарплата: salary_from ≥ minSalary. */
+        public Builder minSalary(Integer minSalary) {
+            this.minSalary = minSalary;
+            return this;
+        }
+
+        /** Максимальная зарплата: salary_to ≤ maxSalary. */
+        public Builder maxSalary(Integer maxSalary) {
+            this.maxSalary = maxSalary;
+            return this;
+        }
+
+        /** Полнотекстовый запрос, синтаксис описан в {@link FullTextQuery}. */
+        public Builder keyword(String keyword) {
+            this.keyword = blankToNull(keyword);
+            return this;
+        }
+
+        public Builder sort(VacancySort sort) {
+            this.sort = sort;
+            return this;
+        }
+
+        /** Максимальное число строк; 0 — без ограничения. */
+        public Builder limit(int limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("Лимит не может быть отрицательным: " + limit);
+            }
+            this.limit = limit;
+            return this;
+        }
+
+        public Builder offset(long offset) {
+            if (offset < 0) {
+                throw new IllegalArgumentException("Смещение не может быть отрицательным: " + offset);
+            }
+            this.offset = offset;
+            return this;
+        }
+
+        public Builder projection(Projection projection) {
+            this.projection = projection;
+            return this;
+        }
+
+        /** Искать также среди закрытых вакансий. */
+        public Builder includeInactive(boolean includeInactive) {
+            this.includeInactive = includeInactive;
+            return this;
+        }
+
+        public VacancyQuery build() {
+            return new VacancyQuery(this);
+        }
+
+        private static String blankToNull(String value) {
+            return value == null || value.isBlank() ? null : value.trim();
+        }
+    }
+}
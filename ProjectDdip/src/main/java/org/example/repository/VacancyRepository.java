@@ -1,21 +1,88 @@
 package org.example.repository;
 
+import org.example.config.Config;
 import org.example.db.DatabaseManager;
+import org.example.model.ContentHash;
 import org.example.model.Vacancy;
+import org.example.model.VacancyChange;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ObjLongConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Репозиторий для работы с вакансиями в базе данных.
  * Обеспечивает CRUD операции, поиск, фильтрацию и сортировку вакансий.
  */
 public class VacancyRepository {
+    private static final String INSERT_VACANCY_SQL = """
+            INSERT INTO vacancies (
+              title,
+              company,
+              city,
+              salary_from,
+              salary_to,
+              currency,
+              description,
+              url,
+              published_date,
+              source,
+              source_url,
+              requirements,
+              work_schedule,
+              created_at,
+              is_active,closed_at,
+              content_hash
+            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?,?, ?)
+            """;
+
+    private static final String INSERT_CHANGE_SQL = """
+        INSERT INTO vacancy_changes (
+          vacancy_id,
+          url,
+          change_type,
+          event_time,
+          title,
+          company,
+          city,
+          salary_from,
+          salary_to,
+          currency,
+          published_date,
+          work_schedule
+        ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    // Горячие запросы синхронизации держатся константами: по одинаковому тексту SQL
+    // кэш запросов драйвера на соединении находит уже подготовленный на сервере запрос.
+    private static final String EXISTS_BY_URL_SQL = "SELECT EXISTS (SELECT 1 FROM vacancies WHERE url = ?)";
+    private static final String FIND_ID_BY_URL_SQL = "SELECT id FROM vacancies WHERE url = ?";
+
     private final DatabaseManager dbManager;
+    private final int batchSize;
+    private final int copyThreshold;
+    private final int fetchSize = Config.getInt("db.fetchSize", 500);
 
     public VacancyRepository() {
         try {
@@ -23,40 +90,93 @@ public class VacancyRepository {
         } catch (SQLException e) {
             throw new RuntimeException("Не удалось инициализировать DatabaseManager", e);
         }
+        this.batchSize = Config.getInt("db.batch.size", 500);
+        this.copyThreshold = Config.getInt("sync.copy.threshold", 5000);
     }
 
     public VacancyRepository(DatabaseManager dbManager) {
+        this(dbManager, Config.getInt("db.batch.size", 500));
+    }
+
+    public VacancyRepository(DatabaseManager dbManager, int batchSize) {
+        this(dbManager, batchSize, Config.getInt("sync.copy.threshold", 5000));
+    }
+
+    /**
+     * @param copyThreshold размер выгрузки, начиная с которого она пишется через COPY, а не батчем
+     */
+    public VacancyRepository(DatabaseManager dbManager, int batchSize, int copyThreshold) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Размер батча должен быть положительным: " + batchSize);
+        }
         this.dbManager = dbManager;
+        this.batchSize = batchSize;
+        this.copyThreshold = copyThreshold;
+    }
+
+    /**
+     * Размер выгрузки, начиная с которого её выгоднее писать через COPY ({@code sync.copy.threshold}).
+     */
+    public int copyThreshold() {
+        return copyThreshold;
     }
 
     // Проверяет, существует ли вакансия с данным URL.
      
     public boolean existsByUrl(String url) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM vacancies WHERE url = ?";
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(EXISTS_BY_URL_SQL)) {
 
             ps.setString(1, url);
             try (ResultSet rs = ps.executeQuery()) {
                 rs.next();
-                return rs.getInt(1) > 0;
+                return rs.getBoolean(1);
             }
         }
     }
 
-    public List<Vacancy> findByCity(String city) throws SQLException {
-        return findByField("city", city);
+    /**
+     * Полнотекстовый поиск по title, requirements и description, все результаты по убыванию релевантности.
+     * Синтаксис запроса описан в {@link FullTextQuery}.
+     */
+    public List<Vacancy> searchByKeyword(String keyword) throws SQLException {
+        return searchByKeyword(keyword, 0, Integer.MAX_VALUE);
     }
 
-
-    public List<Vacancy> findByCompany(String company) throws SQLException {
-        return findByField("company", company);
+    /**
+     * Полнотекстовый поиск с постраничной выдачей.
+     * Использует GIN-индекс по колонке search_vector (русская и английская морфология,
+     * вес title &gt; requirements &gt; description), результаты упорядочены по ts_rank_cd.
+     *
+     * @param page     номер страницы, начиная с 0
+     * @param pageSize размер страницы
+     */
+    public List<Vacancy> searchByKeyword(String keyword, int page, int pageSize) throws SQLException {
+        return find(VacancyQuery.builder()
+                .keyword(keyword)
+                .limit(pageSize == Integer.MAX_VALUE ? 0 : pageSize)
+                .offset((long) page * pageSize)
+                .build());
     }
 
-    //Поиск вакансий по ключевому слову в title или description.
-     
-    public List<Vacancy> searchByKeyword(String keyword) throws SQLException {
-        return search("(title LIKE ? OR description LIKE ?)", "%" + keyword + "%", "%" + keyword + "%");
+    /**
+     * Выполняет составной запрос одним обращением к БД.
+     */
+    public List<Vacancy> find(VacancyQuery query) throws SQLException {
+        if (query.matchesNothing()) {
+            return new ArrayList<>();
+        }
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query.listSql())) {
+            query.bindList(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<Vacancy> list = new ArrayList<>();
+                while (rs.next()) {
+                    list.add(mapRow(rs, query.projection().includesText()));
+                }
+                return list;
+            }
+        }
     }
 
     /**
@@ -64,178 +184,100 @@ public class VacancyRepository {
      * Обрабатывает все поля, включая nullable значения.
      */
     public void save(Vacancy v) throws SQLException {
-        String sql = """
-            INSERT INTO vacancies (
-              title,
-              company,
-              city,
-              salary_from,
-              salary_to,
-              currency,
-              description,
-              url,
-              published_date,
-              source,
-              source_url,
-              requirements,
-              work_schedule,
-              created_at,
-              is_active,closed_at
-            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?,?)
-            """;
-
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setString(1, v.getTitle());
-            ps.setString(2, v.getCompany());
-            ps.setString(3, v.getCity());
-
-            if (v.getSalaryFrom() != null) {
-                ps.setInt(4, v.getSalaryFrom());
-            } else {
-                ps.setNull(4, Types.INTEGER);
-            }
-            if (v.getSalaryTo() != null) {
-                ps.setInt(5, v.getSalaryTo());
-            } else {
-                ps.setNull(5, Types.INTEGER);
-            }
-            if (v.getCurrency() != null) {
-                ps.setString(6, v.getCurrency());
-            } else {
-                ps.setNull(6, Types.VARCHAR);
-            }
-
-            if (v.getDescription() != null) {
-                ps.setString(7, v.getDescription());
-            } else {
-                ps.setNull(7, Types.VARCHAR);
-            }
-
-            ps.setString(8, v.getUrl());
-
-            if (v.getPublishedDate() != null) {
-                ps.setObject(9, v.getPublishedDate());
-            } else {
-                ps.setNull(9, Types.TIMESTAMP);
-            }
-
-            ps.setString(10, v.getSource());
-
-            if (v.getSourceUrl() != null) {
-                ps.setString(11, v.getSourceUrl());
-            } else {
-                ps.setNull(11, Types.VARCHAR);
-            }
-
-            if (v.getRequirements() != null) {
-                ps.setString(12, v.getRequirements());
-            } else {
-                ps.setNull(12, Types.VARCHAR);
-            }
-
-            if (v.getWorkSchedule() != null) {
-                ps.setString(13, v.getWorkSchedule());
-            } else {
-                ps.setNull(13, Types.VARCHAR);
-            }
-
-            if (v.getCreatedAt() != null) {
-                ps.setObject(14, v.getCreatedAt());
-            } else {
-                ps.setNull(14, Types.TIMESTAMP);
-            }
-            ps.setBoolean(15, v.getIsActive());
-            if(v.getClosedAt() != null) {
-                ps.setObject(16, v.getClosedAt());
-            }
-            else{
-                ps.setNull(16, Types.TIMESTAMP);
-            }
+             PreparedStatement ps = conn.prepareStatement(INSERT_VACANCY_SQL)) {
 
+            bindVacancy(ps, v);
             ps.executeUpdate();
         }
     }
 
-    
-    public List<Vacancy> findAll() throws SQLException {
-        String sql = "SELECT * FROM vacancies WHERE is_active = true";
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            return mapResultSet(rs);
+    private void bindVacancy(PreparedStatement ps, Vacancy v) throws SQLException {
+        bindVacancyColumns(ps, v);
+        ps.setBoolean(15, v.getIsActive());
+        if(v.getClosedAt() != null) {
+            ps.setObject(16, v.getClosedAt());
         }
+        else{
+            ps.setNull(16, Types.TIMESTAMP);
+        }
+        ps.setString(17, ContentHash.ofStored(v));
     }
 
-    private List<Vacancy> findByField(String fieldName, String value) throws SQLException {
-        String sql = "SELECT * FROM vacancies WHERE " + fieldName + " = ?";
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+    /**
+     * Заполняет параметры 1..14 в порядке колонок
+     * title, company, city, salary_from, salary_to, currency, description, url,
+     * published_date, source, source_url, requirements, work_schedule, created_at.
+     */
+    private void bindVacancyColumns(PreparedStatement ps, Vacancy v) throws SQLException {
+        ps.setString(1, v.getTitle());
+        ps.setString(2, v.getCompany());
+        ps.setString(3, v.getCity());
+
+        if (v.getSalaryFrom() != null) {
+            ps.setInt(4, v.getSalaryFrom());
+        } else {
+            ps.setNull(4, Types.INTEGER);
+        }
+        if (v.getSalaryTo() != null) {
+            ps.setInt(5, v.getSalaryTo());
+        } else {
+            ps.setNull(5, Types.INTEGER);
+        }
+        if (v.getCurrency() != null) {
+            ps.setString(6, v.getCurrency());
+        } else {
+            ps.setNull(6, Types.VARCHAR);
+        }
 
-            ps.setString(1, value);
-            try (ResultSet rs = ps.executeQuery()) {
-                return mapResultSet(rs);
-            }
+        if (v.getDescription() != null) {
+            ps.setString(7, v.getDescription());
+        } else {
+            ps.setNull(7, Types.VARCHAR);
         }
-    }
 
-    //Находит вакансии, у которых salary_from ≥ заданного minSalary.
-     
-    public List<Vacancy> findBySalaryFromGreaterEqual(int minSalary) throws SQLException {
-        String sql = "SELECT * FROM vacancies WHERE salary_from >= ?";
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        ps.setString(8, v.getUrl());
 
-            ps.setInt(1, minSalary);
-            try (ResultSet rs = ps.executeQuery()) {
-                return mapResultSet(rs);
-            }
+        if (v.getPublishedDate() != null) {
+            ps.setObject(9, v.getPublishedDate());
+        } else {
+            ps.setNull(9, Types.TIMESTAMP);
         }
-    }
 
-    
-      //Находит вакансии, у которых salary_to ≤ заданного maxSalary.
-     
-    public List<Vacancy> findBySalaryToLessEqual(int maxSalary) throws SQLException {
-        String sql = "SELECT * FROM vacancies WHERE salary_to <= ?";
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        ps.setString(10, v.getSource());
 
-            ps.setInt(1, maxSalary);
-            try (ResultSet rs = ps.executeQuery()) {
-                return mapResultSet(rs);
-            }
+        if (v.getSourceUrl() != null) {
+            ps.setString(11, v.getSourceUrl());
+        } else {
+            ps.setNull(11, Types.VARCHAR);
         }
-    }
 
-    
-      //Находит вакансии, у которых salary_from ≥ minSalary и salary_to ≤ maxSalary.
-     
-    public List<Vacancy> findBySalaryBetween(int minSalary, int maxSalary) throws SQLException {
-        String sql = "SELECT * FROM vacancies WHERE salary_from >= ? AND salary_to <= ?";
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        if (v.getRequirements() != null) {
+            ps.setString(12, v.getRequirements());
+        } else {
+            ps.setNull(12, Types.VARCHAR);
+        }
 
-            ps.setInt(1, minSalary);
-            ps.setInt(2, maxSalary);
-            try (ResultSet rs = ps.executeQuery()) {
-                return mapResultSet(rs);
-            }
+        if (v.getWorkSchedule() != null) {
+            ps.setString(13, v.getWorkSchedule());
+        } else {
+            ps.setNull(13, Types.VARCHAR);
+        }
+
+        if (v.getCreatedAt() != null) {
+            ps.setObject(14, v.getCreatedAt());
+        } else {
+            ps.setNull(14, Types.TIMESTAMP);
         }
     }
 
-    private List<Vacancy> search(String condition, String... params) throws SQLException {
-        String sql = "SELECT * FROM vacancies WHERE " + condition;
+    
+    public List<Vacancy> findAll() throws SQLException {
+        String sql = "SELECT * FROM vacancies WHERE is_active = true";
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            for (int i = 0; i < params.length; i++) {
-                ps.setString(i + 1, params[i]);
-            }
-            try (ResultSet rs = ps.executeQuery()) {
-                return mapResultSet(rs);
-            }
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            return mapResultSet(rs);
         }
     }
 
@@ -246,67 +288,165 @@ public class VacancyRepository {
     private List<Vacancy> mapResultSet(ResultSet rs) throws SQLException {
         List<Vacancy> list = new ArrayList<>();
         while (rs.next()) {
-            Vacancy v = new Vacancy();
-            v.setId(rs.getLong("id"));
-            v.setTitle(rs.getString("title"));
-            v.setCompany(rs.getString("company"));
-            v.setCity(rs.getString("city"));
+            list.add(mapRow(rs));
+        }
+        return list;
+    }
 
-            // salaryFrom
-            int sf = rs.getInt("salary_from");
-            if (!rs.wasNull()) {
-                v.setSalaryFrom(sf);
-            }
+    /**
+     * Преобразует текущую строку ResultSet в Vacancy.
+     */
+    private Vacancy mapRow(ResultSet rs) throws SQLException {
+        return mapRow(rs, true);
+    }
 
-            // salaryTo
-            int st = rs.getInt("salary_to");
-            if (!rs.wasNull()) {
-                v.setSalaryTo(st);
-            }
+    /**
+     * Преобразует текущую строку ResultSet в Vacancy; при {@code withText == false}
+     * колонки description и requirements не читаются (проекция {@link VacancyQuery.Projection#SUMMARY}).
+     */
+    private Vacancy mapRow(ResultSet rs, boolean withText) throws SQLException {
+        Vacancy v = new Vacancy();
+        v.setId(rs.getLong("id"));
+        v.setTitle(rs.getString("title"));
+        v.setCompany(rs.getString("company"));
+        v.setCity(rs.getString("city"));
+
+        // salaryFrom
+        int sf = rs.getInt("salary_from");
+        if (!rs.wasNull()) {
+            v.setSalaryFrom(sf);
+        }
 
-            // currency
-            String curr = rs.getString("currency");
-            if (curr != null) {
-                v.setCurrency(curr);
-            }
+        // salaryTo
+        int st = rs.getInt("salary_to");
+        if (!rs.wasNull()) {
+            v.setSalaryTo(st);
+        }
+
+        // currency
+        String curr = rs.getString("currency");
+        if (curr != null) {
+            v.setCurrency(curr);
+        }
 
-            // description
+        // description
+        if (withText) {
             v.setDescription(rs.getString("description"));
+        }
 
-            // url
-            v.setUrl(rs.getString("url"));
+        // url
+        v.setUrl(rs.getString("url"));
 
-            // publishedDate
-            Timestamp pubTs = rs.getTimestamp("published_date");
-            if (pubTs != null) {
-                v.setPublishedDate(pubTs.toLocalDateTime());
-            }
+        // publishedDate
+        Timestamp pubTs = rs.getTimestamp("published_date");
+        if (pubTs != null) {
+            v.setPublishedDate(pubTs.toLocalDateTime());
+        }
 
-            // source
-            v.setSource(rs.getString("source"));
+        // source
+        v.setSource(rs.getString("source"));
 
-            // sourceUrl
-            v.setSourceUrl(rs.getString("source_url"));
+        // sourceUrl
+        v.setSourceUrl(rs.getString("source_url"));
 
-            // requirements
+        // requirements
+        if (withText) {
             v.setRequirements(rs.getString("requirements"));
+        }
+
+        // workSchedule
+        v.setWorkSchedule(rs.getString("work_schedule"));
 
-            // workSchedule
-            v.setWorkSchedule(rs.getString("work_schedule"));
 
+        // createdAt
+        Timestamp crtTs = rs.getTimestamp("created_at");
+        if (crtTs != null) {
+            v.setCreatedAt(crtTs.toLocalDateTime());
+        }
+        v.setIsActive(rs.getBoolean("is_active"));
+        return v;
+    }
+
+    /**
+     * Потоковое чтение всех активных вакансий через серверный курсор:
+     * autocommit выключается, и драйвер подгружает строки порциями по fetchSize,
+     * поэтому обработка всей таблицы не требует памяти под весь результат.
+     * Поток держит соединение из пула до закрытия — используйте try-with-resources.
+     */
+    public Stream<Vacancy> streamAllActive() throws SQLException {
+        return stream("SELECT * FROM vacancies WHERE is_active = true ORDER BY id");
+    }
 
-            // createdAt
-            Timestamp crtTs = rs.getTimestamp("created_at");
-            if (crtTs != null) {
-                v.setCreatedAt(crtTs.toLocalDateTime());
+    /**
+     * Передаёт каждую активную вакансию в callback, не накапливая результат в памяти.
+     *
+     * @return число обработанных вакансий
+     */
+    public long forEachActive(Consumer<Vacancy> callback) throws SQLException {
+        long count = 0;
+        try (Stream<Vacancy> vacancies = streamAllActive()) {
+            Iterator<Vacancy> it = vacancies.iterator();
+            while (it.hasNext()) {
+                callback.accept(it.next());
+                count++;
             }
-            v.setIsActive(rs.getBoolean("is_active"));
+        }
+        return count;
+    }
 
+    public long countActive() throws SQLException {
+        String sql = "SELECT COUNT(*) FROM vacancies WHERE is_active = true";
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
 
-            list.add(v);
+    private Stream<Vacancy> stream(String sql) throws SQLException {
+        Connection conn = dbManager.getConnection();
+        PreparedStatement ps = null;
+        ResultSet rs;
+        try {
+            conn.setAutoCommit(false);
+            ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            rs = ps.executeQuery();
+        } catch (SQLException e) {
+            if (ps != null) {
+                ps.close();
+            }
+            conn.close();
+            throw e;
         }
-        return list;
+
+        PreparedStatement statement = ps;
+        Spliterator<Vacancy> rows = new Spliterators.AbstractSpliterator<>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Vacancy> action) {
+                try {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    action.accept(mapRow(rs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException("Ошибка потокового чтения вакансий", e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> {
+            // соединение возвращается в пул, пул откатывает транзакцию курсора
+            try (conn; statement; rs) {
+                // ресурсы закрываются в обратном порядке
+            } catch (SQLException e) {
+                throw new RuntimeException("Ошибка закрытия курсора", e);
+            }
+        });
     }
+
     public List<String> findAllActiveUrls() throws SQLException {
         String sql = "SELECT url FROM vacancies WHERE is_active = true";
         List<String> urls = new ArrayList<>();
@@ -319,10 +459,28 @@ public class VacancyRepository {
         }
         return urls;
     }
-    public Long findIdByUrl(String url) throws SQLException {
-        String sql = "SELECT id FROM vacancies WHERE url = ?";
+
+    /**
+     * URL активных вакансий с их хэшами содержимого (у строк, сохранённых до появления хэша, — {@code null}).
+     */
+    public Map<String, String> findActiveContentHashes() throws SQLException {
+        String sql = "SELECT url, content_hash FROM vacancies WHERE is_active = true";
+        Map<String, String> hashes = new HashMap<>();
         try (Connection conn = dbManager.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setFetchSize(fetchSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    hashes.put(rs.getString("url"), rs.getString("content_hash"));
+                }
+            }
+        }
+        return hashes;
+    }
+
+    public Long findIdByUrl(String url) throws SQLException {
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(FIND_ID_BY_URL_SQL)) {
             ps.setString(1, url);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
@@ -394,76 +552,643 @@ public class VacancyRepository {
             LocalDateTime publishedDate,
             String workSchedule
     ) throws SQLException {
-        String sql = """
-        INSERT INTO vacancy_changes (
-          vacancy_id,
-          url,
-          change_type,
-          event_time,
-          title,
-          company,
-          city,
-          salary_from,
-          salary_to,
-          currency,
-          published_date,
-          work_schedule
-        ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-        """;
+        VacancyChange change = new VacancyChange(
+                vacancyId, url, changeType, eventTime, title, company, city,
+                salaryFrom, salaryTo, currency, publishedDate, workSchedule);
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            if (vacancyId != null) {
-                ps.setLong(1, vacancyId);
-            } else {
-                ps.setNull(1, Types.BIGINT);
-            }
-            ps.setString(2, url);
-            ps.setString(3, changeType);
-            ps.setObject(4, eventTime);
-            ps.setString(5, title);
-            ps.setString(6, company);
-            ps.setString(7, city);
-
-            if (salaryFrom != null) {
-                ps.setInt(8, salaryFrom);
-            } else {
-                ps.setNull(8, Types.INTEGER);
-            }
-            if (salaryTo != null) {
-                ps.setInt(9, salaryTo);
-            } else {
-                ps.setNull(9, Types.INTEGER);
-            }
-            if (currency != null) {
-                ps.setString(10, currency);
-            } else {
-                ps.setNull(10, Types.VARCHAR);
-            }
-            if (publishedDate != null) {
-                ps.setObject(11, publishedDate);
-            } else {
-                ps.setNull(11, Types.TIMESTAMP);
-            }
-            // work_schedule
-            if (workSchedule != null) {
-                ps.setString(12, workSchedule);
-            } else {
-                ps.setNull(12, Types.VARCHAR);
-            }
-
+             PreparedStatement ps = conn.prepareStatement(INSERT_CHANGE_SQL)) {
+            bindChange(ps, change);
             ps.executeUpdate();
         }
     }
-    public void reactivate(Long id, LocalDateTime reopenedAt) throws SQLException {
-        String sql = "UPDATE vacancies SET is_active = true, closed_at = NULL WHERE id = ?";
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setLong(1, id);
-            ps.executeUpdate();
+
+    private void bindChange(PreparedStatement ps, VacancyChange c) throws SQLException {
+        if (c.getVacancyId() != null) {
+            ps.setLong(1, c.getVacancyId());
+        } else {
+            ps.setNull(1, Types.BIGINT);
         }
+        ps.setString(2, c.getUrl());
+        ps.setString(3, c.getChangeType());
+        ps.setObject(4, c.getEventTime());
+        ps.setString(5, c.getTitle());
+        ps.setString(6, c.getCompany());
+        ps.setString(7, c.getCity());
+
+        if (c.getSalaryFrom() != null) {
+            ps.setInt(8, c.getSalaryFrom());
+        } else {
+            ps.setNull(8, Types.INTEGER);
+        }
+        if (c.getSalaryTo() != null) {
+            ps.setInt(9, c.getSalaryTo());
+        } else {
+            ps.setNull(9, Types.INTEGER);
+        }
+        if (c.getCurrency() != null) {
+            ps.setString(10, c.getCurrency());
+        } else {
+            ps.setNull(10, Types.VARCHAR);
+        }
+        if (c.getPublishedDate() != null) {
+            ps.setObject(11, c.getPublishedDate());
+        } else {
+            ps.setNull(11, Types.TIMESTAMP);
+        }
+        // work_schedule
+        if (c.getWorkSchedule() != null) {
+            ps.setString(12, c.getWorkSchedule());
+        } else {
+            ps.setNull(12, Types.VARCHAR);
+        }
+    }
+
+    /**
+     * Пакетная вставка вакансий. Строки отправляются JDBC-батчами по batchSize,
+     * при включённом reWriteBatchedInserts драйвер склеивает их в многострочные INSERT.
+     * Ошибка отдельной строки не прерывает запись остальных и попадает в {@link BatchResult}.
+     * Записанным вакансиям проставляются id, присвоенные базой.
+     */
+    public BatchResult saveAll(Collection<Vacancy> vacancies) throws SQLException {
+        return executeInBatches(INSERT_VACANCY_SQL, vacancies, this::bindVacancy, Vacancy::getUrl,
+                (v, id) -> v.setId(id));
+    }
+
+    /**
+     * Пакетная запись журнала изменений, аналог {@link #logChange} для коллекции.
+     */
+    public BatchResult logChanges(Collection<VacancyChange> changes) throws SQLException {
+        return executeInBatches(INSERT_CHANGE_SQL, changes, this::bindChange, VacancyChange::getUrl);
+    }
+
+    /**
+     * Пакетная пометка вакансий удалёнными, аналог {@link #markAsRemoved} для коллекции id.
+     */
+    public BatchResult markRemovedAll(Collection<Long> ids, LocalDateTime when) throws SQLException {
+        String sql = "UPDATE vacancies SET is_active = false, closed_at = ? WHERE id = ?";
+        return executeInBatches(sql, ids, (ps, id) -> {
+            ps.setObject(1, when);
+            ps.setLong(2, id);
+        }, String::valueOf);
+    }
+
+    @FunctionalInterface
+    private interface RowBinder<T> {
+        void bind(PreparedStatement ps, T row) throws SQLException;
+    }
+
+    private <T> BatchResult executeInBatches(String sql,
+                                             Collection<T> rows,
+                                             RowBinder<T> binder,
+                                             Function<T, String> keyOf) throws SQLException {
+        return executeInBatches(sql, rows, binder, keyOf, null);
+    }
+
+    /**
+     * Выполняет один и тот же запрос для каждой строки батчами по batchSize,
+     * каждый батч — в отдельной транзакции. Если батч падает, он откатывается
+     * и повторяется построчно, чтобы записать корректные строки и собрать ошибки остальных.
+     * Если задан {@code idSetter}, записанным строкам передаются сгенерированные id.
+     */
+    private <T> BatchResult executeInBatches(String sql,
+                                             Collection<T> rows,
+                                             RowBinder<T> binder,
+                                             Function<T, String> keyOf,
+                                             ObjLongConsumer<T> idSetter) throws SQLException {
+        if (rows == null || rows.isEmpty()) {
+            return BatchResult.empty();
+        }
+        List<T> list = new ArrayList<>(rows);
+        List<BatchResult.Failure> failures = new ArrayList<>();
+        int succeeded = 0;
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement ps = idSetter != null
+                     ? conn.prepareStatement(sql, new String[]{"id"})
+                     : conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+
+            for (int from = 0; from < list.size(); from += batchSize) {
+                int to = Math.min(from + batchSize, list.size());
+                try {
+                    for (int i = from; i < to; i++) {
+                        binder.bind(ps, list.get(i));
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    conn.commit();
+                    assignIds(ps, list.subList(from, to), idSetter);
+                    succeeded += to - from;
+                } catch (BatchUpdateException e) {
+                    conn.rollback();
+                    ps.clearBatch();
+                    for (int i = from; i < to; i++) {
+                        T row = list.get(i);
+                        try {
+                            binder.bind(ps, row);
+                            ps.executeUpdate();
+                            conn.commit();
+                            assignIds(ps, List.of(row), idSetter);
+                            succeeded++;
+                        } catch (SQLException rowError) {
+                            conn.rollback();
+                            failures.add(new BatchResult.Failure(i, keyOf.apply(row), rowError.getMessage()));
+                        }
+                    }
+                }
+            }
+        }
+        return new BatchResult(succeeded, failures);
+    }
+
+    private static <T> void assignIds(PreparedStatement ps, List<T> rows, ObjLongConsumer<T> idSetter)
+            throws SQLException {
+        if (idSetter == null) {
+            return;
+        }
+        try (ResultSet keys = ps.getGeneratedKeys()) {
+            for (T row : rows) {
+                if (!keys.next()) {
+                    return;
+                }
+                idSetter.accept(row, keys.getLong(1));
+            }
+        }
+    }
+    public void reactivate(Long id, LocalDateTime reopenedAt) throws SQLException {
+        String sql = "UPDATE vacancies SET is_active = true, closed_at = NULL WHERE id = ?";
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, id);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Отметки инкрементальной выгрузки по источникам.
+     */
+    public Map<String, SyncWatermark> findWatermarks() throws SQLException {
+        String sql = "SELECT source, fetched_at, full_crawl_at FROM sync_watermarks";
+        Map<String, SyncWatermark> map = new HashMap<>();
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                Timestamp fullCrawl = rs.getTimestamp("full_crawl_at");
+                map.put(rs.getString("source"), new SyncWatermark(
+                        rs.getString("source"),
+                        rs.getTimestamp("fetched_at").toLocalDateTime(),
+                        fullCrawl != null ? fullCrawl.toLocalDateTime() : null));
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Сохраняет отметку источника. Если {@code fullCrawlAt} не задан,
+     * время последнего полного обхода остаётся прежним.
+     */
+    public void saveWatermark(SyncWatermark watermark) throws SQLException {
+        String sql = """
+            INSERT INTO sync_watermarks (source, fetched_at, full_crawl_at) VALUES (?, ?, ?)
+            ON CONFLICT (source) DO UPDATE SET
+              fetched_at = EXCLUDED.fetched_at,
+              full_crawl_at = COALESCE(EXCLUDED.full_crawl_at, sync_watermarks.full_crawl_at)
+            """;
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, watermark.source());
+            ps.setObject(2, watermark.fetchedAt());
+            if (watermark.fullCrawlAt() != null) {
+                ps.setObject(3, watermark.fullCrawlAt());
+            } else {
+                ps.setNull(3, Types.TIMESTAMP);
+            }
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Активные вакансии без MinHash-сигнатуры или с сигнатурой, посчитанной с другими
+     * параметрами (первые 4 байта не совпадают с {@code fingerprint}).
+     * Заполнены только поля, по которым считается сигнатура.
+     */
+    public List<Vacancy> findUnsignedActive(byte[] fingerprint) throws SQLException {
+        String sql = """
+            SELECT id, title, company, city, requirements FROM vacancies
+            WHERE is_active = true AND (minhash IS NULL OR substring(minhash FROM 1 FOR 4) <> ?)
+            """;
+        List<Vacancy> list = new ArrayList<>();
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setBytes(1, fingerprint);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Vacancy v = new Vacancy();
+                    v.setId(rs.getLong("id"));
+                    v.setTitle(rs.getString("title"));
+                    v.setCompany(rs.getString("company"));
+                    v.setCity(rs.getString("city"));
+                    v.setRequirements(rs.getString("requirements"));
+                    list.add(v);
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Сигнатуры и текущие группы всех активных вакансий, у которых сигнатура есть.
+     */
+    public List<VacancySignature> findActiveSignatures() throws SQLException {
+        String sql = "SELECT id, source, minhash, canonical_id FROM vacancies WHERE is_active = true AND minhash IS NOT NULL";
+        List<VacancySignature> list = new ArrayList<>();
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                long canonicalId = rs.getLong("canonical_id");
+                list.add(new VacancySignature(rs.getLong("id"), rs.getString("source"), rs.getBytes("minhash"),
+                        rs.wasNull() ? null : canonicalId));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Пакетно записывает описания вакансий по URL; строки с тем же описанием не переписываются.
+     */
+    public BatchResult saveDescriptions(Map<String, String> descriptions) throws SQLException {
+        return executeInBatches(
+                "UPDATE vacancies SET description = ? WHERE url = ? AND description IS DISTINCT FROM ?",
+                descriptions.entrySet(), (ps, e) -> {
+                    ps.setString(1, e.getValue());
+                    ps.setString(2, e.getKey());
+                    ps.setString(3, e.getValue());
+                }, Map.Entry::getKey);
+    }
+
+    /**
+     * Пакетно переписывает содержимое активных вакансий — построчный аналог изменённых
+     * в {@link #reconcile}: строка переписывается, только если её хэш содержимого отличается,
+     * и получает событие UPDATED с diff.
+     */
+    public BatchResult updateContent(Collection<Vacancy> vacancies, LocalDateTime now) throws SQLException {
+        return executeInBatches(UPDATE_CONTENT_SQL, vacancies, (ps, v) -> {
+            ps.setString(1, v.getUrl());
+            ps.setString(2, v.getTitle());
+            ps.setString(3, v.getCompany());
+            ps.setString(4, v.getCity());
+            ps.setObject(5, v.getSalaryFrom(), Types.INTEGER);
+            ps.setObject(6, v.getSalaryTo(), Types.INTEGER);
+            ps.setString(7, v.getCurrency());
+            ps.setString(8, v.getRequirements());
+            ps.setString(9, v.getWorkSchedule());
+            ps.setObject(10, v.getPublishedDate(), Types.TIMESTAMP);
+            ps.setString(11, ContentHash.ofStored(v));
+            ps.setObject(12, now);
+        }, Vacancy::getUrl);
+    }
+
+    /**
+     * Пакетно сохраняет сигнатуры по id вакансий.
+     */
+    public BatchResult saveSignatures(Map<Long, byte[]> signatures) throws SQLException {
+        return executeInBatches("UPDATE vacancies SET minhash = ? WHERE id = ?", signatures.entrySet(), (ps, e) -> {
+            ps.setBytes(1, e.getValue());
+            ps.setLong(2, e.getKey());
+        }, e -> String.valueOf(e.getKey()));
+    }
+
+    /**
+     * Пакетно сохраняет представителей групп дублей: id вакансии → canonical_id.
+     */
+    public BatchResult saveCanonicalIds(Map<Long, Long> canonicalIds) throws SQLException {
+        return executeInBatches("UPDATE vacancies SET canonical_id = ? WHERE id = ?", canonicalIds.entrySet(),
+                (ps, e) -> {
+                    ps.setLong(1, e.getValue());
+                    ps.setLong(2, e.getKey());
+                }, e -> String.valueOf(e.getKey()));
+    }
+
+    private static final Pattern CHANGE_PARTITION = Pattern.compile("vacancy_changes_p(\\d{4})(\\d{2})");
+
+    /**
+     * Имя секции журнала изменений за месяц.
+     */
+    static String changePartition(YearMonth month) {
+        return String.format("vacancy_changes_p%04d%02d", month.getYear(), month.getMonthValue());
+    }
+
+    /**
+     * Месяцы, секции которых подключены к vacancy_changes, по возрастанию.
+     * Секция по умолчанию и отключённые секции не возвращаются.
+     */
+    public List<YearMonth> findChangePartitions() throws SQLException {
+        String sql = """
+            SELECT c.relname
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'vacancy_changes'::regclass
+            """;
+        List<YearMonth> months = new ArrayList<>();
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                Matcher m = CHANGE_PARTITION.matcher(rs.getString(1));
+                if (m.matches()) {
+                    months.add(YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2))));
+                }
+            }
+        }
+        Collections.sort(months);
+        return months;
+    }
+
+    /**
+     * Месяцы событий, попавших в секцию по умолчанию (например, до создания секций
+     * или с временем в прошлом), по возрастанию.
+     */
+    public List<YearMonth> findDefaultPartitionMonths() throws SQLException {
+        String sql = "SELECT DISTINCT date_trunc('month', event_time) FROM vacancy_changes_default ORDER BY 1";
+        List<YearMonth> months = new ArrayList<>();
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                months.add(YearMonth.from(rs.getObject(1, LocalDateTime.class)));
+            }
+        }
+        return months;
+    }
+
+    /**
+     * Создаёт секцию журнала изменений за месяц, если её ещё нет. Строки этого месяца,
+     * успевшие попасть в секцию по умолчанию, переносятся в новую секцию в той же транзакции.
+     * На время транзакции секция по умолчанию заблокирована полностью.
+     *
+     * @return {@code true}, если секция создана
+     */
+    public boolean createChangePartition(YearMonth month) throws SQLException {
+        String name = changePartition(month);
+        String from = month.atDay(1).toString();
+        String to = month.plusMonths(1).atDay(1).toString();
+        String range = "event_time >= '" + from + "' AND event_time < '" + to + "'";
+        try (Connection conn = dbManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement st = conn.createStatement()) {
+                // Блокировка сериализует создание секций. ATTACH PARTITION при этом берёт
+                // ACCESS EXCLUSIVE на секцию по умолчанию (её нужно проверить на строки месяца),
+                // поэтому до конца транзакции вставки, попадающие в неё, и чтение журнала ждут;
+                // секции создаются заранее, пока секция по умолчанию пуста, и ожидание короткое
+                st.execute("LOCK TABLE vacancy_changes IN SHARE UPDATE EXCLUSIVE MODE");
+                try (ResultSet rs = st.executeQuery("SELECT to_regclass('" + name + "') IS NOT NULL")) {
+                    rs.next();
+                    if (rs.getBoolean(1)) {
+                        conn.rollback();
+                        return false;
+                    }
+                }
+                st.execute("CREATE TABLE " + name + " (LIKE vacancy_changes INCLUDING DEFAULTS)");
+                st.executeUpdate("INSERT INTO " + name + " SELECT * FROM vacancy_changes_default WHERE " + range);
+                st.executeUpdate("DELETE FROM vacancy_changes_default WHERE " + range);
+                st.execute("ALTER TABLE vacancy_changes ATTACH PARTITION " + name
+                        + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Сворачивает секцию журнала за месяц в дневную сводку vacancy_changes_daily
+     * (события, вакансии и средняя зарплата по дню, типу изменения и городу) и удаляет её
+     * или только отключает от журнала, оставляя отдельной таблицей. Сводка и удаление
+     * выполняются в одной транзакции, поэтому повторный запуск после сбоя ничего не теряет.
+     *
+     * @param drop {@code true} — удалить секцию, {@code false} — отключить (DETACH)
+     * @return число записанных строк сводки
+     */
+    public int retireChangePartition(YearMonth month, boolean drop) throws SQLException {
+        String name = changePartition(month);
+        String rollup = """
+            INSERT INTO vacancy_changes_daily (
+              day, change_type, city, events, vacancies, avg_salary_from, avg_salary_to
+            )
+            SELECT event_time::date, change_type, coalesce(city, ''), count(*), count(DISTINCT vacancy_id),
+                   round(avg(salary_from)), round(avg(salary_to))
+            FROM %s
+            GROUP BY 1, 2, 3
+            ON CONFLICT (day, change_type, city) DO UPDATE
+            SET events = EXCLUDED.events,
+                vacancies = EXCLUDED.vacancies,
+                avg_salary_from = EXCLUDED.avg_salary_from,
+                avg_salary_to = EXCLUDED.avg_salary_to
+            """.formatted(name);
+        try (Connection conn = dbManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement st = conn.createStatement()) {
+                int rows = st.executeUpdate(rollup);
+                st.execute(drop ? "DROP TABLE " + name : "ALTER TABLE vacancy_changes DETACH PARTITION " + name);
+                conn.commit();
+                return rows;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Время последней контрольной точки или {@code null}, если их ещё нет.
+     */
+    public LocalDateTime findLatestSnapshotTime() throws SQLException {
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT max(taken_at) FROM vacancy_snapshots");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getObject(1, LocalDateTime.class);
+        }
+    }
+
+    /**
+     * Записывает контрольную точку: id всех активных вакансий на момент {@code takenAt}.
+     *
+     * @return число вакансий в точке или -1, если точка на этот момент уже есть
+     */
+    public int createSnapshot(LocalDateTime takenAt) throws SQLException {
+        String sql = """
+            INSERT INTO vacancy_snapshots (taken_at, vacancy_ids)
+            SELECT ?, coalesce(array_agg(id ORDER BY id), '{}')
+            FROM vacancies
+            WHERE is_active = true
+            ON CONFLICT (taken_at) DO NOTHING
+            RETURNING cardinality(vacancy_ids)
+            """;
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setObject(1, takenAt);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : -1;
+            }
+        }
+    }
+
+    /**
+     * Прореживает контрольные точки старше {@code before} до одной, последней до {@code before},
+     * в месяц: подробного журнала за это время уже нет, и частые точки ничего не уточняют.
+     * Последняя точка месяца — его итоговое состояние, и от последней точки перед
+     * {@code before} отсчитываются события ещё не свёрнутого журнала.
+     *
+     * @return число удалённых точек
+     */
+    public int thinSnapshots(LocalDateTime before) throws SQLException {
+        String sql = """
+            DELETE FROM vacancy_snapshots s
+            WHERE s.taken_at < ?
+              AND EXISTS (
+                SELECT 1 FROM vacancy_snapshots o
+                WHERE date_trunc('month', o.taken_at) = date_trunc('month', s.taken_at)
+                  AND o.taken_at > s.taken_at
+                  AND o.taken_at < ?
+              )
+            """;
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setObject(1, before);
+            ps.setObject(2, before);
+            return ps.executeUpdate();
+        }
+    }
+
+    /*
+     * Активные вакансии на момент T: ближайшая контрольная точка не позже T (может не быть)
+     * плюс последнее событие каждой вакансии в журнале после неё. Вакансия активна, если
+     * её последнее событие после точки — не REMOVED, либо событий не было и она есть в точке.
+     * Ограничение по event_time отсекает секции журнала, поэтому читается только хвост.
+     */
+    private static final String ACTIVE_AT_CTE = """
+        WITH checkpoint AS (
+          SELECT vacancy_ids FROM vacancy_snapshots WHERE taken_at = ?
+        ),
+        delta AS (
+          SELECT DISTINCT ON (c.url) v.id, c.change_type
+          FROM vacancy_changes c
+          JOIN vacancies v ON v.url = c.url
+          WHERE c.event_time > coalesce(?::timestamp, '-infinity'::timestamp)
+            AND c.event_time <= ?
+          ORDER BY c.url, c.event_time DESC, c.id DESC
+        ),
+        active AS (
+          SELECT u.id
+          FROM checkpoint, unnest(checkpoint.vacancy_ids) AS u(id)
+          WHERE NOT EXISTS (SELECT 1 FROM delta d WHERE d.id = u.id)
+          UNION ALL
+          SELECT id FROM delta WHERE change_type <> 'REMOVED'
+        )
+        """;
+    private static final String ACTIVE_BEFORE_CTE = ACTIVE_AT_CTE.replace("c.event_time <= ?", "c.event_time < ?");
+
+    /**
+     * id вакансий, активных на момент {@code at}. Стоимость запроса — размер контрольной
+     * точки плюс число событий после неё, а не длина всей истории.
+     * <p>
+     * В месяцах со свёрнутым журналом остаётся только последняя точка месяца, поэтому
+     * ответ на момент внутри такого месяца точен до месяца.
+     */
+    public Set<Long> findActiveIdsAt(LocalDateTime at) throws SQLException {
+        Set<Long> ids = new HashSet<>();
+        queryActiveAt(at, true, "SELECT id FROM active", rs -> ids.add(rs.getLong(1)));
+        return ids;
+    }
+
+    /**
+     * id вакансий, активных на конец дня {@code day}: учитываются все события этого дня.
+     */
+    public Set<Long> findActiveIdsAt(LocalDate day) throws SQLException {
+        Set<Long> ids = new HashSet<>();
+        queryActiveAt(day.plusDays(1).atStartOfDay(), false, "SELECT id FROM active", rs -> ids.add(rs.getLong(1)));
+        return ids;
+    }
+
+    /**
+     * Число вакансий по городам на момент {@code at}, аналог {@link #countByCity()}.
+     * Город и группа дублей берутся из текущей записи вакансии.
+     */
+    public Map<String, Integer> countByCityAt(LocalDateTime at) throws SQLException {
+        Map<String, Integer> map = new HashMap<>();
+        queryActiveAt(at, true, COUNT_BY_CITY_AT_SQL, rs -> map.put(rs.getString("city"), rs.getInt("cnt")));
+        return map;
+    }
+
+    /**
+     * Число вакансий по городам на конец дня {@code day}.
+     */
+    public Map<String, Integer> countByCityAt(LocalDate day) throws SQLException {
+        Map<String, Integer> map = new HashMap<>();
+        queryActiveAt(day.plusDays(1).atStartOfDay(), false, COUNT_BY_CITY_AT_SQL,
+                rs -> map.put(rs.getString("city"), rs.getInt("cnt")));
+        return map;
     }
+
+    private static final String COUNT_BY_CITY_AT_SQL = """
+        SELECT v.city, COUNT(DISTINCT coalesce(v.canonical_id, v.id)) AS cnt
+        FROM active a
+        JOIN vacancies v ON v.id = a.id
+        GROUP BY v.city
+        """;
+
+    @FunctionalInterface
+    private interface RowHandler {
+        void accept(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * @param inclusive учитывать ли события ровно в момент {@code at}; {@code false} —
+     *                  {@code at} исключающая граница, например начало следующего дня
+     */
+    private void queryActiveAt(LocalDateTime at, boolean inclusive, String select, RowHandler handler)
+            throws SQLException {
+        try (Connection conn = dbManager.getConnection()) {
+            LocalDateTime checkpoint;
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT max(taken_at) FROM vacancy_snapshots WHERE taken_at " + (inclusive ? "<=" : "<") + " ?")) {
+                ps.setObject(1, at);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    checkpoint = rs.getObject(1, LocalDateTime.class);
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement((inclusive ? ACTIVE_AT_CTE : ACTIVE_BEFORE_CTE) + select)) {
+                // параметры: точка (для выборки и для границы хвоста журнала) и момент запроса
+                if (checkpoint != null) {
+                    ps.setObject(1, checkpoint);
+                    ps.setObject(2, checkpoint);
+                } else {
+                    ps.setNull(1, Types.TIMESTAMP);
+                    ps.setNull(2, Types.TIMESTAMP);
+                }
+                ps.setObject(3, at);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        handler.accept(rs);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Число активных вакансий по городам; дубли одной вакансии с разных сайтов
+     * (общий {@code canonical_id}) считаются один раз.
+     */
     public Map<String, Integer> countByCity() throws SQLException {
-        String sql = "SELECT city, COUNT(*) AS cnt FROM vacancies WHERE is_active = true GROUP BY city";
+        String sql = "SELECT city, COUNT(DISTINCT coalesce(canonical_id, id)) AS cnt FROM vacancies " +
+                "WHERE is_active = true GROUP BY city";
         Map<String, Integer> map = new HashMap<>();
         try (Connection conn = dbManager.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql);
@@ -507,74 +1232,483 @@ public class VacancyRepository {
     }
 
 
-    public List<Vacancy> findAllOrderByPublishedDateDesc() throws SQLException {
-        String sql = "SELECT * FROM vacancies WHERE is_active = true " +
-                "ORDER BY published_date DESC NULLS LAST, created_at DESC NULLS LAST";
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            return mapResultSet(rs);
-        }
+    /**
+     * Постраничный просмотр активных вакансий в заданном порядке (keyset-пагинация).
+     * Память на запрос ограничена размером страницы, а глубокие страницы читаются
+     * так же быстро, как первая: позиция задаётся курсором, а не OFFSET.
+     *
+     * @param cursor курсор из {@link Page#nextCursor()} или {@link Page#previousCursor()};
+     *               {@code null} — первая страница
+     */
+    public Page<Vacancy> findPage(VacancySort sort, String cursor, int pageSize) throws SQLException {
+        return findPage(VacancyQuery.builder().sort(sort).build(), cursor, pageSize);
     }
 
-    
-    public List<Vacancy> findAllOrderBySalaryDesc() throws SQLException {
-        String sql = "SELECT * FROM vacancies WHERE is_active = true " +
-                "ORDER BY COALESCE(salary_to, salary_from) DESC NULLS LAST, " +
-                "salary_from DESC NULLS LAST";
+    /**
+     * Постраничный просмотр результатов составного запроса в порядке {@link VacancyQuery#pageSort()}.
+     * Лимит и смещение запроса не учитываются — страницы задаются курсором.
+     */
+    public Page<Vacancy> findPage(VacancyQuery query, String cursor, int pageSize) throws SQLException {
+        VacancySort sort = query.pageSort();
+        PageCursor position = cursor != null ? PageCursor.decode(cursor, sort) : null;
+        boolean backward = position != null && position.backward();
+        if (query.matchesNothing()) {
+            return new Page<>(new ArrayList<>(), null, null);
+        }
+
+        List<Vacancy> items = new ArrayList<>();
+        List<List<String>> keys = new ArrayList<>();
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            return mapResultSet(rs);
+             PreparedStatement ps = conn.prepareStatement(query.pageSql(position))) {
+            query.bindPage(ps, position, pageSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    items.add(mapRow(rs, query.projection().includesText()));
+                    List<String> rowKeys = new ArrayList<>();
+                    for (int k = 0; k < sort.keys().size(); k++) {
+                        rowKeys.add(rs.getString("sort_k" + k));
+                    }
+                    keys.add(rowKeys);
+                }
+            }
+        }
+
+        boolean hasMore = items.size() > pageSize;
+        if (hasMore) {
+            items.remove(pageSize);
+            keys.remove(pageSize);
+        }
+        if (backward) {
+            Collections.reverse(items);
+            Collections.reverse(keys);
+        }
+        if (items.isEmpty()) {
+            return new Page<>(items, null, null);
         }
+
+        boolean hasNext = backward || hasMore;
+        boolean hasPrevious = backward ? hasMore : position != null;
+        int last = items.size() - 1;
+        String next = hasNext
+                ? new PageCursor(sort, false, keys.get(last), items.get(last).getId()).encode()
+                : null;
+        String previous = hasPrevious
+                ? new PageCursor(sort, true, keys.get(0), items.get(0).getId()).encode()
+                : null;
+        return new Page<>(items, next, previous);
+    }
+
+    /**
+     * Множественная синхронизация: загружает всю выгрузку во временную таблицу
+     * одним батчем и вычисляет добавленные, повторно активированные и удалённые
+     * вакансии несколькими SQL-запросами (anti-join + INSERT ... SELECT в vacancy_changes).
+     * Существующие вакансии переписываются, только если изменился их хэш содержимого.
+     * Число обращений к БД не зависит от размера выгрузки. Всё выполняется в одной транзакции.
+     */
+    public ReconcileResult reconcile(List<Vacancy> fetched, LocalDateTime now) throws SQLException {
+        return reconcile(fetched, now, Set.of());
     }
 
+    /**
+     * Множественная синхронизация, при которой активные вакансии источников из
+     * {@code preservedSources} не помечаются удалёнными, даже если их нет в выгрузке, —
+     * для источников, выгрузка которых не завершилась (ошибка или истёк срок).
+     */
+    public ReconcileResult reconcile(List<Vacancy> fetched,
+                                     LocalDateTime now,
+                                     Set<String> preservedSources) throws SQLException {
+        Map<String, Vacancy> unique = new LinkedHashMap<>();
+        for (Vacancy v : fetched) {
+            if (v.getUrl() != null) {
+                unique.putIfAbsent(v.getUrl(), v);
+            }
+        }
 
-    public List<Vacancy> findAllOrderByCompany() throws SQLException {
-        String sql = "SELECT * FROM vacancies WHERE is_active = true " +
-                "ORDER BY company ASC NULLS LAST";
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            return mapResultSet(rs);
+        try (Connection conn = dbManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                createStagingTable(conn);
+                loadStaging(conn, unique.values());
+
+                int removed;
+                try (PreparedStatement ps = conn.prepareStatement(RECONCILE_REMOVED_SQL)) {
+                    ps.setObject(1, now);
+                    ps.setArray(2, conn.createArrayOf("text", preservedSources.toArray()));
+                    ps.setObject(3, now);
+                    removed = ps.executeUpdate();
+                }
+                int reactivated;
+                try (PreparedStatement ps = conn.prepareStatement(RECONCILE_REACTIVATED_SQL)) {
+                    ps.setObject(1, now);
+                    reactivated = ps.executeUpdate();
+                }
+                try (Statement st = conn.createStatement()) {
+                    st.executeUpdate(RECONCILE_DESCRIBED_SQL);
+                }
+                int updated;
+                try (PreparedStatement ps = conn.prepareStatement(RECONCILE_CHANGED_SQL)) {
+                    ps.setObject(1, now);
+                    updated = ps.executeUpdate();
+                }
+                int added;
+                try (PreparedStatement ps = conn.prepareStatement(RECONCILE_ADDED_SQL)) {
+                    ps.setObject(1, now);
+                    added = ps.executeUpdate();
+                }
+
+                conn.commit();
+                return new ReconcileResult(unique.size(), added, reactivated, removed, updated);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
         }
     }
 
+    private static final String STAGING_COLUMNS = """
+        (
+          title          TEXT,
+          company        TEXT,
+          city           TEXT,
+          salary_from    INTEGER,
+          salary_to      INTEGER,
+          currency       TEXT,
+          description    TEXT,
+          url            TEXT PRIMARY KEY,
+          published_date TIMESTAMP,
+          source         TEXT,
+          source_url     TEXT,
+          requirements   TEXT,
+          work_schedule  TEXT,
+          created_at     TIMESTAMP,
+          content_hash   TEXT
+        )
+        """;
 
-    public List<Vacancy> findAllOrderByPublishedDateAsc() throws SQLException {
-        String sql = "SELECT * FROM vacancies WHERE is_active = true " +
-                "ORDER BY published_date ASC NULLS LAST, created_at ASC NULLS LAST";
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            return mapResultSet(rs);
+    private void createStagingTable(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("CREATE TEMP TABLE vacancy_staging " + STAGING_COLUMNS + " ON COMMIT DROP");
         }
     }
 
-
-    public List<Vacancy> findAllOrderBySalaryAsc() throws SQLException {
-        String sql = "SELECT * FROM vacancies WHERE is_active = true " +
-                "ORDER BY COALESCE(salary_from, salary_to) ASC NULLS LAST, " +
-                "salary_to ASC NULLS LAST";
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            return mapResultSet(rs);
+    /**
+     * Загружает выгрузку во временную таблицу: через COPY для больших выгрузок,
+     * иначе одним JDBC-батчем.
+     */
+    private void loadStaging(Connection conn, Collection<Vacancy> vacancies) throws SQLException {
+        if (vacancies.size() >= copyThreshold) {
+            VacancyBulkLoader.copyStaging(conn, vacancies);
+        } else {
+            insertStaging(conn, vacancies);
+        }
+        try (Statement st = conn.createStatement()) {
+            st.execute("ANALYZE vacancy_staging");
         }
     }
 
-     
-    public List<Vacancy> findAllOrderByCity() throws SQLException {
-        String sql = "SELECT * FROM vacancies WHERE is_active = true " +
-                "ORDER BY city ASC NULLS LAST";
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            return mapResultSet(rs);
+    private static final String INSERT_STAGING_SQL = """
+        INSERT INTO vacancy_staging (
+          title, company, city, salary_from, salary_to, currency, description, url,
+          published_date, source, source_url, requirements, work_schedule, created_at, content_hash
+        ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private void insertStaging(Connection conn, Collection<Vacancy> vacancies) throws SQLException {
+        insertStaging(conn, vacancies, INSERT_STAGING_SQL);
+    }
+
+    private void insertStaging(Connection conn, Collection<Vacancy> vacancies, String sql) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (Vacancy v : vacancies) {
+                bindVacancyColumns(ps, v);
+                ps.setString(15, ContentHash.ofStored(v));
+                ps.addBatch();
+            }
+            ps.executeBatch();
         }
     }
 
+    private static final String CHANGE_COLUMNS = """
+        vacancy_id, url, change_type, event_time, title, company, city,
+        salary_from, salary_to, currency, published_date, work_schedule
+        """;
+
+    private static final String RECONCILE_REMOVED_SQL = """
+        WITH removed AS (
+          UPDATE vacancies v SET is_active = false, closed_at = ?
+          WHERE v.is_active = true
+            AND (v.source IS NULL OR v.source <> ALL(?))
+            AND NOT EXISTS (SELECT 1 FROM vacancy_staging s WHERE s.url = v.url)
+          RETURNING v.id, v.url, v.title, v.company, v.city, v.salary_from, v.salary_to,
+                    v.currency, v.published_date, v.work_schedule
+        )
+        INSERT INTO vacancy_changes (""" + CHANGE_COLUMNS + """
+        )
+        SELECT id, url, 'REMOVED', ?, title, company, city,
+               salary_from, salary_to, currency, published_date, work_schedule
+        FROM removed
+        """;
+
+    /*
+     * Описание могло появиться позже самой вакансии (дозагрузка карточек идёт порциями)
+     * или измениться — обновляется только оно, история изменений не пишется.
+     */
+    private static final String RECONCILE_DESCRIBED_SQL = """
+        UPDATE vacancies v SET description = s.description
+        FROM vacancy_staging s
+        WHERE v.url = s.url
+          AND s.description IS NOT NULL
+          AND v.description IS DISTINCT FROM s.description
+        """;
+
+    /** Поля, входящие в хэш содержимого ({@link ContentHash}) и в diff события UPDATED. */
+    private static final List<String> CONTENT_FIELDS = List.of(
+            "title", "company", "city", "salary_from", "salary_to", "currency", "requirements", "work_schedule");
+
+    /** {"поле": {"old": ..., "new": ...}} по полям, значения которых различаются. */
+    private static final String CONTENT_DIFF = CONTENT_FIELDS.stream()
+            .map(f -> "CASE WHEN v." + f + " IS DISTINCT FROM s." + f
+                    + " THEN jsonb_build_object('" + f + "', jsonb_build_object('old', v." + f + ", 'new', s." + f + "))"
+                    + " ELSE '{}'::jsonb END")
+            .collect(Collectors.joining("\n || "));
+
+    /*
+     * Вакансии, у которых изменился хэш содержимого: переписываются только они, а в историю
+     * пишется событие UPDATED с полями, значения которых действительно изменились.
+     * MinHash-сигнатура сбрасывается и пересчитывается при следующем поиске дублей.
+     * Строки без хэша (сохранённые до его появления) получают его без записи в историю,
+     * если поля совпали.
+     */
+    private static final String RECONCILE_CHANGED_SQL = """
+        WITH changed AS (
+          SELECT v.id, s.url, (""" + CONTENT_DIFF + """
+        ) AS diff
+          FROM vacancies v
+          JOIN vacancy_staging s ON s.url = v.url
+          WHERE v.is_active = true
+            AND s.content_hash IS NOT NULL
+            AND v.content_hash IS DISTINCT FROM s.content_hash
+        ),
+        updated AS (
+          UPDATE vacancies v
+          SET\s""" + CONTENT_FIELDS.stream().map(f -> f + " = s." + f).collect(Collectors.joining(", ")) + """
+        , content_hash = s.content_hash, minhash = NULL
+          FROM changed c
+          JOIN vacancy_staging s ON s.url = c.url
+          WHERE v.id = c.id
+          RETURNING v.id, s.url, s.title, s.company, s.city, s.salary_from, s.salary_to,
+                    s.currency, s.published_date, s.work_schedule, c.diff
+        )
+        INSERT INTO vacancy_changes (""" + CHANGE_COLUMNS + """
+        , diff)
+        SELECT id, url, 'UPDATED', ?, title, company, city,
+               salary_from, salary_to, currency, published_date, work_schedule, diff
+        FROM updated
+        WHERE diff <> '{}'::jsonb
+        """;
+
+    /*
+     * Вернувшиеся вакансии сразу получают содержимое из выгрузки: одно событие UPDATED
+     * с новыми значениями и diff (если содержимое изменилось, пока вакансия была закрыта).
+     * После этого их хэш совпадает с выгрузкой, и RECONCILE_CHANGED_SQL их не трогает.
+     */
+    private static final String RECONCILE_REACTIVATED_SQL = """
+        WITH reactivated AS (
+          SELECT v.id, s.url, (""" + CONTENT_DIFF + """
+        ) AS diff
+          FROM vacancies v
+          JOIN vacancy_staging s ON s.url = v.url
+          WHERE v.is_active = false
+        ),
+        updated AS (
+          UPDATE vacancies v
+          SET is_active = true, closed_at = NULL,\s""" + CONTENT_FIELDS.stream().map(f -> f + " = s." + f).collect(Collectors.joining(", ")) + """
+        , content_hash = s.content_hash,
+              minhash = CASE WHEN v.content_hash IS DISTINCT FROM s.content_hash THEN NULL ELSE v.minhash END
+          FROM reactivated r
+          JOIN vacancy_staging s ON s.url = r.url
+          WHERE v.id = r.id
+          RETURNING v.id, v.url, v.title, v.company, v.city, v.salary_from, v.salary_to,
+                    v.currency, v.published_date, v.work_schedule, NULLIF(r.diff, '{}'::jsonb) AS diff
+        )
+        INSERT INTO vacancy_changes (""" + CHANGE_COLUMNS + """
+        , diff)
+        SELECT id, url, 'UPDATED', ?, title, company, city,
+               salary_from, salary_to, currency, published_date, work_schedule, diff
+        FROM updated
+        """;
+
+    private static final String RECONCILE_ADDED_SQL = """
+        WITH added AS (
+          INSERT INTO vacancies (
+            title, company, city, salary_from, salary_to, currency, description, url,
+            published_date, source, source_url, requirements, work_schedule, created_at,
+            is_active, closed_at, content_hash
+          )
+          SELECT s.title, s.company, s.city, s.salary_from, s.salary_to, s.currency, s.description, s.url,
+                 s.published_date, s.source, s.source_url, s.requirements, s.work_schedule, s.created_at,
+                 true, NULL, s.content_hash
+          FROM vacancy_staging s
+          WHERE NOT EXISTS (SELECT 1 FROM vacancies v WHERE v.url = s.url)
+          RETURNING id, url, title, company, city, salary_from, salary_to,
+                    currency, published_date, work_schedule
+        )
+        INSERT INTO vacancy_changes (""" + CHANGE_COLUMNS + """
+        )
+        SELECT id, url, 'ADDED', ?, title, company, city,
+               salary_from, salary_to, currency, published_date, work_schedule
+        FROM added
+        """;
+
+    /*
+     * Построчный режим переписывает изменённое содержимое тем же запросом, что и reconcile,
+     * только вместо временной таблицы — одна строка из параметров.
+     */
+    private static final String CONTENT_ROW = "SELECT CAST(? AS text) AS url, CAST(? AS text) AS title, "
+            + "CAST(? AS text) AS company, CAST(? AS text) AS city, CAST(? AS integer) AS salary_from, "
+            + "CAST(? AS integer) AS salary_to, CAST(? AS text) AS currency, CAST(? AS text) AS requirements, "
+            + "CAST(? AS text) AS work_schedule, CAST(? AS timestamp) AS published_date, "
+            + "CAST(? AS text) AS content_hash";
+    private static final String UPDATE_CONTENT_SQL = RECONCILE_CHANGED_SQL
+            .replace("WITH changed AS (", "WITH content_row AS (" + CONTENT_ROW + "),\nchanged AS (")
+            .replace("vacancy_staging", "content_row");
+
+    /*
+     * Конвейерная синхронизация работает с теми же запросами, что и reconcile, но по
+     * таблицам сеанса: vacancy_batch — текущая порция (очищается при каждом commit),
+     * vacancy_seen — URL всех порций сеанса для поиска удалённых вакансий.
+     */
+    private static final String BATCH_TABLE = "vacancy_batch";
+    private static final String SEEN_TABLE = "vacancy_seen";
+    private static final String INSERT_BATCH_SQL =
+            INSERT_STAGING_SQL.replace("vacancy_staging", BATCH_TABLE) + " ON CONFLICT (url) DO NOTHING";
+    private static final String INSERT_SEEN_SQL =
+            "INSERT INTO " + SEEN_TABLE + " (url) SELECT url FROM " + BATCH_TABLE + " ON CONFLICT DO NOTHING";
+    private static final String BATCH_REACTIVATED_SQL = RECONCILE_REACTIVATED_SQL.replace("vacancy_staging", BATCH_TABLE);
+    private static final String BATCH_ADDED_SQL = RECONCILE_ADDED_SQL.replace("vacancy_staging", BATCH_TABLE);
+    private static final String BATCH_DESCRIBED_SQL = RECONCILE_DESCRIBED_SQL.replace("vacancy_staging", BATCH_TABLE);
+    private static final String BATCH_CHANGED_SQL = RECONCILE_CHANGED_SQL.replace("vacancy_staging", BATCH_TABLE);
+    private static final String SEEN_REMOVED_SQL = RECONCILE_REMOVED_SQL
+            .replace("SELECT 1 FROM vacancy_staging s", "SELECT 1 FROM " + SEEN_TABLE + " s");
+
+    /**
+     * Открывает сеанс конвейерной синхронизации на отдельном соединении пула.
+     */
+    public SyncSession openSyncSession() throws SQLException {
+        return new SyncSession(dbManager.getConnection());
+    }
+
+    /**
+     * Сеанс конвейерной синхронизации: выгрузка записывается порциями по мере получения,
+     * не дожидаясь конца выгрузки. Каждая порция в своей транзакции добавляет новые
+     * и восстанавливает вернувшиеся вакансии, а её URL запоминаются во временной таблице;
+     * по ней {@link #finish} одним запросом помечает удалённые вакансии.
+     */
+    public final class SyncSession implements AutoCloseable {
+        private final Connection conn;
+        private int added;
+        private int reactivated;
+        private int updated;
+
+        private SyncSession(Connection conn) throws SQLException {
+            this.conn = conn;
+            try (Statement st = conn.createStatement()) {
+                conn.setAutoCommit(false);
+                st.execute("CREATE TEMP TABLE IF NOT EXISTS " + BATCH_TABLE + " " + STAGING_COLUMNS
+                        + " ON COMMIT DELETE ROWS");
+                st.execute("CREATE TEMP TABLE IF NOT EXISTS " + SEEN_TABLE + " (url TEXT PRIMARY KEY)");
+                st.execute("TRUNCATE " + SEEN_TABLE);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.close();
+                throw e;
+            }
+        }
 
+        /**
+         * Записывает порцию вакансий в отдельной транзакции.
+         */
+        public void write(Collection<Vacancy> batch, LocalDateTime now) throws SQLException {
+            List<Vacancy> withUrl = batch.stream().filter(v -> v.getUrl() != null).toList();
+            if (withUrl.isEmpty()) {
+                return;
+            }
+            try {
+                insertStaging(conn, withUrl, INSERT_BATCH_SQL);
+                try (Statement st = conn.createStatement()) {
+                    st.executeUpdate(INSERT_SEEN_SQL);
+                }
+                try (PreparedStatement ps = conn.prepareStatement(BATCH_REACTIVATED_SQL)) {
+                    ps.setObject(1, now);
+                    reactivated += ps.executeUpdate();
+                }
+                try (Statement st = conn.createStatement()) {
+                    st.executeUpdate(BATCH_DESCRIBED_SQL);
+                }
+                try (PreparedStatement ps = conn.prepareStatement(BATCH_CHANGED_SQL)) {
+                    ps.setObject(1, now);
+                    updated += ps.executeUpdate();
+                }
+                try (PreparedStatement ps = conn.prepareStatement(BATCH_ADDED_SQL)) {
+                    ps.setObject(1, now);
+                    added += ps.executeUpdate();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+
+        /**
+         * Завершает сеанс: помечает удалёнными активные вакансии, не встретившиеся ни в одной
+         * порции, кроме вакансий источников {@code preservedSources}.
+         *
+         * @param removeMissing {@code false} — удалённые не определяются (выгрузка неполная)
+         */
+        public ReconcileResult finish(LocalDateTime now, Set<String> preservedSources, boolean removeMissing)
+                throws SQLException {
+            try {
+                int removed = 0;
+                if (removeMissing) {
+                    try (Statement st = conn.createStatement()) {
+                        st.execute("ANALYZE " + SEEN_TABLE);
+                    }
+                    try (PreparedStatement ps = conn.prepareStatement(SEEN_REMOVED_SQL)) {
+                        ps.setObject(1, now);
+                        ps.setArray(2, conn.createArrayOf("text", preservedSources.toArray()));
+                        ps.setObject(3, now);
+                        removed = ps.executeUpdate();
+                    }
+                }
+                int staged;
+                try (Statement st = conn.createStatement();
+                     ResultSet rs = st.executeQuery("SELECT count(*) FROM " + SEEN_TABLE)) {
+                    rs.next();
+                    staged = rs.getInt(1);
+                }
+                conn.commit();
+                return new ReconcileResult(staged, added, reactivated, removed, updated);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+
+        /**
+         * Удаляет таблицы сеанса и возвращает соединение в пул.
+         */
+        @Override
+        public void close() throws SQLException {
+            try (Statement st = conn.createStatement()) {
+                conn.rollback();
+                st.execute("DROP TABLE IF EXISTS " + BATCH_TABLE + ", " + SEEN_TABLE);
+                conn.commit();
+            } finally {
+                conn.close();
+            }
+        }
+    }
 
     //Деактивирует вакансии по списку URL.
     public void deactivateByUrls(List<String> urls) throws SQLException {
@@ -0,0 +1,12 @@
+package org.example.repository;
+
+/**
+ * MinHash-сигнатура вакансии для поиска дублей.
+ *
+ * @param id          id вакансии
+ * @param source      сайт, с которого выгружена вакансия
+ * @param minhash     закодированная сигнатура (с отпечатком параметров)
+ * @param canonicalId текущий представитель группы или {@code null}, если группа ещё не назначалась
+ */
+public record VacancySignature(long id, String source, byte[] minhash, Long canonicalId) {
+}
@@ -0,0 +1,89 @@
+package org.example.repository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Порядок сортировки вакансий для постраничного (keyset) просмотра.
+ * <p>
+ * Ключ сортировки — набор выражений без NULL плюс id для однозначности, все в одном
+ * направлении. Поэтому переход на следующую страницу выражается одним сравнением
+ * строк {@code (k1, k2, id) > (?, ?, ?)}, которое PostgreSQL обслуживает индексом
+ * по тем же выражениям, и глубокие страницы читаются так же быстро, как первая.
+ * NULL-значения уходят в конец выдачи через COALESCE с граничными значениями.
+ * {@link #RELEVANCE} — ранг полнотекстового совпадения, он имеет смысл только
+ * при заданных ключевых словах и вычисляется для найденных строк, а не по индексу.
+ */
+public enum VacancySort {
+    PUBLISHED_DESC(false,
+            new SortKey("COALESCE(published_date, '-infinity'::timestamp)", "timestamp"),
+            new SortKey("COALESCE(created_at, '-infinity'::timestamp)", "timestamp")),
+    PUBLISHED_ASC(true,
+            new SortKey("COALESCE(published_date, 'infinity'::timestamp)", "timestamp"),
+            new SortKey("COALESCE(created_at, 'infinity'::timestamp)", "timestamp")),
+    SALARY_DESC(false, new SortKey("COALESCE(salary_to, salary_from, -1)", "integer")),
+    SALARY_ASC(true, new SortKey("COALESCE(salary_from, salary_to, 2147483647)", "integer")),
+    COMPANY(true,
+            new SortKey("(company IS NULL)", "boolean"),
+            new SortKey("COALESCE(company, '')", "text")),
+    CITY(true,
+            new SortKey("(city IS NULL)", "boolean"),
+            new SortKey("COALESCE(city, '')", "text")),
+    RELEVANCE(false, new SortKey("ts_rank_cd(search_vector, query.q)", "real"));
+
+    /**
+     * Выражение ключа сортировки и SQL-тип, к которому приводится значение из курсора.
+     */
+    public record SortKey(String expression, String sqlType) {
+    }
+
+    private final boolean ascending;
+    private final List<SortKey> keys;
+
+    VacancySort(boolean ascending, SortKey... keys) {
+        this.ascending = ascending;
+        this.keys = List.of(keys);
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public List<SortKey> keys() {
+        return keys;
+    }
+
+    /**
+     * Колонки {@code sort_k0, sort_k1, ...} с текстовыми значениями ключа — из них строится курсор.
+     */
+    String selectKeys() {
+        return IntStream.range(0, keys.size())
+                .mapToObj(i -> "CAST(" + keys.get(i).expression() + " AS text) AS sort_k" + i)
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * ORDER BY по ключу и id; при {@code reversed} направление меняется на обратное
+     * (используется для перехода на предыдущую страницу).
+     */
+    String orderBy(boolean reversed) {
+        String dir = ascending != reversed ? "ASC" : "DESC";
+        return keys.stream()
+                .map(k -> k.expression() + " " + dir)
+                .collect(Collectors.joining(", ")) + ", id " + dir;
+    }
+
+    /**
+     * Условие «строго после» (или «строго до» при {@code backward}) позиции курсора.
+     * Параметры: значения ключа по порядку, затем id.
+     */
+    String seekPredicate(boolean backward) {
+        String left = keys.stream().map(SortKey::expression).collect(Collectors.joining(", "));
+        String right = keys.stream()
+                .map(k -> "CAST(? AS " + k.sqlType() + ")")
+                .collect(Collectors.joining(", "));
+        String op = ascending != backward ? ">" : "<";
+        return "(" + left + ", id) " + op + " (" + right + ", ?)";
+    }
+}
@@ -1,61 +1,712 @@
 package org.example.service;
 
+import org.example.config.Config;
+import org.example.dedup.VacancyDeduplicator;
+import org.example.history.ChangeHistoryMaintenance;
+import org.example.history.HistoryResult;
+import org.example.model.ContentHash;
 import org.example.model.Vacancy;
 import org.example.parser.VacancyParser;
+import org.example.repository.BatchResult;
+import org.example.repository.ReconcileResult;
+import org.example.repository.SyncWatermark;
+import org.example.repository.VacancyBulkLoader;
 import org.example.repository.VacancyRepository;
+import org.example.spool.VacancySpool;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
  * Сервис для управления парсерами вакансий и их синхронизацией с БД.
  * Обрабатывает добавление новых, обновление существующих и удаление устаревших вакансий.
+ * <p>
+ * Каждый парсер выполняется в своём виртуальном потоке со своим сроком; результаты
+ * объединяются по мере готовности, поэтому время выгрузки определяется самым медленным
+ * источником, а не суммой. Парсер, не уложившийся в срок, отменяется. Вакансии источников,
+ * выгрузка которых не завершилась, не помечаются удалёнными.
+ * <p>
+ * Инкрементальный режим ({@code sync.incremental}): после успешной выгрузки источника
+ * время запуска сохраняется как его водяной знак, и следующая выгрузка запрашивает только
+ * вакансии, опубликованные после него (с запасом {@code sync.incremental.overlapMinutes}).
+ * Инкрементальная выгрузка неполная, поэтому удалённые вакансии по ней не определяются —
+ * для этого раз в {@code sync.fullCrawlIntervalHours} источник выгружается полностью.
+ * <p>
+ * Конвейерный режим ({@link SyncMode#PIPELINED}): парсеры отдают страницы в ограниченную
+ * очередь ({@code sync.pipeline.queuePages}), а запись в БД порциями по
+ * {@code sync.pipeline.batchSize} идёт параллельно с выгрузкой. Если запись отстаёт,
+ * парсеры ждут свободного места в очереди, так что в памяти не копится вся выгрузка.
  */
 public class VacancyParserService {
+
+    private static final long PIPELINE_POLL_MILLIS = 100;
+
+    /**
+     * Способ синхронизации выгрузки с БД.
+     */
+    public enum SyncMode {
+        /** Построчная проверка и запись каждой вакансии. */
+        PER_ROW,
+        /** Загрузка выгрузки во временную таблицу и множественные SQL-запросы. */
+        SET_BASED,
+        /** Запись порциями по мере выгрузки, параллельно с ней. */
+        PIPELINED;
+
+        public static SyncMode fromConfig() {
+            String value = Config.get("sync.mode", "set").trim();
+            if ("row".equalsIgnoreCase(value)) {
+                return PER_ROW;
+            }
+            return "pipelined".equalsIgnoreCase(value) ? PIPELINED : SET_BASED;
+        }
+    }
+
     private final List<VacancyParser> parsers;
     private final VacancyRepository vacancyRepository;
+    private final SyncMode syncMode;
+    private final VacancyBulkLoader bulkLoader;
+    private final Duration sourceTimeout;
+    private final boolean incremental;
+    private final Duration fullCrawlInterval;
+    private final Duration overlap;
+    private final int pipelineQueuePages;
+    private final int pipelineBatchSize;
+    private final VacancyDeduplicator deduplicator;
+    private final ChangeHistoryMaintenance historyMaintenance;
+    private final VacancySpool spool;
 
     public VacancyParserService(VacancyRepository vacancyRepository, List<VacancyParser> parsers) {
+        this(vacancyRepository, parsers, SyncMode.PER_ROW);
+    }
+
+    public VacancyParserService(VacancyRepository vacancyRepository, List<VacancyParser> parsers, SyncMode syncMode) {
+        this(vacancyRepository, parsers, syncMode, null);
+    }
+
+    /**
+     * @param bulkLoader загрузчик через COPY; если задан, новые вакансии в количестве
+     *                   не меньше {@link VacancyRepository#copyThreshold()} записываются через него,
+     *                   а не построчно
+     */
+    public VacancyParserService(VacancyRepository vacancyRepository,
+                                List<VacancyParser> parsers,
+                                SyncMode syncMode,
+                                VacancyBulkLoader bulkLoader) {
+        this(vacancyRepository, parsers, syncMode, bulkLoader,
+                Duration.ofSeconds(Config.getLong("sync.source.timeoutSeconds", 300)));
+    }
+
+    /**
+     * @param sourceTimeout срок выгрузки одного источника; для отдельного источника его можно
+     *                      переопределить ключом {@code sync.source.timeoutSeconds.<source>}
+     */
+    public VacancyParserService(VacancyRepository vacancyRepository,
+                                List<VacancyParser> parsers,
+                                SyncMode syncMode,
+                                VacancyBulkLoader bulkLoader,
+                                Duration sourceTimeout) {
+        this(vacancyRepository, parsers, syncMode, bulkLoader, sourceTimeout, null);
+    }
+
+    /**
+     * @param spool локальный журнал выгрузок; если задан, выгрузка сначала записывается в него
+     *              и попадает в БД из него, поэтому недоступность БД не теряет выгрузку
+     */
+    public VacancyParserService(VacancyRepository vacancyRepository,
+                                List<VacancyParser> parsers,
+                                SyncMode syncMode,
+                                VacancyBulkLoader bulkLoader,
+                                Duration sourceTimeout,
+                                VacancySpool spool) {
         this.vacancyRepository = vacancyRepository;
         this.parsers = parsers;
+        this.syncMode = syncMode;
+        this.bulkLoader = bulkLoader;
+        this.sourceTimeout = sourceTimeout;
+        this.incremental = Config.getBoolean("sync.incremental", true);
+        this.fullCrawlInterval = Duration.ofHours(Config.getLong("sync.fullCrawlIntervalHours", 24));
+        this.overlap = Duration.ofMinutes(Config.getLong("sync.incremental.overlapMinutes", 10));
+        this.pipelineQueuePages = Config.getInt("sync.pipeline.queuePages", 16);
+        this.pipelineBatchSize = Config.getInt("sync.pipeline.batchSize", 500);
+        this.deduplicator = Config.getBoolean("dedup.enabled", true)
+                ? VacancyDeduplicator.fromConfig(vacancyRepository)
+                : null;
+        this.historyMaintenance = Config.getBoolean("history.enabled", true)
+                ? ChangeHistoryMaintenance.fromConfig(vacancyRepository)
+                : null;
+        this.spool = spool;
+    }
+
+    /**
+     * Результат выгрузки всех источников.
+     *
+     * @param vacancies  вакансии завершившихся источников
+     * @param incomplete  источники, выгрузка которых не завершилась
+     * @param complete    {@code false}, если не завершился источник с неизвестным именем —
+     *                    тогда удалять нельзя ничего
+     * @param incremental завершившиеся источники, выгруженные инкрементально
+     * @param fullCrawls  завершившиеся источники, выгруженные полностью
+     */
+    private record FetchResult(List<Vacancy> vacancies,
+                               Set<String> incomplete,
+                               boolean complete,
+                               Set<String> incremental,
+                               Set<String> fullCrawls) {
+
+        /** Источники, вакансии которых нельзя помечать удалёнными по этой выгрузке. */
+        Set<String> preserved() {
+            Set<String> preserved = new HashSet<>(incomplete);
+            preserved.addAll(incremental);
+            return preserved;
+        }
     }
 
     public void parseAndSaveAll() {
         LocalDateTime now = LocalDateTime.now();
+        maintainHistory(now);
 
-        List<Vacancy> allFetched = new ArrayList<>();
-        for (VacancyParser parser : parsers) {
+        // Выгрузки из спула записываются раньше новой, а пока БД недоступна, новая не нужна:
+        // после восстановления она пойдёт инкрементально от записанной из спула
+        if (spool != null && drainSpool() < 0) {
+            System.err.println("[VacancyParserService] В спуле остались незаписанные выгрузки, " +
+                    "новая выгрузка пропущена до восстановления БД");
+            return;
+        }
+
+        if (syncMode == SyncMode.PIPELINED) {
+            VacancyRepository.SyncSession session;
+            try {
+                session = vacancyRepository.openSyncSession();
+            } catch (SQLException e) {
+                System.err.println("[VacancyParserService] Не удалось открыть сеанс конвейерной " +
+                        "синхронизации, переход на построчный режим: " + e.getMessage());
+                session = null;
+            }
+            if (session != null) {
+                if (syncPipelined(session, now)) {
+                    afterSync(now);
+                }
+                return;
+            }
+        }
+
+        FetchResult fetched;
+        try {
+            fetched = fetchAll(loadWatermarks(), now, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("[VacancyParserService] Выгрузка прервана, синхронизация пропущена");
+            return;
+        }
+
+        if (spool != null) {
             try {
-                allFetched.addAll(parser.fetchVacancies());
-            } catch (Exception e) {
-                System.err.printf("[VacancyParserService] Ошибка парсера %s: %s%n",
-                        parser.getClass().getSimpleName(), e.getMessage());
+                spool.append(header(fetched, now), fetched.vacancies());
+                drainSpool();
+                return;
+            } catch (IOException e) {
+                System.err.println("[VacancyParserService] Выгрузка не записана в спул, запись напрямую: " +
+                        e.getMessage());
+            }
+        }
+        write(fetched, now);
+    }
+
+    /**
+     * Записывает выгрузку в БД выбранным способом и сохраняет водяные знаки.
+     *
+     * @param now время выгрузки
+     * @return {@code true}, если выгрузка записана
+     */
+    private boolean write(FetchResult fetched, LocalDateTime now) {
+        List<Vacancy> allFetched = fetched.vacancies();
+
+        if (syncMode == SyncMode.SET_BASED && fetched.complete()) {
+            try {
+                ReconcileResult result = vacancyRepository.reconcile(allFetched, now, fetched.preserved());
+                System.out.printf("[VacancyParserService] Синхронизация: загружено %d, добавлено %d, " +
+                                "восстановлено %d, изменено %d, удалено %d%n",
+                        result.staged(), result.added(), result.reactivated(), result.updated(),
+                        result.removed());
+                saveWatermarks(fetched, now);
+                afterSync(now);
+                return true;
+            } catch (SQLException e) {
+                System.err.println("[VacancyParserService] Множественная синхронизация не удалась, " +
+                        "переход на построчный режим: " + e.getMessage());
+            }
+        }
+
+        boolean removeMissing = fetched.complete() && fetched.preserved().isEmpty();
+        if (syncPerRow(allFetched, now, removeMissing)) {
+            saveWatermarks(fetched, now);
+            afterSync(now);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Записывает в БД выгрузки из спула по порядку и удаляет записанные сегменты.
+     * Останавливается на первой неудаче (обычно БД недоступна), чтобы не нарушить порядок:
+     * следующая попытка — при следующем вызове. Вызывается перед каждой выгрузкой
+     * и периодически в фоне.
+     *
+     * @return сколько выгрузок записано или -1, если в спуле остались незаписанные
+     */
+    public synchronized int drainSpool() {
+        if (spool == null) {
+            return 0;
+        }
+        int written = 0;
+        try {
+            for (Path file : spool.pending()) {
+                VacancySpool.Segment segment;
+                try {
+                    segment = spool.read(file);
+                } catch (IOException e) {
+                    System.err.println("[VacancyParserService] Сегмент спула повреждён и отложен: " + e.getMessage());
+                    spool.quarantine(file);
+                    continue;
+                }
+                VacancySpool.Header header = segment.header();
+                FetchResult fetched = new FetchResult(segment.vacancies(), header.incomplete(), header.complete(),
+                        header.incremental(), header.fullCrawls());
+                if (!write(fetched, header.syncTime())) {
+                    System.err.println("[VacancyParserService] Выгрузка " + header.syncTime() +
+                            " оставлена в спуле до следующей попытки");
+                    return -1;
+                }
+                spool.delete(file);
+                written++;
             }
+        } catch (IOException e) {
+            System.err.println("[VacancyParserService] Ошибка чтения спула: " + e.getMessage());
+            return -1;
         }
+        return written;
+    }
 
-        Set<String> existingActiveUrls;
+    /**
+     * Готовит секции журнала изменений до записи выгрузки и сворачивает устаревшие.
+     * Ошибка обслуживания на саму синхронизацию не влияет: события без секции
+     * попадут в секцию по умолчанию.
+     */
+    private void maintainHistory(LocalDateTime now) {
+        if (historyMaintenance == null) {
+            return;
+        }
         try {
-            existingActiveUrls = new HashSet<>(vacancyRepository.findAllActiveUrls());
+            HistoryResult result = historyMaintenance.run(YearMonth.from(now));
+            if (result.changed()) {
+                System.out.println("[VacancyParserService] Журнал изменений: " + result);
+            }
         } catch (SQLException e) {
-            System.err.println("Не удалось получить список active URLs: " + e.getMessage());
+            System.err.println("[VacancyParserService] Обслуживание журнала изменений не удалось: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Обработка после успешной записи выгрузки: поиск дублей и контрольная точка истории.
+     */
+    private void afterSync(LocalDateTime now) {
+        deduplicate();
+        checkpoint(now);
+    }
+
+    /**
+     * Записывает контрольную точку для запросов «на момент T», если подошёл срок.
+     */
+    private void checkpoint(LocalDateTime now) {
+        if (historyMaintenance == null) {
+            return;
+        }
+        try {
+            int size = historyMaintenance.checkpoint(now);
+            if (size >= 0) {
+                System.out.println("[VacancyParserService] Контрольная точка истории: " + size + " вакансий");
+            }
+        } catch (SQLException e) {
+            System.err.println("[VacancyParserService] Контрольная точка не записана: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Связывает одинаковые вакансии разных источников после записи выгрузки.
+     * Ошибка поиска дублей на саму синхронизацию не влияет.
+     */
+    private void deduplicate() {
+        if (deduplicator == null) {
             return;
         }
+        try {
+            System.out.println("[VacancyParserService] Дубли: " + deduplicator.run());
+        } catch (SQLException e) {
+            System.err.println("[VacancyParserService] Поиск дублей не удался: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Конвейерная синхронизация: выгрузка идёт в отдельном виртуальном потоке и отдаёт
+     * страницы в очередь, а текущий поток записывает их порциями. Порция уходит в БД,
+     * когда набрано sync.pipeline.batchSize вакансий или очередь опустела, — запись
+     * не простаивает, пока парсеры ждут ответа источника. Удалённые вакансии помечаются
+     * в конце, когда известно, какие источники выгрузились полностью. Если запись
+     * не удалась, выгрузка отменяется, а парсеры, ждущие места в очереди, прерываются.
+     * <p>
+     * Если задан спул, каждая страница до записи в БД дописывается в сегмент. При ошибке
+     * записи выгрузка не отменяется: она продолжается только в сегмент, который затем
+     * фиксируется и будет записан {@link #drainSpool()} после восстановления БД.
+     * При успешной синхронизации сегмент не нужен и удаляется.
+     *
+     * @return {@code true}, если синхронизация завершена
+     */
+    private boolean syncPipelined(VacancyRepository.SyncSession session, LocalDateTime now) {
+        BlockingQueue<List<Vacancy>> queue = new ArrayBlockingQueue<>(pipelineQueuePages);
+        Map<String, SyncWatermark> watermarks = loadWatermarks();
+        FutureTask<FetchResult> fetch = new FutureTask<>(() -> fetchAll(watermarks, now, page -> {
+            if (!page.isEmpty()) {
+                queue.put(page);
+            }
+        }));
+        Thread.ofVirtual().name("vacancy-fetch").start(fetch);
+
+        VacancySpool.Writer spooled = openSpoolSegment();
+        try (session) {
+            List<Vacancy> batch = new ArrayList<>(pipelineBatchSize);
+            boolean writing = true;
+            while (true) {
+                List<Vacancy> page = queue.poll(PIPELINE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (page != null) {
+                    spooled = spoolPage(spooled, page);
+                    if (writing) {
+                        batch.addAll(page);
+                    }
+                }
+                if (writing && (batch.size() >= pipelineBatchSize || (!batch.isEmpty() && queue.isEmpty()))) {
+                    try {
+                        session.write(batch, now);
+                    } catch (SQLException e) {
+                        if (spooled == null) {
+                            throw e;
+                        }
+                        System.err.println("[VacancyParserService] Ошибка записи, выгрузка продолжается " +
+                                "в спул: " + e.getMessage());
+                        writing = false;
+                    }
+                    batch = new ArrayList<>(pipelineBatchSize);
+                }
+                if (page == null && fetch.isDone() && queue.isEmpty()) {
+                    break;
+                }
+            }
+
+            FetchResult fetched = fetch.get();
+            if (writing) {
+                try {
+                    ReconcileResult result = session.finish(now, fetched.preserved(), fetched.complete());
+                    System.out.printf("[VacancyParserService] Конвейерная синхронизация: загружено %d, " +
+                                    "добавлено %d, восстановлено %d, изменено %d, удалено %d%n",
+                            result.staged(), result.added(), result.reactivated(), result.updated(),
+                            result.removed());
+                    saveWatermarks(fetched, now);
+                    return true;
+                } catch (SQLException e) {
+                    if (spooled == null) {
+                        throw e;
+                    }
+                    System.err.println("[VacancyParserService] Ошибка завершения синхронизации: " + e.getMessage());
+                }
+            }
+            try {
+                spooled.commit(header(fetched, now));
+                System.err.println("[VacancyParserService] Выгрузка сохранена в спул и будет записана " +
+                        "после восстановления БД");
+            } catch (IOException e) {
+                System.err.println("[VacancyParserService] Выгрузка не записана в спул и потеряна: " +
+                        e.getMessage());
+            }
+        } catch (SQLException e) {
+            System.err.println("[VacancyParserService] Ошибка записи, синхронизация прервана: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("[VacancyParserService] Выгрузка прервана, синхронизация пропущена");
+        } catch (ExecutionException e) {
+            System.err.println("[VacancyParserService] Ошибка выгрузки: " + e.getCause().getMessage());
+        } finally {
+            fetch.cancel(true);
+            if (spooled != null) {
+                spooled.close();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Сегмент спула для конвейерной выгрузки или {@code null}, если спул не задан
+     * или недоступен — тогда синхронизация идёт без него.
+     */
+    private VacancySpool.Writer openSpoolSegment() {
+        if (spool == null) {
+            return null;
+        }
+        try {
+            return spool.open();
+        } catch (IOException e) {
+            System.err.println("[VacancyParserService] Конвейерная выгрузка идёт без спула: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Дописывает страницу в сегмент; при ошибке диска сегмент бросается,
+     * а синхронизация продолжается без спула.
+     *
+     * @return сегмент или {@code null}, если писать в него больше нельзя
+     */
+    private static VacancySpool.Writer spoolPage(VacancySpool.Writer spooled, List<Vacancy> page) {
+        if (spooled == null) {
+            return null;
+        }
+        try {
+            spooled.write(page);
+            return spooled;
+        } catch (IOException e) {
+            System.err.println("[VacancyParserService] Конвейерная выгрузка продолжается без спула: " +
+                    e.getMessage());
+            spooled.close();
+            return null;
+        }
+    }
+
+    private static VacancySpool.Header header(FetchResult fetched, LocalDateTime now) {
+        return new VacancySpool.Header(now, fetched.incomplete(), fetched.complete(),
+                fetched.incremental(), fetched.fullCrawls());
+    }
+
+    /**
+     * Водяные знаки источников; пустая карта, если инкрементальный режим выключен
+     * или их не удалось прочитать, — тогда все источники выгружаются полностью.
+     */
+    private Map<String, SyncWatermark> loadWatermarks() {
+        if (!incremental) {
+            return Map.of();
+        }
+        try {
+            Map<String, SyncWatermark> watermarks = vacancyRepository.findWatermarks();
+            return watermarks != null ? watermarks : Map.of();
+        } catch (SQLException e) {
+            System.err.println("[VacancyParserService] Не удалось прочитать водяные знаки, " +
+                    "полная выгрузка: " + e.getMessage());
+            return Map.of();
+        }
+    }
+
+    /**
+     * Нижняя граница инкрементальной выгрузки источника или {@code null}, если нужна полная:
+     * водяного знака нет или последняя полная выгрузка старше sync.fullCrawlIntervalHours.
+     */
+    private LocalDateTime sinceFor(VacancyParser parser, Map<String, SyncWatermark> watermarks, LocalDateTime now) {
+        SyncWatermark watermark = parser.source() != null ? watermarks.get(parser.source()) : null;
+        if (watermark == null || watermark.fullCrawlAt() == null
+                || watermark.fullCrawlAt().plus(fullCrawlInterval).isBefore(now)) {
+            return null;
+        }
+        return watermark.fetchedAt().minus(overlap);
+    }
+
+    /**
+     * Сохраняет время запуска как водяной знак каждого завершившегося источника.
+     * Отсчёт ведётся от начала выгрузки, чтобы не пропустить вакансии, опубликованные во время неё.
+     */
+    private void saveWatermarks(FetchResult fetched, LocalDateTime runStart) {
+        if (!incremental) {
+            return;
+        }
+        Set<String> completed = new HashSet<>(fetched.incremental());
+        completed.addAll(fetched.fullCrawls());
+        for (String source : completed) {
+            boolean fullCrawl = fetched.fullCrawls().contains(source);
+            try {
+                vacancyRepository.saveWatermark(new SyncWatermark(source, runStart, fullCrawl ? runStart : null));
+            } catch (SQLException e) {
+                System.err.println("[VacancyParserService] Не удалось сохранить водяной знак " +
+                        source + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Запускает все парсеры параллельно в виртуальных потоках и собирает результаты по мере готовности.
+     * Парсер, не завершившийся к своему сроку, отменяется (поток прерывается).
+     *
+     * @param sink если задан, страницы передаются в него по мере выгрузки, а в результате
+     *             вакансий нет; страницы отменённого парсера могут быть уже переданы
+     */
+    private FetchResult fetchAll(Map<String, SyncWatermark> watermarks, LocalDateTime runStart,
+                                 VacancyParser.PageSink sink) throws InterruptedException {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        CompletionService<List<Vacancy>> completion = new ExecutorCompletionService<>(executor);
+        Map<Future<List<Vacancy>>, VacancyParser> pending = new HashMap<>();
+        Map<Future<List<Vacancy>>, Long> deadlines = new HashMap<>();
+        Set<VacancyParser> incrementalParsers = Collections.newSetFromMap(new IdentityHashMap<>());
+        Map<VacancyParser, AtomicInteger> emitted = new IdentityHashMap<>();
+        long start = System.nanoTime();
+        for (VacancyParser parser : parsers) {
+            LocalDateTime since = sinceFor(parser, watermarks, runStart);
+            if (since != null) {
+                incrementalParsers.add(parser);
+            }
+            Future<List<Vacancy>> future;
+            if (sink != null) {
+                AtomicInteger count = emitted.computeIfAbsent(parser, p -> new AtomicInteger());
+                future = completion.submit(() -> {
+                    parser.fetchVacancies(since, page -> {
+                        count.addAndGet(page.size());
+                        sink.accept(page);
+                    });
+                    return List.of();
+                });
+            } else if (since == null) {
+                future = completion.submit(parser::fetchVacancies);
+            } else {
+                future = completion.submit(() -> parser.fetchVacancies(since));
+            }
+            pending.put(future, parser);
+            deadlines.put(future, start + timeoutFor(parser).toNanos());
+        }
+
+        List<Vacancy> all = new ArrayList<>();
+        Set<String> incomplete = new HashSet<>();
+        Set<String> incremental = new HashSet<>();
+        Set<String> fullCrawls = new HashSet<>();
+        boolean complete = true;
+        try {
+            while (!pending.isEmpty()) {
+                long nearest = Collections.min(deadlines.values());
+                Future<List<Vacancy>> done = completion.poll(nearest - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    long now = System.nanoTime();
+                    for (Future<List<Vacancy>> f : List.copyOf(pending.keySet())) {
+                        if (deadlines.get(f) - now <= 0) {
+                            f.cancel(true);
+                            VacancyParser parser = pending.remove(f);
+                            deadlines.remove(f);
+                            System.err.printf("[VacancyParserService] Парсер %s не уложился в %d мс и отменён%n",
+                                    name(parser), timeoutFor(parser).toMillis());
+                            complete &= markIncomplete(parser, incomplete);
+                        }
+                    }
+                    continue;
+                }
+                VacancyParser parser = pending.remove(done);
+                if (parser == null) {
+                    continue;  // уже отменён по сроку
+                }
+                deadlines.remove(done);
+                try {
+                    List<Vacancy> vacancies = done.get();
+                    all.addAll(vacancies);
+                    boolean isIncremental = incrementalParsers.contains(parser);
+                    if (parser.source() != null) {
+                        (isIncremental ? incremental : fullCrawls).add(parser.source());
+                    }
+                    System.out.printf("[VacancyParserService] %s: %d вакансий за %d мс%s%n", name(parser),
+                            vacancies.size() + (sink != null ? emitted.get(parser).get() : 0), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                            isIncremental ? " (инкрементально)" : "");
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    System.err.printf("[VacancyParserService] Ошибка парсера %s: %s%n",
+                            name(parser), cause.getMessage());
+                    complete &= markIncomplete(parser, incomplete);
+                }
+            }
+        } finally {
+            pending.keySet().forEach(f -> f.cancel(true));
+            executor.shutdownNow();
+        }
+        return new FetchResult(all, incomplete, complete, incremental, fullCrawls);
+    }
+
+    private Duration timeoutFor(VacancyParser parser) {
+        String key = "sync.source.timeoutSeconds." + parser.source();
+        if (parser.source() == null || Config.get(key) == null) {
+            return sourceTimeout;
+        }
+        return Duration.ofSeconds(Config.getLong(key, sourceTimeout.toSeconds()));
+    }
+
+    private static boolean markIncomplete(VacancyParser parser, Set<String> incomplete) {
+        String source = parser.source();
+        if (source == null) {
+            return false;
+        }
+        incomplete.add(source);
+        return true;
+    }
+
+    private static String name(VacancyParser parser) {
+        return parser.source() != null ? parser.source() : parser.getClass().getSimpleName();
+    }
+
+    /**
+     * Построчная синхронизация: отдельные запросы на каждую вакансию.
+     *
+     * @param removeMissing помечать ли удалёнными вакансии, которых нет в выгрузке;
+     *                      {@code false}, если выгрузка какого-либо источника не завершилась
+     *                      или была инкрементальной
+     * @return {@code false}, если синхронизацию не удалось начать или соединение с БД
+     *         пропало по ходу записи — тогда выгрузка записана частично и её нужно повторить
+     *         (повтор безопасен: существующие вакансии проверяются по URL)
+     */
+    private boolean syncPerRow(List<Vacancy> allFetched, LocalDateTime now, boolean removeMissing) {
+        Map<String, String> activeHashes;
+        try {
+            activeHashes = vacancyRepository.findActiveContentHashes();
+        } catch (SQLException e) {
+            System.err.println("Не удалось получить список active URLs: " + e.getMessage());
+            return false;
+        }
+        Set<String> existingActiveUrls = activeHashes.keySet();
 
         Set<String> fetchedUrls = allFetched.stream()
                 .map(Vacancy::getUrl)
                 .collect(Collectors.toSet());
 
         List<Vacancy> toAddOrReactivate = new ArrayList<>();
+        List<Vacancy> newVacancies = new ArrayList<>();
         for (Vacancy v : allFetched) {
             String url = v.getUrl();
             try {
                 if (!vacancyRepository.existsByUrl(url)) {
                     toAddOrReactivate.add(v);
+                    newVacancies.add(v);
                 }
                 else if (!existingActiveUrls.contains(url)) {
                     Long oldId = vacancyRepository.findIdByUrl(url);
@@ -64,12 +715,37 @@ public class VacancyParserService {
                 }
             } catch (SQLException ex) {
                 System.err.println("Ошибка проверки existsByUrl для " + url + ": " + ex.getMessage());
+                if (isConnectionFailure(ex)) {
+                    return false;
+                }
             }
         }
 
-        List<String> toRemoveUrls = existingActiveUrls.stream()
-                .filter(url -> !fetchedUrls.contains(url))
-                .collect(Collectors.toList());
+        List<String> toRemoveUrls = removeMissing
+                ? existingActiveUrls.stream()
+                        .filter(url -> !fetchedUrls.contains(url))
+                        .collect(Collectors.toList())
+                : List.of();
+
+        // Большую порцию новых вакансий загружаем через COPY
+        if (bulkLoader != null && newVacancies.size() >= vacancyRepository.copyThreshold()) {
+            try {
+                for (Vacancy v : newVacancies) {
+                    v.setIsActive(true);
+                    v.setClosedAt(null);
+                }
+                long count = bulkLoader.copyNewVacancies(newVacancies, now);
+                System.out.println("[VacancyParserService] Загружено через COPY: " + count);
+                Set<Vacancy> copied = Collections.newSetFromMap(new IdentityHashMap<>());
+                copied.addAll(newVacancies);
+                toAddOrReactivate.removeIf(copied::contains);
+            } catch (SQLException ex) {
+                System.err.println("Ошибка загрузки через COPY, переход на построчную запись: " + ex.getMessage());
+                if (isConnectionFailure(ex)) {
+                    return false;
+                }
+            }
+        }
 
         // Обработка новых и обновленных вакансий
         for (Vacancy v : toAddOrReactivate) {
@@ -102,6 +778,48 @@ public class VacancyParserService {
             } catch (SQLException ex) {
                 System.err.println("Ошибка при сохранении/обновлении вакансии "
                         + v.getUrl() + ": " + ex.getMessage());
+                if (isConnectionFailure(ex)) {
+                    return false;
+                }
+            }
+        }
+
+        // Активные вакансии, содержимое которых изменилось: хэш выгрузки не совпал с сохранённым
+        List<Vacancy> changed = allFetched.stream()
+                .filter(v -> existingActiveUrls.contains(v.getUrl()))
+                .filter(v -> !ContentHash.ofStored(v).equals(activeHashes.get(v.getUrl())))
+                .collect(Collectors.toList());
+        if (!changed.isEmpty()) {
+            try {
+                BatchResult result = vacancyRepository.updateContent(changed, now);
+                System.out.println("[VacancyParserService] Изменено вакансий: " + result.succeeded());
+                if (result.hasFailures()) {
+                    System.err.println("Не записаны изменения вакансий: " + result.failures().size());
+                }
+            } catch (SQLException ex) {
+                System.err.println("Ошибка записи изменённых вакансий: " + ex.getMessage());
+                if (isConnectionFailure(ex)) {
+                    return false;
+                }
+            }
+        }
+
+        // Описания, дозапрошенные парсером для уже известных вакансий
+        Map<String, String> descriptions = new HashMap<>();
+        for (Vacancy v : allFetched) {
+            if (v.getDescription() != null && existingActiveUrls.contains(v.getUrl())) {
+                descriptions.put(v.getUrl(), v.getDescription());
+            }
+        }
+        try {
+            BatchResult written = vacancyRepository.saveDescriptions(descriptions);
+            if (written != null && written.hasFailures()) {
+                System.err.println("Не записаны описания вакансий: " + written.failures().size());
+            }
+        } catch (SQLException ex) {
+            System.err.println("Ошибка записи описаний вакансий: " + ex.getMessage());
+            if (isConnectionFailure(ex)) {
+                return false;
             }
         }
 
@@ -128,7 +846,27 @@ public class VacancyParserService {
                 );
             } catch (SQLException ex) {
                 System.err.println("Ошибка при пометке вакансии как удалённой: " + ex.getMessage());
+                if (isConnectionFailure(ex)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Потеряно ли соединение с БД (SQLState класса 08 или ошибка пула): в отличие от ошибки
+     * отдельной строки, дальнейшая запись бессмысленна, и выгрузку нельзя считать записанной.
+     */
+    static boolean isConnectionFailure(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLTransientConnectionException || t instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+            if (t instanceof SQLException sql && sql.getSQLState() != null && sql.getSQLState().startsWith("08")) {
+                return true;
             }
         }
+        return false;
     }
 }
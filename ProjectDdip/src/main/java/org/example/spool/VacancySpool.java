@@ -0,0 +1,307 @@
+package org.example.spool;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.example.config.Config;
+import org.example.model.Vacancy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Локальный журнал выгрузок перед записью в БД.
+ * <p>
+ * Каждая выгрузка пишется в отдельный сегмент {@code segment-<номер>.log}: порции вакансий
+ * по мере выгрузки, заголовок (время и итог выгрузки по источникам, известный только в конце)
+ * и завершающая запись с числом вакансий.
+ * Запись кадра — тип, длина, CRC32 и JSON. Сегмент пишется под именем {@code .part}
+ * и после {@code fsync} атомарно переименовывается, поэтому недописанный при сбое сегмент
+ * никогда не считается готовым. При чтении сегмент отображается в память и проверяется
+ * целиком: сегмент с испорченным кадром откладывается с расширением {@code .corrupt}.
+ * Сегмент удаляется, только когда его данные записаны в БД.
+ */
+public class VacancySpool {
+
+    /**
+     * Итог выгрузки, нужный, чтобы записать её позже так же, как сразу.
+     *
+     * @param syncTime    время выгрузки — время событий в журнале изменений и водяных знаков
+     * @param incomplete  источники, выгрузка которых не завершилась
+     * @param complete    {@code false}, если не завершился источник с неизвестным именем
+     * @param incremental источники, выгруженные инкрементально
+     * @param fullCrawls  источники, выгруженные полностью
+     */
+    public record Header(LocalDateTime syncTime,
+                         Set<String> incomplete,
+                         boolean complete,
+                         Set<String> incremental,
+                         Set<String> fullCrawls) {
+    }
+
+    /**
+     * Прочитанный сегмент.
+     */
+    public record Segment(Path file, Header header, List<Vacancy> vacancies) {
+    }
+
+    private record Trailer(int vacancies) {
+    }
+
+    private static final byte HEADER = 1;
+    private static final byte CHUNK = 2;
+    private static final byte TRAILER = 3;
+    private static final int FRAME_HEADER_BYTES = 1 + 4 + 4;
+    private static final int CHUNK_SIZE = 500;
+    private static final Pattern SEGMENT = Pattern.compile("segment-(\\d+)\\.log");
+    private static final TypeReference<List<Vacancy>> VACANCIES = new TypeReference<>() {
+    };
+
+    private final Path dir;
+    private final long maxBytes;
+    private final ObjectMapper mapper;
+    private final AtomicLong sequence;
+
+    /**
+     * @param maxBytes предел суммарного размера готовых сегментов
+     */
+    public VacancySpool(Path dir, long maxBytes) throws IOException {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        Files.createDirectories(dir);
+        long last = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".part")) {
+                    System.err.println("[VacancySpool] Удалён недописанный сегмент " + name);
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                Matcher m = SEGMENT.matcher(name.replace(".corrupt", ""));
+                if (m.matches()) {
+                    last = Math.max(last, Long.parseLong(m.group(1)));
+                }
+            }
+        }
+        this.sequence = new AtomicLong(last);
+    }
+
+    /**
+     * Спул по настройкам {@code spool.*} или {@code null}, если он выключен
+     * или каталог недоступен.
+     */
+    public static VacancySpool fromConfig() {
+        if (!Config.getBoolean("spool.enabled", true)) {
+            return null;
+        }
+        Path dir = Paths.get(Config.get("spool.dir", ".spool"));
+        long maxBytes = Config.getLong("spool.maxMegabytes", 512) * 1024 * 1024;
+        try {
+            return new VacancySpool(dir, maxBytes);
+        } catch (IOException e) {
+            System.err.println("[VacancySpool] Спул отключён, каталог недоступен: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Записывает выгрузку в новый сегмент и дожидается её попадания на диск.
+     *
+     * @return готовый сегмент
+     * @throws IOException если запись не удалась или спул переполнен
+     */
+    public Path append(Header header, List<Vacancy> vacancies) throws IOException {
+        try (Writer writer = open()) {
+            for (int from = 0; from < vacancies.size(); from += CHUNK_SIZE) {
+                writer.write(vacancies.subList(from, Math.min(vacancies.size(), from + CHUNK_SIZE)));
+            }
+            return writer.commit(header);
+        }
+    }
+
+    /**
+     * Начинает сегмент, в который выгрузка дописывается по частям.
+     *
+     * @throws IOException если файл не создаётся или спул переполнен
+     */
+    public Writer open() throws IOException {
+        long used = pendingBytes();
+        if (used >= maxBytes) {
+            throw new IOException("спул переполнен: " + used / (1024 * 1024) + " МБ");
+        }
+        Path file = dir.resolve(String.format("segment-%019d.log", sequence.incrementAndGet()));
+        return new Writer(file);
+    }
+
+    /**
+     * Сегмент в процессе записи. Пока не вызван {@link #commit}, он лежит под именем
+     * {@code .part} и при {@link #close} удаляется.
+     */
+    public final class Writer implements AutoCloseable {
+        private final Path file;
+        private final Path part;
+        private final FileChannel channel;
+        private int vacancies;
+        private boolean committed;
+
+        private Writer(Path file) throws IOException {
+            this.file = file;
+            this.part = file.resolveSibling(file.getFileName() + ".part");
+            this.channel = FileChannel.open(part, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+
+        public void write(List<Vacancy> chunk) throws IOException {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            writeFrame(channel, CHUNK, mapper.writeValueAsBytes(chunk));
+            vacancies += chunk.size();
+        }
+
+        /**
+         * Дописывает заголовок и завершающую запись, сбрасывает сегмент на диск
+         * и атомарно делает его готовым.
+         */
+        public Path commit(Header header) throws IOException {
+            writeFrame(channel, HEADER, mapper.writeValueAsBytes(header));
+            writeFrame(channel, TRAILER, mapper.writeValueAsBytes(new Trailer(vacancies)));
+            channel.force(true);
+            channel.close();
+            Files.move(part, file, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+            return file;
+        }
+
+        @Override
+        public void close() {
+            if (committed) {
+                return;
+            }
+            try {
+                channel.close();
+                Files.deleteIfExists(part);
+            } catch (IOException e) {
+                System.err.println("[VacancySpool] Не удалось удалить сегмент " + part.getFileName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static void writeFrame(FileChannel channel, byte type, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_BYTES + payload.length)
+                .put(type)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .flip();
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    /**
+     * Готовые сегменты в порядке записи.
+     */
+    public List<Path> pending() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "segment-*.log")) {
+            for (Path file : files) {
+                segments.add(file);
+            }
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private long pendingBytes() throws IOException {
+        long total = 0;
+        for (Path file : pending()) {
+            total += Files.size(file);
+        }
+        return total;
+    }
+
+    /**
+     * Читает и проверяет сегмент.
+     *
+     * @throws IOException если сегмент не читается или повреждён
+     */
+    public Segment read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Header header = null;
+            List<Vacancy> vacancies = new ArrayList<>();
+            while (buf.hasRemaining()) {
+                if (buf.remaining() < FRAME_HEADER_BYTES) {
+                    throw new IOException("обрезанный кадр в " + file.getFileName());
+                }
+                byte type = buf.get();
+                int length = buf.getInt();
+                int expected = buf.getInt();
+                if (length < 0 || length > buf.remaining()) {
+                    throw new IOException("некорректная длина кадра в " + file.getFileName());
+                }
+                byte[] payload = new byte[length];
+                buf.get(payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != expected) {
+                    throw new IOException("не сошлась контрольная сумма кадра в " + file.getFileName());
+                }
+                switch (type) {
+                    case HEADER -> header = mapper.readValue(payload, Header.class);
+                    case CHUNK -> vacancies.addAll(mapper.readValue(payload, VACANCIES));
+                    case TRAILER -> {
+                        Trailer trailer = mapper.readValue(payload, Trailer.class);
+                        if (header == null || trailer.vacancies() != vacancies.size() || buf.hasRemaining()) {
+                            throw new IOException("сегмент " + file.getFileName() + " не согласован");
+                        }
+                        return new Segment(file, header, vacancies);
+                    }
+                    default -> throw new IOException("неизвестный тип кадра " + type + " в " + file.getFileName());
+                }
+            }
+            throw new IOException("нет завершающей записи в " + file.getFileName());
+        }
+    }
+
+    /**
+     * Удаляет сегмент, данные которого записаны в БД.
+     */
+    public void delete(Path file) throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Откладывает повреждённый сегмент, чтобы он не мешал записи следующих.
+     */
+    public void quarantine(Path file) {
+        try {
+            Files.move(file, file.resolveSibling(file.getFileName() + ".corrupt"), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("[VacancySpool] Не удалось отложить сегмент " + file.getFileName() + ": " + e.getMessage());
+        }
+    }
+}
@@ -5,12 +5,18 @@ import org.example.export.HtmlVacancyExporter;
 import org.example.export.JsonVacancyExporter;
 import org.example.export.VacancyExporter;
 import org.example.model.Vacancy;
+import org.example.repository.Page;
+import org.example.repository.VacancyQuery;
 import org.example.repository.VacancyRepository;
+import org.example.repository.VacancySort;
 import org.example.service.VacancyParserService;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.stream.Stream;
 
 public class ConsoleUI {
     private final VacancyRepository repository;
@@ -22,6 +28,7 @@ public class ConsoleUI {
     private static final String ANSI_GREEN = "\u001B[32m";
     private static final String ANSI_YELLOW = "\u001B[33m";
     private static final String ANSI_CYAN = "\u001B[36m";
+    private static final int PAGE_SIZE = 20;
 
     public ConsoleUI(VacancyRepository repository, VacancyParserService parserService) {
         this.repository = repository;
@@ -57,6 +64,7 @@ public class ConsoleUI {
         System.out.println(ANSI_BLUE + "6) Экспортировать вакансии" + ANSI_RESET);
         System.out.println(ANSI_BLUE + "7) Запустить парсер вручную" + ANSI_RESET);
         System.out.println(ANSI_BLUE + "8) Аналитика и статистика вакансий" + ANSI_RESET);
+        System.out.println(ANSI_BLUE + "9) Расширенный поиск (город, компания, зарплата, ключевые слова)" + ANSI_RESET);
         System.out.println(ANSI_YELLOW + "0) Выход" + ANSI_RESET);
         System.out.print(ANSI_GREEN + "Выберите пункт: " + ANSI_RESET);
     }
@@ -71,6 +79,7 @@ public class ConsoleUI {
             case "6" -> exportVacancies();
             case "7" -> runParser();
             case "8" -> showAnalytics();
+            case "9" -> advancedSearch();
             case "0" -> {
                 return false;
             }
@@ -80,27 +89,84 @@ public class ConsoleUI {
     }
 
     private void showAllVacancies() throws SQLException {
-        List<Vacancy> vacancies = repository.findAll();
-        if (vacancies.isEmpty()) {
-            System.out.println(ANSI_YELLOW + "Вакансий не найдено." + ANSI_RESET);
+        browse(VacancySort.PUBLISHED_DESC, "Вакансий не найдено.");
+    }
+
+    /**
+     * Постраничный просмотр активных вакансий с переходом вперёд и назад по курсорам.
+     */
+    private void browse(VacancySort sort, String emptyMessage) throws SQLException {
+        browse(query().sort(sort).build(), emptyMessage);
+    }
+
+    /**
+     * Постраничный просмотр результатов составного запроса.
+     */
+    private void browse(VacancyQuery query, String emptyMessage) throws SQLException {
+        Page<Vacancy> page = repository.findPage(query, null, PAGE_SIZE);
+        if (page.isEmpty()) {
+            System.out.println(ANSI_YELLOW + emptyMessage + ANSI_RESET);
             return;
         }
-        VacancyFormatter.printVacanciesTable(vacancies);
+        while (true) {
+            VacancyFormatter.printVacanciesTable(page.items());
+            if (!page.hasNext() && !page.hasPrevious()) {
+                return;
+            }
+            StringBuilder prompt = new StringBuilder();
+            if (page.hasNext()) {
+                prompt.append("n — следующая, ");
+            }
+            if (page.hasPrevious()) {
+                prompt.append("p — предыдущая, ");
+            }
+            prompt.append("Enter — в меню: ");
+            System.out.print(ANSI_GREEN + prompt + ANSI_RESET);
+
+            String cmd = scanner.nextLine().trim().toLowerCase();
+            String cursor;
+            if (cmd.equals("n") && page.hasNext()) {
+                cursor = page.nextCursor();
+            } else if (cmd.equals("p") && page.hasPrevious()) {
+                cursor = page.previousCursor();
+            } else {
+                return;
+            }
+            Page<Vacancy> moved = repository.findPage(query, cursor, PAGE_SIZE);
+            if (moved.isEmpty()) {
+                System.out.println(ANSI_YELLOW + "Больше вакансий нет." + ANSI_RESET);
+                return;
+            }
+            page = moved;
+        }
     }
 
     private void searchByKeyword() throws SQLException {
-        System.out.print(ANSI_GREEN + "Введите ключевое слово: " + ANSI_RESET);
+        System.out.print(ANSI_GREEN + "Введите запрос (фраза в \"кавычках\", префикс с *, -исключить): " + ANSI_RESET);
         String keyword = scanner.nextLine().trim();
         if (keyword.isBlank()) {
             System.out.println(ANSI_YELLOW + "Ключевое слово не может быть пустым." + ANSI_RESET);
             return;
         }
-        List<Vacancy> vacancies = repository.searchByKeyword(keyword);
-        if (vacancies.isEmpty()) {
-            System.out.println(ANSI_YELLOW + "Вакансий не найдено по ключевому слову." + ANSI_RESET);
-            return;
+        int page = 0;
+        while (true) {
+            List<Vacancy> vacancies = repository.searchByKeyword(keyword, page, PAGE_SIZE);
+            if (vacancies.isEmpty()) {
+                System.out.println(ANSI_YELLOW + (page == 0
+                        ? "Вакансий не найдено по ключевому слову."
+                        : "Больше вакансий нет.") + ANSI_RESET);
+                return;
+            }
+            VacancyFormatter.printVacanciesTable(vacancies);
+            if (vacancies.size() < PAGE_SIZE) {
+                return;
+            }
+            System.out.print(ANSI_GREEN + "Страница " + (page + 1) + ". n — следующая, Enter — в меню: " + ANSI_RESET);
+            if (!scanner.nextLine().trim().equalsIgnoreCase("n")) {
+                return;
+            }
+            page++;
         }
-        VacancyFormatter.printVacanciesTable(vacancies);
     }
 
     private void searchByCity() throws SQLException {
@@ -110,12 +176,7 @@ public class ConsoleUI {
             System.out.println(ANSI_YELLOW + "Город не может быть пустым." + ANSI_RESET);
             return;
         }
-        List<Vacancy> vacancies = repository.findByCity(city);
-        if (vacancies.isEmpty()) {
-            System.out.println(ANSI_YELLOW + "Вакансий не найдено в указанном городе." + ANSI_RESET);
-            return;
-        }
-        VacancyFormatter.printVacanciesTable(vacancies);
+        browse(query().city(city).build(), "Вакансий не найдено в указанном городе.");
     }
 
     private void searchByCompany() throws SQLException {
@@ -125,12 +186,7 @@ public class ConsoleUI {
             System.out.println(ANSI_YELLOW + "Компания не может быть пустой." + ANSI_RESET);
             return;
         }
-        List<Vacancy> vacancies = repository.findByCompany(company);
-        if (vacancies.isEmpty()) {
-            System.out.println(ANSI_YELLOW + "Вакансий не найдено для указанной компании." + ANSI_RESET);
-            return;
-        }
-        VacancyFormatter.printVacanciesTable(vacancies);
+        browse(query().company(company).build(), "Вакансий не найдено для указанной компании.");
     }
 
     private void searchBySalary() throws SQLException {
@@ -147,32 +203,75 @@ public class ConsoleUI {
         }
 
         try {
-            List<Vacancy> vacancies;
-            if (hasMin && hasMax) {
-                int minSalary = Integer.parseInt(minStr);
-                int maxSalary = Integer.parseInt(maxStr);
-                vacancies = repository.findBySalaryBetween(minSalary, maxSalary);
-            } else if (hasMin) {
-                int minSalary = Integer.parseInt(minStr);
-                vacancies = repository.findBySalaryFromGreaterEqual(minSalary);
-            } else {
-                int maxSalary = Integer.parseInt(maxStr);
-                vacancies = repository.findBySalaryToLessEqual(maxSalary);
-            }
+            VacancyQuery query = query()
+                    .minSalary(hasMin ? Integer.parseInt(minStr) : null)
+                    .maxSalary(hasMax ? Integer.parseInt(maxStr) : null)
+                    .sort(VacancySort.SALARY_DESC)
+                    .build();
+            browse(query, "Вакансий не найдено по указанному диапазону зарплат.");
+        } catch (NumberFormatException ex) {
+            System.out.println(ANSI_YELLOW + "Значения зарплаты должны быть корректными целыми числами." + ANSI_RESET);
+        }
+    }
 
-            if (vacancies.isEmpty()) {
-                System.out.println(ANSI_YELLOW + "Вакансий не найдено по указанному диапазону зарплат." + ANSI_RESET);
-                return;
-            }
-            VacancyFormatter.printVacanciesTable(vacancies);
+    /**
+     * Комбинированный поиск: все заданные условия объединяются в один запрос к БД.
+     */
+    private void advancedSearch() throws SQLException {
+        System.out.println(ANSI_CYAN + "\nЗаполните нужные условия, пустой ввод — условие не задано." + ANSI_RESET);
+        String city = ask("Город: ");
+        String company = ask("Компания: ");
+        String keyword = ask("Ключевые слова: ");
+        Integer minSalary;
+        Integer maxSalary;
+        try {
+            minSalary = parseOptionalInt(ask("Минимальная зарплата: "));
+            maxSalary = parseOptionalInt(ask("Максимальная зарплата: "));
         } catch (NumberFormatException ex) {
             System.out.println(ANSI_YELLOW + "Значения зарплаты должны быть корректными целыми числами." + ANSI_RESET);
+            return;
         }
+        System.out.println(ANSI_BLUE + "Сортировка: 1) новые 2) старые 3) зарплата ↓ 4) зарплата ↑ 5) компания 6) город" + ANSI_RESET);
+        // без выбора: по релевантности, если заданы ключевые слова, иначе новые
+        VacancySort sort = switch (ask("Пункт (Enter — по релевантности или новые): ")) {
+            case "1" -> VacancySort.PUBLISHED_DESC;
+            case "2" -> VacancySort.PUBLISHED_ASC;
+            case "3" -> VacancySort.SALARY_DESC;
+            case "4" -> VacancySort.SALARY_ASC;
+            case "5" -> VacancySort.COMPANY;
+            case "6" -> VacancySort.CITY;
+            default -> null;
+        };
+
+        VacancyQuery query = query()
+                .city(city)
+                .company(company)
+                .keyword(keyword)
+                .minSalary(minSalary)
+                .maxSalary(maxSalary)
+                .sort(sort)
+                .build();
+        browse(query, "Вакансий не найдено по заданным условиям.");
+    }
+
+    private String ask(String prompt) {
+        System.out.print(ANSI_GREEN + prompt + ANSI_RESET);
+        return scanner.nextLine().trim();
+    }
+
+    private static Integer parseOptionalInt(String value) {
+        return value.isEmpty() ? null : Integer.parseInt(value);
+    }
+
+    /**
+     * Запрос для табличного вывода: длинные тексты вакансий не читаются.
+     */
+    private static VacancyQuery.Builder query() {
+        return VacancyQuery.builder().projection(VacancyQuery.Projection.SUMMARY);
     }
 
     private void exportVacancies() throws SQLException, IOException {
-        List<Vacancy> vacancies = repository.findAll();
-        if (vacancies.isEmpty()) {
+        if (repository.countActive() == 0) {
             System.out.println(ANSI_YELLOW + "Вакансий нет для экспорта." + ANSI_RESET);
             return;
         }
@@ -194,7 +293,9 @@ public class ConsoleUI {
 
         VacancyExporter exporter = exporters.get(fmt);
         if (exporter != null) {
-            exporter.export(vacancies, baseName);
+            try (Stream<Vacancy> vacancies = repository.streamAllActive()) {
+                exporter.export(vacancies, baseName);
+            }
             String extension = fmt.equals("1") ? "csv" : fmt.equals("2") ? "json" : "html";
             System.out.println(ANSI_GREEN + "Вакансии успешно экспортированы в " + extension.toUpperCase() + " файл: " + baseName + "." + extension + ANSI_RESET);
         } else {
@@ -215,6 +316,7 @@ public class ConsoleUI {
             System.out.println(ANSI_BLUE + "2) Средняя минимальная зарплата по городам" + ANSI_RESET);
             System.out.println(ANSI_BLUE + "3) Средняя максимальная зарплата по городам" + ANSI_RESET);
             System.out.println(ANSI_BLUE + "4) Сортировка вакансий" + ANSI_RESET);
+            System.out.println(ANSI_BLUE + "5) Количество вакансий по городам на дату" + ANSI_RESET);
             System.out.println(ANSI_YELLOW + "0) Назад в главное меню" + ANSI_RESET);
             System.out.print(ANSI_GREEN + "Выберите пункт: " + ANSI_RESET);
 
@@ -242,6 +344,7 @@ public class ConsoleUI {
                     );
                 }
                 case "4" -> showSortingOptions();
+                case "5" -> showCountByCityAt();
                 case "0" -> {
                     return;
                 }
@@ -250,6 +353,30 @@ public class ConsoleUI {
         }
     }
 
+    /**
+     * Число вакансий по городам, активных на конец указанного дня, — по контрольным точкам
+     * и журналу изменений.
+     */
+    private void showCountByCityAt() throws SQLException {
+        String input = ask("Дата (ГГГГ-ММ-ДД): ");
+        LocalDate day;
+        try {
+            day = LocalDate.parse(input);
+        } catch (DateTimeParseException ex) {
+            System.out.println(ANSI_YELLOW + "Дата должна быть в формате ГГГГ-ММ-ДД." + ANSI_RESET);
+            return;
+        }
+        Map<String, Integer> byCity = repository.countByCityAt(day);
+        if (byCity.isEmpty()) {
+            System.out.println(ANSI_YELLOW + "На эту дату активных вакансий не найдено." + ANSI_RESET);
+            return;
+        }
+        System.out.println(ANSI_CYAN + "\nКоличество вакансий по городам на " + input + ":" + ANSI_RESET);
+        byCity.forEach((city, count) ->
+                System.out.printf(ANSI_BLUE + "  %s: %d%n" + ANSI_RESET, city, count)
+        );
+    }
+
     private void showSortingOptions() throws SQLException {
         System.out.println(ANSI_CYAN + "\nВыберите критерий сортировки:" + ANSI_RESET);
         System.out.println(ANSI_BLUE + "1) Дата публикации (сначала новые)" + ANSI_RESET);
@@ -261,31 +388,31 @@ public class ConsoleUI {
         System.out.print(ANSI_GREEN + "Пункт: " + ANSI_RESET);
 
         String opt = scanner.nextLine().trim();
-        List<Vacancy> vacancies;
+        VacancySort sort;
         
         switch (opt) {
             case "1" -> {
-                vacancies = repository.findAllOrderByPublishedDateDesc();
+                sort = VacancySort.PUBLISHED_DESC;
                 System.out.println(ANSI_CYAN + "\n=== Сортировка по дате (сначала новые) ===" + ANSI_RESET);
             }
             case "2" -> {
-                vacancies = repository.findAllOrderByPublishedDateAsc();
+                sort = VacancySort.PUBLISHED_ASC;
                 System.out.println(ANSI_CYAN + "\n=== Сортировка по дате (сначала старые) ===" + ANSI_RESET);
             }
             case "3" -> {
-                vacancies = repository.findAllOrderBySalaryDesc();
+                sort = VacancySort.SALARY_DESC;
                 System.out.println(ANSI_CYAN + "\n=== Сортировка по зарплате (сначала высокая) ===" + ANSI_RESET);
             }
             case "4" -> {
-                vacancies = repository.findAllOrderBySalaryAsc();
+                sort = VacancySort.SALARY_ASC;
                 System.out.println(ANSI_CYAN + "\n=== Сортировка по зарплате (сначала низкая) ===" + ANSI_RESET);
             }
             case "5" -> {
-                vacancies = repository.findAllOrderByCompany();
+                sort = VacancySort.COMPANY;
                 System.out.println(ANSI_CYAN + "\n=== Сортировка по компании (по алфавиту) ===" + ANSI_RESET);
             }
             case "6" -> {
-                vacancies = repository.findAllOrderByCity();
+                sort = VacancySort.CITY;
                 System.out.println(ANSI_CYAN + "\n=== Сортировка по городу (по алфавиту) ===" + ANSI_RESET);
             }
             default -> {
@@ -294,11 +421,6 @@ public class ConsoleUI {
             }
         }
         
-        if (vacancies.isEmpty()) {
-            System.out.println(ANSI_YELLOW + "Вакансий нет для сортировки." + ANSI_RESET);
-            return;
-        }
-        
-        VacancyFormatter.printVacanciesTable(vacancies);
+        browse(sort, "Вакансий нет для сортировки.");
     }
 } 
\ No newline at end of file
@@ -0,0 +1,86 @@
+-- Базовая схема: таблицы вакансий и журнала изменений.
+-- IF NOT EXISTS позволяет применить миграцию к базе, созданной до появления миграций.
+
+CREATE TABLE IF NOT EXISTS vacancies (
+    id             BIGSERIAL PRIMARY KEY,
+    title          TEXT,
+    company        TEXT,
+    city           TEXT,
+    salary_from    INTEGER,
+    salary_to      INTEGER,
+    currency       TEXT,
+    description    TEXT,
+    url            TEXT NOT NULL,
+    published_date TIMESTAMP,
+    source         TEXT,
+    source_url     TEXT,
+    requirements   TEXT,
+    work_schedule  TEXT,
+    created_at     TIMESTAMP DEFAULT now(),
+    is_active      BOOLEAN NOT NULL DEFAULT true,
+    closed_at      TIMESTAMP
+);
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'vacancies_url_key') THEN
+        ALTER TABLE vacancies ADD CONSTRAINT vacancies_url_key UNIQUE (url);
+    END IF;
+END
+$$;
+
+CREATE TABLE IF NOT EXISTS vacancy_changes (
+    id             BIGSERIAL PRIMARY KEY,
+    vacancy_id     BIGINT,
+    url            TEXT NOT NULL,
+    change_type    TEXT NOT NULL,
+    event_time     TIMESTAMP NOT NULL,
+    title          TEXT,
+    company        TEXT,
+    city           TEXT,
+    salary_from    INTEGER,
+    salary_to      INTEGER,
+    currency       TEXT,
+    published_date TIMESTAMP,
+    work_schedule  TEXT
+);
+
+CREATE INDEX IF NOT EXISTS idx_vacancy_changes_vacancy_id ON vacancy_changes (vacancy_id);
+CREATE INDEX IF NOT EXISTS idx_vacancy_changes_event_time ON vacancy_changes (event_time);
+
+-- Полнотекстовый поиск: поддерживаемая БД колонка tsvector и GIN-индекс.
+-- Вес: title (A) > requirements (B) > description (C), HTML-теги в индекс не попадают.
+ALTER TABLE vacancies ADD COLUMN IF NOT EXISTS search_vector tsvector
+GENERATED ALWAYS AS (
+    setweight(to_tsvector('russian', coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('russian', regexp_replace(coalesce(requirements, ''), '<[^>]+>', ' ', 'g')), 'B') ||
+    setweight(to_tsvector('english', regexp_replace(coalesce(requirements, ''), '<[^>]+>', ' ', 'g')), 'B') ||
+    setweight(to_tsvector('russian', regexp_replace(coalesce(description, ''), '<[^>]+>', ' ', 'g')), 'C') ||
+    setweight(to_tsvector('english', regexp_replace(coalesce(description, ''), '<[^>]+>', ' ', 'g')), 'C')
+) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_vacancies_search_vector ON vacancies USING GIN (search_vector);
+
+-- Фильтры по активным вакансиям
+CREATE INDEX IF NOT EXISTS idx_vacancies_city_active ON vacancies (city) WHERE is_active;
+CREATE INDEX IF NOT EXISTS idx_vacancies_company_active ON vacancies (company) WHERE is_active;
+CREATE INDEX IF NOT EXISTS idx_vacancies_salary_from_active ON vacancies (salary_from) WHERE is_active;
+CREATE INDEX IF NOT EXISTS idx_vacancies_salary_to_active ON vacancies (salary_to) WHERE is_active;
+
+-- Индексы под каждый порядок VacancySort: ключ сортировки + id,
+-- по ним выполняются ORDER BY и keyset-переход (k, id) > (?, ?)
+CREATE INDEX IF NOT EXISTS idx_vacancies_sort_published_desc
+    ON vacancies (COALESCE(published_date, '-infinity'::timestamp) DESC,
+                  COALESCE(created_at, '-infinity'::timestamp) DESC, id DESC) WHERE is_active;
+CREATE INDEX IF NOT EXISTS idx_vacancies_sort_published_asc
+    ON vacancies (COALESCE(published_date, 'infinity'::timestamp),
+                  COALESCE(created_at, 'infinity'::timestamp), id) WHERE is_active;
+CREATE INDEX IF NOT EXISTS idx_vacancies_sort_salary_desc
+    ON vacancies (COALESCE(salary_to, salary_from, -1) DESC, id DESC) WHERE is_active;
+CREATE INDEX IF NOT EXISTS idx_vacancies_sort_salary_asc
+    ON vacancies (COALESCE(salary_from, salary_to, 2147483647), id) WHERE is_active;
+CREATE INDEX IF NOT EXISTS idx_vacancies_sort_company
+    ON vacancies ((company IS NULL), COALESCE(company, ''), id) WHERE is_active;
+CREATE INDEX IF NOT EXISTS idx_vacancies_sort_city
+    ON vacancies ((city IS NULL), COALESCE(city, ''), id) WHERE is_active;
@@ -0,0 +1,9 @@
+-- Отметки инкрементальной выгрузки по источникам.
+-- fetched_at — время начала последней успешной выгрузки (с неё начинается следующая),
+-- full_crawl_at — время последнего полного обхода, который определяет удалённые вакансии.
+
+CREATE TABLE IF NOT EXISTS sync_watermarks (
+    source        TEXT PRIMARY KEY,
+    fetched_at    TIMESTAMP NOT NULL,
+    full_crawl_at TIMESTAMP
+);
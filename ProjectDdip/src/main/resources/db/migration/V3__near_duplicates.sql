@@ -0,0 +1,9 @@
+-- Поиск почти одинаковых вакансий (одна вакансия на нескольких сайтах).
+-- minhash — MinHash-сигнатура нормализованных title/company/city/requirements
+-- (первые 4 байта — отпечаток параметров, с которыми она посчитана),
+-- canonical_id — id вакансии-представителя группы дублей (наименьший id в группе).
+
+ALTER TABLE vacancies ADD COLUMN IF NOT EXISTS minhash BYTEA;
+ALTER TABLE vacancies ADD COLUMN IF NOT EXISTS canonical_id BIGINT;
+
+CREATE INDEX IF NOT EXISTS idx_vacancies_canonical_id ON vacancies (canonical_id);
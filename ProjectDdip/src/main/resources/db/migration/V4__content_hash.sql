@@ -0,0 +1,8 @@
+-- Поиск изменённых вакансий по хэшу содержимого.
+-- content_hash — хэш title/company/city/зарплаты/currency/requirements/work_schedule
+-- (org.example.model.ContentHash); синхронизация переписывает только строки, у которых
+-- он изменился. У старых строк хэша нет — он заполняется при первой синхронизации.
+-- diff — изменённые поля события UPDATED: {"поле": {"old": ..., "new": ...}}.
+
+ALTER TABLE vacancies ADD COLUMN IF NOT EXISTS content_hash TEXT;
+ALTER TABLE vacancy_changes ADD COLUMN IF NOT EXISTS diff JSONB;
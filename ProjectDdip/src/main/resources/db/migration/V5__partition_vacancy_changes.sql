@@ -0,0 +1,77 @@
+-- Журнал изменений разбивается на помесячные секции по event_time: вставка идёт
+-- в одну небольшую секцию, запросы за недавний период читают только её, а старые
+-- месяцы удаляются целиком (DROP/DETACH) вместо DELETE по всей таблице.
+-- Секции называются vacancy_changes_pYYYYMM; будущие создаёт ChangeHistoryMaintenance,
+-- секция по умолчанию принимает строки, для которых секции ещё нет.
+
+DROP INDEX IF EXISTS idx_vacancy_changes_vacancy_id;
+DROP INDEX IF EXISTS idx_vacancy_changes_event_time;
+ALTER TABLE vacancy_changes RENAME TO vacancy_changes_legacy;
+ALTER TABLE vacancy_changes_legacy RENAME CONSTRAINT vacancy_changes_pkey TO vacancy_changes_legacy_pkey;
+ALTER SEQUENCE vacancy_changes_id_seq OWNED BY NONE;
+
+-- Ключ секционирования обязан входить в первичный ключ
+CREATE TABLE vacancy_changes (
+    id             BIGINT NOT NULL DEFAULT nextval('vacancy_changes_id_seq'),
+    vacancy_id     BIGINT,
+    url            TEXT NOT NULL,
+    change_type    TEXT NOT NULL,
+    event_time     TIMESTAMP NOT NULL,
+    title          TEXT,
+    company        TEXT,
+    city           TEXT,
+    salary_from    INTEGER,
+    salary_to      INTEGER,
+    currency       TEXT,
+    published_date TIMESTAMP,
+    work_schedule  TEXT,
+    diff           JSONB,
+    PRIMARY KEY (id, event_time)
+) PARTITION BY RANGE (event_time);
+
+ALTER SEQUENCE vacancy_changes_id_seq OWNED BY vacancy_changes.id;
+
+CREATE TABLE vacancy_changes_default PARTITION OF vacancy_changes DEFAULT;
+
+CREATE INDEX idx_vacancy_changes_vacancy_id ON vacancy_changes (vacancy_id);
+CREATE INDEX idx_vacancy_changes_event_time ON vacancy_changes (event_time);
+
+-- Секции под уже накопленную историю и на три месяца вперёд
+DO $$
+DECLARE
+    m DATE;
+BEGIN
+    FOR m IN
+        SELECT generate_series(
+                   date_trunc('month', coalesce((SELECT min(event_time) FROM vacancy_changes_legacy), now())),
+                   greatest(date_trunc('month', now()) + interval '3 months',
+                            date_trunc('month', coalesce((SELECT max(event_time) FROM vacancy_changes_legacy), now()))),
+                   interval '1 month')::date
+    LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF vacancy_changes FOR VALUES FROM (%L) TO (%L)',
+                       'vacancy_changes_p' || to_char(m, 'YYYYMM'), m, (m + interval '1 month')::date);
+    END LOOP;
+END
+$$;
+
+INSERT INTO vacancy_changes (
+    id, vacancy_id, url, change_type, event_time, title, company, city,
+    salary_from, salary_to, currency, published_date, work_schedule, diff
+)
+SELECT id, vacancy_id, url, change_type, event_time, title, company, city,
+       salary_from, salary_to, currency, published_date, work_schedule, diff
+FROM vacancy_changes_legacy;
+
+DROP TABLE vacancy_changes_legacy;
+
+-- Сводка по дням для месяцев, секции которых уже удалены по сроку хранения
+CREATE TABLE IF NOT EXISTS vacancy_changes_daily (
+    day             DATE NOT NULL,
+    change_type     TEXT NOT NULL,
+    city            TEXT NOT NULL DEFAULT '',
+    events          INTEGER NOT NULL,
+    vacancies       INTEGER NOT NULL,
+    avg_salary_from INTEGER,
+    avg_salary_to   INTEGER,
+    PRIMARY KEY (day, change_type, city)
+);
@@ -0,0 +1,9 @@
+-- Контрольные точки для запросов «что было активно на момент T».
+-- vacancy_ids — id активных вакансий на момент taken_at (время синхронизации, после которой
+-- точка записана). Состояние на момент T — ближайшая точка не позже T плюс события
+-- vacancy_changes после неё, поэтому журнал целиком не перечитывается.
+
+CREATE TABLE IF NOT EXISTS vacancy_snapshots (
+    taken_at    TIMESTAMP PRIMARY KEY,
+    vacancy_ids BIGINT[] NOT NULL
+);
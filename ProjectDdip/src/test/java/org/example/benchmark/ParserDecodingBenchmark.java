@@ -0,0 +1,172 @@
+package org.example.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.example.model.Vacancy;
+import org.example.parser.HhVacancyParser;
+import org.example.parser.HttpTransport;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение разбора страницы выдачи HH.ru (100 вакансий): прежний путь
+ * «тело в String → readTree → обход JsonNode» и потоковое связывание
+ * с DTO через {@link HhVacancyParser#parsePage}.
+ * Запуск с GC-профайлером показывает и пропускную способность, и объём
+ * выделенной памяти на операцию ({@code gc.alloc.rate.norm}). БД не требуется.
+ * <p>
+ * Запуск: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.example.benchmark.ParserDecodingBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ParserDecodingBenchmark {
+    private static final int ITEMS = 100;
+
+    private ObjectMapper objectMapper;
+    private HhVacancyParser parser;
+    private byte[] page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        parser = HhVacancyParser.builder(new HttpTransport(HttpClient.newHttpClient()), objectMapper)
+                .maxConcurrency(1).build();
+        page = samplePage(objectMapper).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<Vacancy> treeFromString() throws IOException {
+        String body = new String(page, StandardCharsets.UTF_8);
+        JsonNode items = objectMapper.readTree(body).get("items");
+        List<Vacancy> result = new ArrayList<>();
+        for (JsonNode item : items) {
+            result.add(mapNode(item));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Vacancy> streamingDto() throws IOException {
+        return parser.parsePage(new ByteArrayInputStream(page));
+    }
+
+    /**
+     * Прежнее преобразование JsonNode → Vacancy из HhVacancyParser.
+     */
+    private static Vacancy mapNode(JsonNode item) {
+        Vacancy v = new Vacancy();
+        v.setTitle(getText(item, "name"));
+        v.setCompany(getText(item, "employer", "name"));
+        v.setCity(getText(item, "area", "name"));
+        JsonNode salaryNode = item.get("salary");
+        if (salaryNode != null && !salaryNode.isNull()) {
+            if (salaryNode.hasNonNull("from")) {
+                v.setSalaryFrom(salaryNode.get("from").asInt());
+            }
+            if (salaryNode.hasNonNull("to")) {
+                v.setSalaryTo(salaryNode.get("to").asInt());
+            }
+            if (salaryNode.hasNonNull("currency")) {
+                v.setCurrency(salaryNode.get("currency").asText());
+            }
+        }
+        v.setDescription(getText(item, "description"));
+        JsonNode snippet = item.get("snippet");
+        if (snippet != null && !snippet.isNull()) {
+            StringBuilder req = new StringBuilder();
+            JsonNode requirement = snippet.get("requirement");
+            if (requirement != null && !requirement.isNull()) {
+                req.append(requirement.asText());
+            }
+            JsonNode responsibility = snippet.get("responsibility");
+            if (responsibility != null && !responsibility.isNull()) {
+                if (req.length() > 0) req.append(" | ");
+                req.append(responsibility.asText());
+            }
+            v.setRequirements(req.toString());
+        }
+        String url = getText(item, "alternate_url");
+        v.setUrl(url);
+        v.setSource("hh.ru");
+        v.setSourceUrl(url);
+        String publishedAt = getText(item, "published_at");
+        try {
+            v.setPublishedDate(LocalDateTime.parse(publishedAt, DateTimeFormatter.ISO_DATE_TIME));
+        } catch (Exception ex) {
+            v.setPublishedDate(LocalDateTime.now());
+        }
+        v.setCreatedAt(LocalDateTime.now());
+        JsonNode scheduleNode = item.get("schedule");
+        if (scheduleNode != null && !scheduleNode.isNull()) {
+            v.setWorkSchedule(scheduleNode.get("name").asText());
+        }
+        return v;
+    }
+
+    private static String getText(JsonNode node, String... path) {
+        JsonNode curr = node;
+        for (String p : path) {
+            if (curr == null) return null;
+            curr = curr.get(p);
+        }
+        return (curr != null && !curr.isNull()) ? curr.asText() : null;
+    }
+
+    /**
+     * Страница, похожая на настоящий ответ HH.ru: помимо читаемых полей
+     * в каждой вакансии есть поля, которые парсер пропускает.
+     */
+    static String samplePage(ObjectMapper mapper) {
+        ObjectNode root = mapper.createObjectNode();
+        ArrayNode items = root.putArray("items");
+        for (int i = 0; i < ITEMS; i++) {
+            ObjectNode item = items.addObject();
+            item.put("id", String.valueOf(90_000_000 + i));
+            item.put("premium", false);
+            item.put("name", "Java разработчик " + i);
+            item.putObject("employer").put("name", "Компания " + i)
+                    .put("url", "https://api.hh.ru/employers/" + i)
+                    .put("trusted", true);
+            item.putObject("area").put("id", "1").put("name", "Москва");
+            item.putObject("salary").put("from", 150_000 + i).put("to", 250_000).put("currency", "RUR")
+                    .put("gross", false);
+            item.putObject("snippet")
+                    .put("requirement", "Опыт разработки на <highlighttext>Java</highlighttext> от 3 лет. Spring, SQL.")
+                    .put("responsibility", "Разработка и поддержка сервисов, участие в code review.");
+            item.put("alternate_url", "https://hh.ru/vacancy/" + (90_000_000 + i));
+            item.put("published_at", "2024-03-20T10:00:00");
+            item.putObject("schedule").put("id", "remote").put("name", "Удаленная работа");
+            ArrayNode roles = item.putArray("professional_roles");
+            roles.addObject().put("id", "96").put("name", "Программист, разработчик");
+        }
+        root.put("found", 1500).put("pages", 15).put("page", 0).put("per_page", ITEMS);
+        return root.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ParserDecodingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.benchmark;
+
+import org.example.db.DatabaseManager;
+import org.example.model.Vacancy;
+import org.example.repository.VacancyBulkLoader;
+import org.example.repository.VacancyRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение скорости записи вакансий (строк в секунду): построчный save,
+ * пакетный saveAll и COPY через VacancyBulkLoader.
+ * Требует доступную БД из config.properties; созданные строки удаляются после каждой итерации.
+ * <p>
+ * Запуск: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.example.benchmark.VacancyIngestBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class VacancyIngestBenchmark {
+    private static final int ROWS = 5_000;
+    private static final String URL_PREFIX = "bench://ingest/";
+
+    private DatabaseManager dbManager;
+    private VacancyRepository repository;
+    private VacancyBulkLoader bulkLoader;
+    private long run;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        dbManager = DatabaseManager.getInstance();
+        repository = new VacancyRepository(dbManager);
+        bulkLoader = new VacancyBulkLoader(dbManager);
+        cleanUp();
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanUp() throws SQLException {
+        try (Connection conn = dbManager.getConnection();
+             Statement st = conn.createStatement()) {
+            st.executeUpdate("DELETE FROM vacancies WHERE url LIKE '" + URL_PREFIX + "%'");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        dbManager.shutdown();
+    }
+
+    private List<Vacancy> nextBatch() {
+        long batch = run++;
+        LocalDateTime now = LocalDateTime.now();
+        List<Vacancy> list = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Vacancy v = new Vacancy();
+            v.setTitle("Java Developer " + i);
+            v.setCompany("Company " + (i % 500));
+            v.setCity(i % 2 == 0 ? "Москва" : "Санкт-Петербург");
+            v.setSalaryFrom(100_000 + i);
+            v.setSalaryTo(200_000 + i);
+            v.setCurrency("RUR");
+            v.setDescription("<p>Описание\tвакансии</p>\n<ul><li>Java 21</li><li>C:\\work</li></ul>");
+            v.setRequirements("<highlighttext>Java</highlighttext> | Spring");
+            v.setUrl(URL_PREFIX + batch + "/" + i);
+            v.setSourceUrl(v.getUrl());
+            v.setSource("bench");
+            v.setPublishedDate(now);
+            v.setCreatedAt(now);
+            v.setWorkSchedule("Полный день");
+            v.setIsActive(true);
+            list.add(v);
+        }
+        return list;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void save() throws SQLException {
+        for (Vacancy v : nextBatch()) {
+            repository.save(v);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void saveAll() throws SQLException {
+        repository.saveAll(nextBatch());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void copy() throws SQLException {
+        bulkLoader.copyVacancies(nextBatch());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VacancyIngestBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
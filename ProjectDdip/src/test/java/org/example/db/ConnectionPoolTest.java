@@ -0,0 +1,161 @@
+package org.example.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тесты для ConnectionPool.
+ * Проверяет аренду и возврат соединений, проверку при выдаче, ограничение размера, вытеснение простаивающих
+ * и счётчики кэша подготовленных запросов.
+ */
+class ConnectionPoolTest {
+
+    private final List<Connection> physical = new ArrayList<>();
+
+    private Connection newPhysical() throws SQLException {
+        Connection conn = mock(Connection.class);
+        when(conn.isValid(anyInt())).thenReturn(true);
+        when(conn.getAutoCommit()).thenReturn(true);
+        physical.add(conn);
+        return conn;
+    }
+
+    private ConnectionPool pool(int maxSize, long maxWaitMillis, long idleTimeoutMillis) {
+        return new ConnectionPool(this::newPhysical, maxSize, maxWaitMillis, idleTimeoutMillis, 1);
+    }
+
+    @Test
+    void close_ShouldReturnConnectionInsteadOfClosingIt() throws SQLException {
+        try (ConnectionPool pool = pool(2, 100, 0)) {
+            try (Connection conn = pool.borrow()) {
+                assertEquals(1, pool.stats().active());
+            }
+            try (Connection conn = pool.borrow()) {
+                assertFalse(conn.isClosed());
+            }
+
+            assertEquals(1, physical.size(), "Соединение должно переиспользоваться");
+            verify(physical.get(0), never()).close();
+            assertEquals(0, pool.stats().active());
+            assertEquals(1, pool.stats().idle());
+            assertEquals(2, pool.stats().borrows());
+        }
+    }
+
+    @Test
+    void statementConnection_ShouldBeTheLeaseNotThePhysicalConnection() throws SQLException {
+        try (ConnectionPool pool = pool(1, 100, 0)) {
+            Connection conn = pool.borrow();
+            PreparedStatement ps = mock(PreparedStatement.class);
+            when(physical.get(0).prepareStatement("SELECT 1")).thenReturn(ps);
+            when(physical.get(0).getMetaData()).thenReturn(mock(DatabaseMetaData.class));
+
+            PreparedStatement statement = conn.prepareStatement("SELECT 1");
+            assertSame(conn, statement.getConnection());
+            assertSame(conn, conn.getMetaData().getConnection());
+            statement.executeQuery();
+            verify(ps).executeQuery();
+
+            statement.getConnection().close();
+            verify(physical.get(0), never()).close();
+            assertEquals(0, pool.stats().active());
+        }
+    }
+
+    @Test
+    void prepareStatement_ShouldCountDriverCacheHitsAcrossLeases() throws SQLException {
+        try (ConnectionPool pool = new ConnectionPool(this::newPhysical, 1, 100, 0, 1, 2)) {
+            try (Connection conn = pool.borrow()) {
+                conn.prepareStatement("A");
+                conn.prepareStatement("B");
+            }
+            try (Connection conn = pool.borrow()) {
+                conn.prepareStatement("A");
+                conn.prepareStatement("C"); // вытесняет B — драйвер с тем же размером кэша тоже его забыл
+                conn.prepareStatement("B");
+            }
+
+            assertEquals(1, pool.stats().statementHits());
+            assertEquals(4, pool.stats().statementMisses());
+            assertEquals(0.2, pool.stats().statementHitRatio(), 1e-9);
+        }
+    }
+
+    @Test
+    void borrow_ShouldReplaceInvalidConnection() throws SQLException {
+        try (ConnectionPool pool = pool(1, 100, 0)) {
+            pool.borrow().close();
+            when(physical.get(0).isValid(anyInt())).thenReturn(false);
+
+            try (Connection conn = pool.borrow()) {
+                assertNotNull(conn);
+            }
+
+            assertEquals(2, physical.size());
+            verify(physical.get(0)).close();
+            assertEquals(1, pool.stats().destroyed());
+        }
+    }
+
+    @Test
+    void borrow_ShouldTimeOutWhenPoolExhausted() throws SQLException {
+        try (ConnectionPool pool = pool(1, 50, 0)) {
+            Connection held = pool.borrow();
+
+            assertThrows(SQLTransientConnectionException.class, pool::borrow);
+            assertEquals(1, pool.stats().timeouts());
+
+            held.close();
+            pool.borrow().close();
+        }
+    }
+
+    @Test
+    void release_ShouldRollbackOpenTransaction() throws SQLException {
+        try (ConnectionPool pool = pool(1, 100, 0)) {
+            Connection conn = pool.borrow();
+            when(physical.get(0).getAutoCommit()).thenReturn(false);
+            conn.close();
+
+            verify(physical.get(0)).rollback();
+            verify(physical.get(0)).setAutoCommit(true);
+        }
+    }
+
+    @Test
+    void returnedConnection_ShouldRejectFurtherUse() throws SQLException {
+        try (ConnectionPool pool = pool(1, 100, 0)) {
+            Connection conn = pool.borrow();
+            conn.close();
+            conn.close();
+
+            assertTrue(conn.isClosed());
+            assertThrows(SQLException.class, () -> conn.prepareStatement("SELECT 1"));
+            assertEquals(0, pool.stats().active());
+        }
+    }
+
+    @Test
+    void evictIdle_ShouldCloseExpiredConnections() throws Exception {
+        try (ConnectionPool pool = pool(2, 100, 1)) {
+            pool.borrow().close();
+            Thread.sleep(5);
+
+            pool.evictIdle();
+
+            assertEquals(0, pool.stats().idle());
+            verify(physical.get(0)).close();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.db;
+
+import org.example.repository.VacancySort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тесты для SchemaMigrator.
+ * Проверяет, что применяются только новые миграции и что базовая схема покрывает сортировки.
+ */
+class SchemaMigratorTest {
+
+    private Connection connection;
+    private Statement statement;
+    private ResultSet history;
+    private PreparedStatement insert;
+
+    private final SchemaMigrator.Migration v1 = new SchemaMigrator.Migration(1, "baseline", "CREATE TABLE a ()");
+    private final SchemaMigrator.Migration v2 = new SchemaMigrator.Migration(2, "second", "CREATE TABLE b ()");
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = mock(Connection.class);
+        statement = mock(Statement.class);
+        history = mock(ResultSet.class);
+        insert = mock(PreparedStatement.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(statement.executeQuery(startsWith("SELECT version"))).thenReturn(history);
+        when(connection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        when(connection.prepareStatement(startsWith("INSERT INTO schema_migrations"))).thenReturn(insert);
+    }
+
+    @Test
+    void migrate_ShouldApplyOnlyPendingMigrations() throws SQLException {
+        when(history.next()).thenReturn(true, false);
+        when(history.getInt("version")).thenReturn(1);
+        when(history.getLong("checksum")).thenReturn(v1.checksum());
+
+        int applied = new SchemaMigrator(() -> connection, List.of(v2, v1)).migrate();
+
+        assertEquals(1, applied);
+        verify(statement, never()).execute(v1.script());
+        verify(statement).execute(v2.script());
+        verify(insert).setInt(1, 2);
+        verify(connection).commit();
+        verify(connection).setAutoCommit(true);
+    }
+
+    @Test
+    void migrate_ShouldRollbackFailedMigration() throws SQLException {
+        when(history.next()).thenReturn(false);
+        when(statement.execute(v1.script())).thenThrow(new SQLException("syntax error"));
+
+        SQLException e = assertThrows(SQLException.class,
+                () -> new SchemaMigrator(() -> connection, List.of(v1, v2)).migrate());
+
+        assertTrue(e.getMessage().contains("V1"));
+        verify(connection).rollback();
+        verify(statement, never()).execute(v2.script());
+        verify(insert, never()).executeUpdate();
+        // advisory-блокировка снимается и при ошибке
+        verify(connection).prepareStatement(eq("SELECT pg_advisory_unlock(?)"));
+    }
+
+    @Test
+    void baselineSchema_ShouldIndexEverySortOrder() {
+        SchemaMigrator.Migration baseline = SchemaMigrator.Migration.load(SchemaMigrator.MIGRATIONS.get(0));
+
+        assertEquals(1, baseline.version());
+        assertTrue(baseline.script().contains("USING GIN (search_vector)"), "Нет полнотекстового индекса");
+        for (VacancySort sort : VacancySort.values()) {
+            if (sort == VacancySort.RELEVANCE) {
+                continue; // ранг считается для найденных строк, индекс по нему невозможен
+            }
+            for (VacancySort.SortKey key : sort.keys()) {
+                assertTrue(baseline.script().contains(key.expression()),
+                        "Нет индекса для ключа " + key.expression() + " сортировки " + sort);
+            }
+        }
+    }
+}
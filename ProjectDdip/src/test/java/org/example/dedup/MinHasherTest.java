@@ -0,0 +1,52 @@
+package org.example.dedup;
+
+import org.example.model.Vacancy;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для MinHasher.
+ */
+class MinHasherTest {
+
+    private final MinHasher hasher = new MinHasher(128, 4, 300);
+
+    @Test
+    void signature_SameVacancyOnDifferentSites_ShouldBeSimilar() {
+        Vacancy hh = vacancy("Java-разработчик (Senior)", "ООО «Ромашка»", "Москва",
+                "Опыт работы с <highlighttext>Java</highlighttext> от 5 лет, Spring Boot, PostgreSQL");
+        Vacancy superJob = vacancy("Java разработчик senior", "ООО Ромашка", "Москва",
+                "опыт работы с java от 5 лет; spring boot; postgresql");
+        Vacancy other = vacancy("Аналитик данных", "Лютик", "Казань", "SQL, Python, Airflow");
+
+        double same = MinHasher.similarity(hasher.signature(hh), hasher.signature(superJob));
+        double different = MinHasher.similarity(hasher.signature(hh), hasher.signature(other));
+
+        assertTrue(same > 0.6, "сходство дублей " + same);
+        assertTrue(different < 0.2, "сходство разных вакансий " + different);
+    }
+
+    @Test
+    void decode_ShouldRoundTripAndRejectOtherParameters() {
+        int[] signature = hasher.signature(vacancy("Java", "Company", "City", null));
+
+        assertArrayEquals(signature, hasher.decode(hasher.encode(signature)));
+        assertNull(new MinHasher(128, 5, 300).decode(hasher.encode(signature)));
+        assertNull(hasher.decode(null));
+    }
+
+    @Test
+    void normalize_ShouldStripTagsCaseAndPunctuation() {
+        assertEquals("java ёж".replace('ё', 'е'), MinHasher.normalize("<b>JAVA</b>, Ёж!"));
+    }
+
+    private static Vacancy vacancy(String title, String company, String city, String requirements) {
+        Vacancy v = new Vacancy();
+        v.setTitle(title);
+        v.setCompany(company);
+        v.setCity(city);
+        v.setRequirements(requirements);
+        return v;
+    }
+}
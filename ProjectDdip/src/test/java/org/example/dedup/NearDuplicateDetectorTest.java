@@ -0,0 +1,67 @@
+package org.example.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для NearDuplicateDetector.
+ */
+class NearDuplicateDetectorTest {
+
+    private final MinHasher hasher = new MinHasher(128, 4, 300);
+    private final NearDuplicateDetector detector = new NearDuplicateDetector(32, 0.6, 50);
+
+    @Test
+    void group_ShouldLinkDuplicatesUnderSmallestId() {
+        Map<Long, int[]> signatures = new HashMap<>();
+        signatures.put(7L, hasher.signature("java разработчик | ромашка | москва | spring boot postgresql"));
+        signatures.put(3L, hasher.signature("java разработчик | ромашка | москва | spring boot postgres"));
+        signatures.put(5L, hasher.signature("аналитик данных | лютик | казань | sql python"));
+
+        NearDuplicateDetector.Grouping grouping = detector.group(signatures);
+
+        assertEquals(3L, grouping.canonicalIds().get(7L));
+        assertEquals(3L, grouping.canonicalIds().get(3L));
+        assertEquals(5L, grouping.canonicalIds().get(5L));
+        assertEquals(1, grouping.linkedPairs());
+    }
+
+    @Test
+    void group_WithSources_ShouldLinkOnlyAcrossSources() {
+        Map<Long, int[]> signatures = new HashMap<>();
+        signatures.put(1L, hasher.signature("java разработчик | ромашка | москва | spring boot postgresql"));
+        signatures.put(2L, hasher.signature("java разработчик | ромашка | москва | spring boot postgres"));
+        signatures.put(3L, hasher.signature("аналитик данных | лютик | казань | sql python"));
+        signatures.put(4L, hasher.signature("аналитик данных | лютик | казань | sql pythons"));
+
+        NearDuplicateDetector.Grouping grouping = detector.group(signatures,
+                Map.of(1L, "hh.ru", 2L, "hh.ru", 3L, "hh.ru", 4L, "superjob.ru"));
+
+        assertEquals(2L, grouping.canonicalIds().get(2L));
+        assertEquals(3L, grouping.canonicalIds().get(4L));
+        assertEquals(1, grouping.linkedPairs());
+    }
+
+    @Test
+    void group_DistinctVacancies_ShouldProduceFewCandidates() {
+        SplittableRandom random = new SplittableRandom(42);
+        Map<Long, int[]> signatures = new HashMap<>();
+        for (long id = 1; id <= 2000; id++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 60; i++) {
+                text.append((char) ('а' + random.nextInt(32)));
+            }
+            signatures.put(id, hasher.signature(text.toString()));
+        }
+
+        NearDuplicateDetector.Grouping grouping = detector.group(signatures);
+
+        assertTrue(grouping.candidatePairs() < 2000, "кандидатов " + grouping.candidatePairs());
+        assertEquals(0, grouping.linkedPairs());
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.history;
+
+import org.example.repository.VacancyRepository;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тесты для ChangeHistoryMaintenance.
+ * Проверяет создание будущих секций журнала и свёртку секций старше срока хранения.
+ */
+class ChangeHistoryMaintenanceTest {
+
+    private final VacancyRepository repository = mock(VacancyRepository.class);
+
+    @Test
+    void run_ShouldCreateMissingPartitionsAndRetireExpired() throws SQLException {
+        YearMonth current = YearMonth.of(2026, 10);
+        when(repository.findChangePartitions()).thenReturn(List.of(
+                YearMonth.of(2025, 9), YearMonth.of(2025, 10), YearMonth.of(2025, 11), current));
+        when(repository.createChangePartition(any())).thenReturn(true);
+        when(repository.retireChangePartition(any(), anyBoolean())).thenReturn(30);
+
+        HistoryResult result = new ChangeHistoryMaintenance(repository, 2, 12, true).run(current);
+
+        verify(repository, never()).createChangePartition(current);
+        verify(repository).createChangePartition(YearMonth.of(2026, 11));
+        verify(repository).createChangePartition(YearMonth.of(2026, 12));
+        verify(repository).retireChangePartition(YearMonth.of(2025, 9), true);
+        verify(repository).retireChangePartition(YearMonth.of(2025, 10), true);
+        verify(repository, never()).retireChangePartition(eq(YearMonth.of(2025, 11)), anyBoolean());
+        assertEquals(2, result.created());
+        assertEquals(List.of(YearMonth.of(2025, 9), YearMonth.of(2025, 10)), result.retired());
+        assertEquals(60, result.summaryRows());
+    }
+
+    @Test
+    void run_ShouldMoveDefaultPartitionRowsIntoTheirMonths() throws SQLException {
+        YearMonth current = YearMonth.of(2026, 10);
+        when(repository.findChangePartitions()).thenReturn(List.of(current));
+        when(repository.findDefaultPartitionMonths()).thenReturn(List.of(YearMonth.of(2025, 1), YearMonth.of(2026, 8)));
+        when(repository.createChangePartition(any())).thenReturn(true);
+
+        HistoryResult result = new ChangeHistoryMaintenance(repository, 0, 12, true).run(current);
+
+        verify(repository).createChangePartition(YearMonth.of(2025, 1));
+        verify(repository).createChangePartition(YearMonth.of(2026, 8));
+        verify(repository).retireChangePartition(YearMonth.of(2025, 1), true);
+        verify(repository, never()).retireChangePartition(eq(YearMonth.of(2026, 8)), anyBoolean());
+        assertEquals(2, result.created());
+    }
+
+    @Test
+    void run_ShouldKeepHistoryWhenRetentionDisabled() throws SQLException {
+        YearMonth current = YearMonth.of(2026, 10);
+        when(repository.findChangePartitions()).thenReturn(List.of(YearMonth.of(2020, 1), current));
+
+        HistoryResult result = new ChangeHistoryMaintenance(repository, 0, 0, false).run(current);
+
+        verify(repository, never()).createChangePartition(any());
+        verify(repository, never()).retireChangePartition(any(), anyBoolean());
+        assertFalse(result.changed());
+    }
+
+    @Test
+    void checkpoint_ShouldWriteSnapshotOncePerInterval() throws SQLException {
+        ChangeHistoryMaintenance maintenance =
+                new ChangeHistoryMaintenance(repository, 0, 0, true, Duration.ofHours(24));
+        LocalDateTime latest = LocalDateTime.of(2026, 10, 17, 12, 0);
+        when(repository.findLatestSnapshotTime()).thenReturn(latest);
+        when(repository.createSnapshot(any())).thenReturn(1500);
+
+        assertEquals(-1, maintenance.checkpoint(latest.plusHours(23)));
+        assertEquals(1500, maintenance.checkpoint(latest.plusHours(24)));
+        verify(repository, times(1)).createSnapshot(latest.plusHours(24));
+    }
+}
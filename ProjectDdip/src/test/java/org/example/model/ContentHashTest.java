@@ -0,0 +1,64 @@
+package org.example.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для ContentHash.
+ * Проверяет, какие поля вакансии влияют на хэш содержимого.
+ */
+class ContentHashTest {
+
+    private static Vacancy vacancy() {
+        Vacancy v = new Vacancy();
+        v.setTitle("Java Developer");
+        v.setCompany("Acme");
+        v.setCity("Москва");
+        v.setSalaryFrom(100000);
+        v.setCurrency("RUR");
+        v.setRequirements("Java, SQL");
+        v.setUrl("https://hh.ru/vacancy/1");
+        return v;
+    }
+
+    @Test
+    void of_ShouldIgnoreDescriptionAndPublishedDate() {
+        Vacancy a = vacancy();
+        Vacancy b = vacancy();
+        b.setDescription("<p>Полное описание</p>");
+        b.setPublishedDate(LocalDateTime.of(2024, 3, 20, 10, 0));
+        b.setUrl("https://hh.ru/vacancy/2");
+
+        assertEquals(32, ContentHash.of(a).length());
+        assertEquals(ContentHash.of(a), ContentHash.of(b));
+    }
+
+    @Test
+    void of_ShouldChangeWithContentFields() {
+        Vacancy a = vacancy();
+        Vacancy b = vacancy();
+        b.setSalaryTo(150000);
+
+        assertNotEquals(ContentHash.of(a), ContentHash.of(b));
+    }
+
+    @Test
+    void of_ShouldNotConfuseFieldBoundariesAndNulls() {
+        Vacancy a = vacancy();
+        a.setTitle("Java");
+        a.setCompany("Developer Acme");
+        Vacancy b = vacancy();
+        b.setTitle("Java Developer");
+        b.setCompany("Acme");
+        Vacancy empty = vacancy();
+        empty.setCity("");
+        Vacancy missing = vacancy();
+        missing.setCity(null);
+
+        assertNotEquals(ContentHash.of(a), ContentHash.of(b));
+        assertNotEquals(ContentHash.of(empty), ContentHash.of(missing));
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для CrawlPlan и CrawlSlice.
+ */
+class CrawlPlanTest {
+
+    @Test
+    void slices_ShouldCoverEveryCombination() {
+        LocalDateTime since = LocalDateTime.of(2024, 3, 20, 10, 0);
+        CrawlPlan plan = new CrawlPlan(List.of("java", "kotlin"), List.of("1", "2"), List.of(),
+                Duration.ofDays(30), Duration.ofMinutes(30));
+
+        List<CrawlSlice> slices = plan.slices(since);
+
+        assertEquals(4, slices.size());
+        assertTrue(slices.contains(new CrawlSlice("kotlin", "2", null, since, null)));
+        assertTrue(slices.stream().allMatch(s -> s.to() == null));
+    }
+
+    @Test
+    void split_ShouldKeepOpenEndsAndMeetInTheMiddle() {
+        LocalDateTime now = LocalDateTime.of(2024, 3, 31, 0, 0);
+        CrawlSlice slice = new CrawlSlice("java", null, null, null, null);
+
+        List<CrawlSlice> halves = slice.split(now.minusDays(30), now, Duration.ofMinutes(30));
+
+        assertEquals(2, halves.size());
+        assertNull(halves.get(0).from());
+        assertEquals(now.minusDays(15), halves.get(0).to());
+        assertEquals(now.minusDays(15), halves.get(1).from());
+        assertNull(halves.get(1).to());
+    }
+
+    @Test
+    void split_ShouldAlignMiddleSoRepeatedCrawlsReuseBoundaries() {
+        CrawlSlice slice = new CrawlSlice("java", null, null, null, null);
+        LocalDateTime morning = LocalDateTime.of(2024, 3, 31, 9, 17);
+        LocalDateTime evening = LocalDateTime.of(2024, 3, 31, 18, 42);
+
+        CrawlSlice first = slice.split(morning.minusDays(30), morning, Duration.ofMinutes(30)).get(0);
+        CrawlSlice second = slice.split(evening.minusDays(30), evening, Duration.ofMinutes(30)).get(0);
+
+        assertEquals(LocalDateTime.of(2024, 3, 16, 0, 0), first.to());
+        assertEquals(first.to(), second.to());
+
+        CrawlSlice hour = new CrawlSlice("java", null, null, LocalDateTime.of(2024, 3, 30, 0, 0), null);
+        assertEquals(LocalDateTime.of(2024, 3, 30, 16, 0),
+                hour.split(morning.minusDays(30), morning, Duration.ofMinutes(30)).get(0).to());
+    }
+
+    @Test
+    void split_ShouldRefuseWindowShorterThanMinimum() {
+        LocalDateTime from = LocalDateTime.of(2024, 3, 20, 10, 0);
+        CrawlSlice slice = new CrawlSlice("java", null, null, from, from.plusMinutes(10));
+
+        assertTrue(slice.split(from.minusDays(30), from.plusDays(1), Duration.ofMinutes(30)).isEmpty());
+    }
+}
@@ -6,14 +6,23 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.example.model.Vacancy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -54,7 +63,7 @@ class HhVacancyParserTest {
         vacancyNode.put("published_at", "2024-03-20T10:00:00");
 
         when(httpResponse.statusCode()).thenReturn(200);
-        when(httpResponse.body()).thenReturn(rootNode.toString());
+        when(httpResponse.body()).thenAnswer(inv -> body(rootNode.toString()));
         when(httpClient.send(any(HttpRequest.class), any())).thenReturn(httpResponse);
     }
 
@@ -87,11 +96,202 @@ class HhVacancyParserTest {
     void fetchVacancies_ShouldHandleEmptyResponse() throws IOException, InterruptedException {
         ObjectNode emptyRoot = objectMapper.createObjectNode();
         emptyRoot.putArray("items");
-        when(httpResponse.body()).thenReturn(emptyRoot.toString());
+        when(httpResponse.body()).thenAnswer(inv -> body(emptyRoot.toString()));
 
         List<Vacancy> vacancies = parser.fetchVacancies();
 
         assertNotNull(vacancies);
         assertTrue(vacancies.isEmpty(), "Ожидаем пустой список при пустом ответе");
     }
+
+    @Test
+    void fetchVacancies_ShouldFetchRemainingPagesConcurrentlyInOrder() throws IOException, InterruptedException {
+        when(httpResponse.body()).thenAnswer(inv -> body(pageBody(0, true)));
+        doAnswer(inv -> {
+            HttpRequest request = inv.getArgument(0);
+            String query = request.uri().getQuery();
+            int page = Integer.parseInt(query.substring(query.lastIndexOf("page=") + 5));
+            @SuppressWarnings("unchecked")
+            HttpResponse<Object> response = mock(HttpResponse.class);
+            when(response.statusCode()).thenReturn(200);
+            when(response.body()).thenAnswer(i -> body(pageBody(page, false)));
+            return CompletableFuture.completedFuture(response);
+        }).when(httpClient).sendAsync(any(HttpRequest.class), any());
+
+        List<Vacancy> vacancies = HhVacancyParser.builder(new HttpTransport(httpClient), objectMapper)
+                .maxConcurrency(2).build().fetchVacancies();
+
+        verify(httpClient, times(1)).send(any(HttpRequest.class), any());
+        verify(httpClient, times(2)).sendAsync(any(HttpRequest.class), any());
+        assertEquals(List.of("https://hh.ru/vacancy/0", "https://hh.ru/vacancy/1", "https://hh.ru/vacancy/2"),
+                vacancies.stream().map(Vacancy::getUrl).toList());
+    }
+
+    @Test
+    void fetchVacancies_ShouldCancelPendingPagesOnFirstFailure() throws IOException, InterruptedException {
+        when(httpResponse.body()).thenAnswer(inv -> body(pageBody(0, true)));
+        CompletableFuture<HttpResponse<Object>> hanging = new CompletableFuture<>();
+        doAnswer(inv -> {
+            HttpRequest request = inv.getArgument(0);
+            if (request.uri().getQuery().endsWith("page=1")) {
+                return hanging;
+            }
+            @SuppressWarnings("unchecked")
+            HttpResponse<Object> response = mock(HttpResponse.class);
+            when(response.statusCode()).thenReturn(404);
+            when(response.body()).thenAnswer(i -> body("{}"));
+            return CompletableFuture.completedFuture(response);
+        }).when(httpClient).sendAsync(any(HttpRequest.class), any());
+
+        assertThrows(IOException.class, () -> HhVacancyParser.builder(new HttpTransport(httpClient), objectMapper)
+                .maxConcurrency(2).build().fetchVacancies());
+        verify(httpClient, times(2)).sendAsync(any(HttpRequest.class), any());
+    }
+
+    private String pageBody(int page, boolean withTotals) {
+        ObjectNode root = objectMapper.createObjectNode();
+        if (withTotals) {
+            root.put("pages", 3);
+        root.put("found", 250);
+        }
+        ObjectNode item = root.putArray("items").addObject();
+        item.put("name", "Java Developer " + page);
+        item.put("alternate_url", "https://hh.ru/vacancy/" + page);
+        return root.toString();
+    }
+
+    @Test
+    void parsePage_ShouldMapNestedFields() throws IOException {
+        String json = """
+                {"items": [{"name": "Java Developer", "employer": {"name": "Acme", "trusted": true},
+                  "area": {"name": "Moscow"}, "salary": {"from": 100, "to": null, "currency": "RUR"},
+                  "snippet": {"requirement": "Java", "responsibility": "Code"},
+                  "alternate_url": "https://hh.ru/vacancy/1", "schedule": {"id": "remote", "name": "Удаленная работа"},
+                  "unknown": [1, 2, 3]}], "found": 1}
+                """;
+
+        Vacancy v = parser.parsePage(body(json)).get(0);
+
+        assertEquals("Acme", v.getCompany());
+        assertEquals(100, v.getSalaryFrom());
+        assertNull(v.getSalaryTo());
+        assertEquals("Java | Code", v.getRequirements());
+        assertEquals("Удаленная работа", v.getWorkSchedule());
+        assertEquals("hh.ru", v.getSource());
+    }
+
+    @Test
+    void fetchVacancies_WithSince_ShouldPassDateFrom() throws IOException, InterruptedException {
+        parser.fetchVacancies(LocalDateTime.of(2024, 3, 20, 10, 0));
+
+        verify(httpClient).send(argThat(request -> request.uri().getQuery().contains("date_from=2024-03-20T10:00:00")),
+                any());
+    }
+
+    @Test
+    void fetchVacancies_NotModified_ShouldReuseCachedPage(@TempDir Path dir) throws IOException, InterruptedException {
+        HttpResponseCache cache = new HttpResponseCache(dir, 1024 * 1024);
+        HhVacancyParser cachingParser = HhVacancyParser.builder(new HttpTransport(httpClient), objectMapper)
+                .maxConcurrency(1).cache(cache).build();
+        when(httpResponse.headers()).thenReturn(HttpHeaders.of(Map.of("ETag", List.of("\"v1\"")), (k, v) -> true));
+
+        List<Vacancy> first = cachingParser.fetchVacancies();
+        when(httpResponse.statusCode()).thenReturn(304);
+        when(httpResponse.body()).thenAnswer(inv -> body(""));
+        List<Vacancy> second = cachingParser.fetchVacancies();
+
+        verify(httpClient).send(argThat(request -> request.headers().firstValue("If-None-Match")
+                .filter("\"v1\""::equals).isPresent()), any());
+        assertEquals(first.stream().map(Vacancy::getUrl).toList(), second.stream().map(Vacancy::getUrl).toList());
+        assertEquals(1, cache.stats().notModified());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    void fetchVacancies_On429_ShouldRetryAfterPauseWithoutParsingErrorBody() throws IOException, InterruptedException {
+        @SuppressWarnings("unchecked")
+        HttpResponse<Object> throttled = mock(HttpResponse.class);
+        when(throttled.statusCode()).thenReturn(429);
+        when(throttled.headers()).thenReturn(HttpHeaders.of(Map.of("Retry-After", List.of("0")), (k, v) -> true));
+        when(throttled.body()).thenAnswer(inv -> body("<html>Too Many Requests</html>"));
+        when(httpClient.send(any(HttpRequest.class), any())).thenReturn(throttled, httpResponse);
+
+        List<Vacancy> vacancies = parser.fetchVacancies();
+
+        assertEquals(1, vacancies.size());
+        verify(httpClient, times(2)).send(any(HttpRequest.class), any());
+        assertEquals(1, parser.limiter().throttled());
+    }
+
+    @Test
+    void fetchVacancies_OnClientError_ShouldFailInsteadOfParsingBody() throws IOException, InterruptedException {
+        when(httpResponse.statusCode()).thenReturn(403);
+
+        assertThrows(IOException.class, () -> parser.fetchVacancies());
+    }
+
+    @Test
+    void fetchVacancies_WithDetailCache_ShouldFetchDescriptionOnceUntilVacancyChanges(@TempDir Path dir)
+            throws IOException, InterruptedException {
+        @SuppressWarnings("unchecked")
+        HttpResponse<Object> detailResponse = mock(HttpResponse.class);
+        when(detailResponse.statusCode()).thenReturn(200);
+        when(detailResponse.body()).thenAnswer(inv -> body("{\"id\": \"123\", \"description\": \"<p>Spring, Kafka</p>\"}"));
+        when(httpClient.send(any(HttpRequest.class), any())).thenAnswer(inv -> {
+            HttpRequest request = inv.getArgument(0);
+            return request.uri().getPath().endsWith("/vacancies/123") ? detailResponse : httpResponse;
+        });
+        VacancyDetailCache details = new VacancyDetailCache(dir.resolve("hh.ru.json.gz"), 100);
+        HhVacancyParser enriching = HhVacancyParser.builder(new HttpTransport(httpClient), objectMapper)
+                .maxConcurrency(1).details(details).build();
+
+        List<Vacancy> first = enriching.fetchVacancies();
+        List<Vacancy> second = HhVacancyParser.builder(new HttpTransport(httpClient), objectMapper)
+                .maxConcurrency(1)
+                .details(new VacancyDetailCache(dir.resolve("hh.ru.json.gz"), 100))
+                .build()
+                .fetchVacancies();
+
+        assertEquals("<p>Spring, Kafka</p>", first.get(0).getDescription());
+        assertEquals("<p>Spring, Kafka</p>", second.get(0).getDescription());
+        verify(httpClient, times(1)).send(argThat(request -> request.uri().getPath().endsWith("/vacancies/123")),
+                any());
+    }
+
+    @Test
+    void fetchVacancies_OverCap_ShouldSplitByDateAndDeduplicate() throws IOException, InterruptedException {
+        String vacancy = "{\"name\": \"Java\", \"alternate_url\": \"https://hh.ru/vacancy/123\"}";
+        @SuppressWarnings("unchecked")
+        HttpResponse<Object> sliceResponse = mock(HttpResponse.class);
+        when(sliceResponse.statusCode()).thenReturn(200);
+        when(sliceResponse.body()).thenAnswer(inv -> body("{\"items\": [" + vacancy + "], \"found\": 1, \"pages\": 1}"));
+        when(httpResponse.body()).thenAnswer(inv -> body("{\"items\": [" + vacancy + "], \"found\": 5000, \"pages\": 50}"));
+        when(httpClient.send(any(HttpRequest.class), any())).thenAnswer(inv -> {
+            HttpRequest request = inv.getArgument(0);
+            return request.uri().getQuery().contains("date_") ? sliceResponse : httpResponse;
+        });
+        HhVacancyParser slicing = HhVacancyParser.builder(new HttpTransport(httpClient), objectMapper)
+                .maxConcurrency(1).plan(CrawlPlan.of("java")).build();
+
+        List<Vacancy> vacancies = slicing.fetchVacancies();
+
+        assertEquals(1, vacancies.size());
+        verify(httpClient).send(argThat(request -> request.uri().getQuery().contains("date_to=")
+                && !request.uri().getQuery().contains("date_from=")), any());
+        verify(httpClient).send(argThat(request -> request.uri().getQuery().contains("date_from=")
+                && !request.uri().getQuery().contains("date_to=")), any());
+        verify(httpClient, times(3)).send(any(HttpRequest.class), any());
+    }
+
+    @Test
+    void vacancyId_ShouldExtractIdFromAlternateUrl() {
+        assertEquals("123", HhVacancyParser.vacancyId("https://hh.ru/vacancy/123"));
+        assertEquals("456", HhVacancyParser.vacancyId("https://spb.hh.ru/vacancy/456?from=search"));
+        assertNull(HhVacancyParser.vacancyId("https://hh.ru/employer/1"));
+        assertNull(HhVacancyParser.vacancyId(null));
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
 }
@@ -0,0 +1,101 @@
+package org.example.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для HttpResponseCache.
+ */
+class HttpResponseCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void store_ShouldRoundTripBodyAndAddValidators() throws IOException {
+        HttpResponseCache cache = new HttpResponseCache(dir, 1024 * 1024);
+        byte[] body = "{\"items\": []}".getBytes(StandardCharsets.UTF_8);
+
+        cache.store("https://api.example/page=0", headers(Map.of("ETag", "\"v1\"")), body);
+
+        HttpResponseCache.Entry entry = cache.lookup("https://api.example/page=0");
+        assertArrayEquals(body, cache.read(entry));
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("https://api.example/page=0"));
+        entry.addValidators(builder);
+        assertEquals(List.of("\"v1\""), builder.build().headers().allValues("If-None-Match"));
+        assertNull(cache.lookup("https://api.example/page=1"));
+    }
+
+    @Test
+    void read_MissingBody_ShouldDropEntry() throws IOException {
+        HttpResponseCache cache = new HttpResponseCache(dir, 1024 * 1024);
+        cache.store("u", headers(Map.of("ETag", "\"v1\"")), "{}".getBytes(StandardCharsets.UTF_8));
+        HttpResponseCache.Entry entry = cache.lookup("u");
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".gz")).toList()) {
+                Files.delete(file);
+            }
+        }
+
+        assertNull(cache.read(entry));
+        assertNull(cache.lookup("u"));
+        assertEquals(0, cache.stats().entries());
+    }
+
+    @Test
+    void store_SameBodyTwice_ShouldCountUnchanged() throws IOException {
+        HttpResponseCache cache = new HttpResponseCache(dir, 1024 * 1024);
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+
+        cache.store("u", headers(Map.of()), body);
+        cache.store("u", headers(Map.of()), body);
+        cache.notModified("u", headers(Map.of()));
+
+        HttpCacheStats stats = cache.stats();
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.unchanged());
+        assertEquals(1, stats.notModified());
+        assertEquals(2.0 / 3, stats.hitRatio(), 1e-9);
+    }
+
+    @Test
+    void store_OverLimit_ShouldEvictLeastRecentlyUsedAndSurviveRestart() throws IOException {
+        byte[] body = new byte[4096];
+        new Random(1).nextBytes(body);  // несжимаемое тело
+        HttpResponseCache cache = new HttpResponseCache(dir, 10_000);
+
+        cache.store("a", headers(Map.of()), body);
+        cache.store("b", headers(Map.of()), body);
+        cache.lookup("a");
+        cache.store("c", headers(Map.of()), body);
+
+        assertNull(cache.lookup("b"));
+        assertEquals(1, cache.stats().evictions());
+
+        HttpResponseCache reopened = new HttpResponseCache(dir, 10_000);
+        assertEquals(2, reopened.stats().entries());
+        assertArrayEquals(body, reopened.read(reopened.lookup("c")));
+    }
+
+    private static HttpHeaders headers(Map<String, String> values) {
+        return HttpHeaders.of(
+                values.entrySet().stream().collect(Collectors.toMap(
+                        Map.Entry::getKey, e -> List.of(e.getValue()))),
+                (k, v) -> true);
+    }
+}
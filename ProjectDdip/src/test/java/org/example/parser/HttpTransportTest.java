@@ -0,0 +1,93 @@
+package org.example.parser;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для HttpTransport на локальном HTTP-сервере.
+ */
+class HttpTransportTest {
+
+    private static final String JSON = "{\"items\": [" + "{\"name\": \"Java Developer\"},".repeat(200) + "{}]}";
+
+    private HttpServer server;
+    private HttpTransport transport;
+    private final List<String> acceptEncodings = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/page", exchange -> {
+            acceptEncodings.add(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            byte[] body = gzip(JSON.getBytes(StandardCharsets.UTF_8));
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        transport = new HttpTransport(HttpClient.newHttpClient(), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void send_ShouldRequestGzipAndDecodeBody() throws Exception {
+        HttpResponse<InputStream> response = transport.send(transport.newRequest(url()).build());
+        String body;
+        try (InputStream in = response.body()) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        assertEquals(JSON, body);
+        assertEquals(List.of("gzip, deflate"), acceptEncodings);
+    }
+
+    @Test
+    void stats_ShouldRecordWireAndDecodedBytesPerHost() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            try (InputStream in = transport.sendAsync(transport.newRequest(url()).build()).get().body()) {
+                in.readAllBytes();
+            }
+        }
+
+        HttpTransportStats stats = transport.stats().get("127.0.0.1");
+        assertEquals(2, stats.requests());
+        assertEquals(2L * JSON.length(), stats.bodyBytes());
+        assertTrue(stats.wireBytes() < stats.bodyBytes());
+        assertTrue(stats.compressionRatio() > 1.0);
+    }
+
+    private String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/page";
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        }
+        return out.toByteArray();
+    }
+}
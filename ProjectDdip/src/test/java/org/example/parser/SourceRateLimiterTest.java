@@ -0,0 +1,71 @@
+package org.example.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для SourceRateLimiter.
+ */
+class SourceRateLimiterTest {
+
+    @Test
+    void throttled_ShouldHalveLimitAndPauseForRetryAfter() throws InterruptedException {
+        SourceRateLimiter limiter = new SourceRateLimiter("test", 1000, 8, 8);
+
+        limiter.acquire();
+        limiter.release(SourceRateLimiter.Outcome.THROTTLED, Duration.ofMillis(300));
+        long start = System.nanoTime();
+        limiter.acquire();
+        long waitedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(4, limiter.limit());
+        assertEquals(500.0, limiter.rate(), 1e-9);
+        assertTrue(waitedMillis >= 250, "Запрос выдан раньше Retry-After: " + waitedMillis + " мс");
+    }
+
+    @Test
+    void success_ShouldRampLimitBackUp() throws InterruptedException {
+        SourceRateLimiter limiter = new SourceRateLimiter("test", 1000, 8, 8);
+        limiter.acquire();
+        limiter.release(SourceRateLimiter.Outcome.THROTTLED, Duration.ZERO);
+        limiter.acquire();
+        limiter.release(SourceRateLimiter.Outcome.THROTTLED, Duration.ZERO);
+        assertEquals(2, limiter.limit());
+
+        for (int i = 0; i < 40; i++) {
+            limiter.acquire();
+            limiter.release(SourceRateLimiter.Outcome.SUCCESS, null);
+        }
+
+        assertEquals(8, limiter.limit());
+        assertEquals(1000.0, limiter.rate(), 1e-9);
+    }
+
+    @Test
+    void acquire_ShouldSpaceRequestsByRate() throws InterruptedException {
+        SourceRateLimiter limiter = new SourceRateLimiter("test", 20, 1, 4);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+            limiter.release(SourceRateLimiter.Outcome.SUCCESS, null);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis >= 180, "5 запросов при 20 запр/с заняли " + elapsedMillis + " мс");
+    }
+
+    @Test
+    void retryAfter_ShouldParseSeconds() {
+        HttpHeaders headers = HttpHeaders.of(Map.of("Retry-After", List.of("7")), (k, v) -> true);
+
+        assertEquals(Duration.ofSeconds(7), SourceRateLimiter.retryAfter(headers));
+        assertNull(SourceRateLimiter.retryAfter(HttpHeaders.of(Map.of(), (k, v) -> true)));
+    }
+}
@@ -9,11 +9,15 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -55,7 +59,7 @@ class SuperJobVacancyParserTest {
         vacancyNode.put("date_published", "2024-03-20T10:00:00");
         
         when(httpResponse.statusCode()).thenReturn(200);
-        when(httpResponse.body()).thenReturn(rootNode.toString());
+        when(httpResponse.body()).thenAnswer(inv -> body(rootNode.toString()));
         when(httpClient.send(any(HttpRequest.class), any())).thenReturn(httpResponse);
     }
 
@@ -88,8 +92,47 @@ class SuperJobVacancyParserTest {
     void fetchVacancies_ShouldHandleEmptyResponse() throws IOException, InterruptedException {
         ObjectNode rootNode = objectMapper.createObjectNode();
         rootNode.putArray("objects");
-        when(httpResponse.body()).thenReturn(rootNode.toString());
+        when(httpResponse.body()).thenAnswer(inv -> body(rootNode.toString()));
         List<Vacancy> vacancies = parser.fetchVacancies();
         assertTrue(vacancies.isEmpty(), "Ожидаем пустой список при пустом ответе");
     }
-} 
\ No newline at end of file
+
+    @Test
+    void fetchVacancies_ShouldFetchRemainingPagesConcurrentlyInOrder() throws IOException, InterruptedException {
+        when(httpResponse.body()).thenAnswer(inv -> body(pageBody(0, true)));
+        doAnswer(inv -> {
+            HttpRequest request = inv.getArgument(0);
+            String query = request.uri().getQuery();
+            int page = Integer.parseInt(query.substring(query.lastIndexOf("page=") + 5));
+            @SuppressWarnings("unchecked")
+            HttpResponse<Object> response = mock(HttpResponse.class);
+            when(response.statusCode()).thenReturn(200);
+            when(response.body()).thenAnswer(i -> body(pageBody(page, false)));
+            return CompletableFuture.completedFuture(response);
+        }).when(httpClient).sendAsync(any(HttpRequest.class), any());
+
+        List<Vacancy> vacancies = SuperJobVacancyParser.builder(new HttpTransport(httpClient), objectMapper)
+                .maxConcurrency(2).build().fetchVacancies();
+
+        verify(httpClient, times(1)).send(any(HttpRequest.class), any());
+        verify(httpClient, times(2)).sendAsync(any(HttpRequest.class), any());
+        assertEquals(List.of("https://superjob.ru/vacancy/0", "https://superjob.ru/vacancy/1", "https://superjob.ru/vacancy/2"),
+                vacancies.stream().map(Vacancy::getUrl).toList());
+    }
+
+    private String pageBody(int page, boolean withTotals) {
+        ObjectNode root = objectMapper.createObjectNode();
+        if (withTotals) {
+            root.put("total", 250);
+        root.put("more", true);
+        }
+        ObjectNode item = root.putArray("objects").addObject();
+        item.put("profession", "Java Developer " + page);
+        item.put("link", "https://superjob.ru/vacancy/" + page);
+        return root.toString();
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для VacancyDetailCache.
+ */
+class VacancyDetailCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void get_ShouldMissWhenMarkerChanged() {
+        VacancyDetailCache cache = new VacancyDetailCache(null, 10);
+        cache.put("1", "2024-03-20T10:00", "описание");
+
+        assertEquals("описание", cache.get("1", "2024-03-20T10:00"));
+        assertNull(cache.get("1", "2024-03-21T09:00"));
+        assertNull(cache.get("2", "2024-03-20T10:00"));
+    }
+
+    @Test
+    void flush_ShouldSurviveRestartAndEvictLeastRecentlyUsed() throws IOException {
+        Path file = dir.resolve("hh.ru.json.gz");
+        VacancyDetailCache cache = new VacancyDetailCache(file, 2);
+        cache.put("1", "m", "first");
+        cache.put("2", "m", "second");
+        cache.get("1", "m");
+        cache.put("3", "m", "third");
+        cache.flush();
+
+        VacancyDetailCache reloaded = new VacancyDetailCache(file, 2);
+        assertEquals(2, reloaded.size());
+        assertEquals("first", reloaded.get("1", "m"));
+        assertNull(reloaded.get("2", "m"));
+        assertEquals("third", reloaded.get("3", "m"));
+    }
+
+    @Test
+    void constructor_WithCorruptFile_ShouldStartEmpty() throws IOException {
+        Path file = dir.resolve("hh.ru.json.gz");
+        Files.writeString(file, "not gzip");
+
+        VacancyDetailCache cache = new VacancyDetailCache(file, 10);
+
+        assertEquals(0, cache.size());
+    }
+}
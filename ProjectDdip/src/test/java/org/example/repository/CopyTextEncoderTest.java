@@ -0,0 +1,75 @@
+package org.example.repository;
+
+import org.example.model.ContentHash;
+import org.example.model.Vacancy;
+import org.example.model.VacancyChange;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для CopyTextEncoder.
+ * Проверяет экранирование значений и порядок колонок в текстовом формате COPY.
+ */
+class CopyTextEncoderTest {
+
+    @Test
+    void appendValue_ShouldEscapeSpecialCharacters() {
+        StringBuilder sb = new StringBuilder();
+        CopyTextEncoder.appendValue(sb, "<p>a\tb</p>\r\n<div>C:\\dir</div>\0");
+
+        assertEquals("<p>a\\tb</p>\\r\\n<div>C:\\\\dir</div>", sb.toString());
+    }
+
+    @Test
+    void appendValue_ShouldWriteNullMarker() {
+        StringBuilder sb = new StringBuilder();
+        CopyTextEncoder.appendValue(sb, (String) null);
+
+        assertEquals("\\N", sb.toString());
+    }
+
+    @Test
+    void appendVacancy_ShouldProduceOneLineWithAllColumns() {
+        Vacancy v = new Vacancy();
+        v.setTitle("Java Developer");
+        v.setSalaryFrom(100000);
+        v.setDescription("line1\nline2");
+        v.setUrl("https://hh.ru/vacancy/1");
+        v.setPublishedDate(LocalDateTime.of(2024, 3, 20, 10, 0));
+        v.setIsActive(true);
+
+        StringBuilder sb = new StringBuilder();
+        CopyTextEncoder.appendVacancy(sb, v);
+        String line = sb.toString();
+
+        assertTrue(line.endsWith("\n"));
+        assertEquals(1, line.chars().filter(c -> c == '\n').count());
+        String[] fields = line.substring(0, line.length() - 1).split("\t", -1);
+        assertEquals(CopyTextEncoder.VACANCY_COLUMNS.split(",").length, fields.length);
+        assertEquals("Java Developer", fields[0]);
+        assertEquals("\\N", fields[1]);
+        assertEquals("100000", fields[3]);
+        assertEquals("line1\\nline2", fields[6]);
+        assertEquals("2024-03-20T10:00", fields[8]);
+        assertEquals("t", fields[14]);
+        assertEquals("\\N", fields[15]);
+        assertEquals(ContentHash.of(v), fields[16]);
+    }
+
+    @Test
+    void appendChange_ShouldMatchChangeColumns() {
+        VacancyChange change = new VacancyChange(7L, "https://hh.ru/vacancy/1", "ADDED",
+                LocalDateTime.of(2024, 3, 20, 10, 0), "Java", null, null, null, null, null, null, null);
+
+        StringBuilder sb = new StringBuilder();
+        CopyTextEncoder.appendChange(sb, change);
+        String[] fields = sb.substring(0, sb.length() - 1).split("\t", -1);
+
+        assertEquals(CopyTextEncoder.CHANGE_COLUMNS.split(",").length, fields.length);
+        assertEquals("7", fields[0]);
+        assertEquals("ADDED", fields[2]);
+    }
+}
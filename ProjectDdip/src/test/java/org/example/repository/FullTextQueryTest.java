@@ -0,0 +1,41 @@
+package org.example.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для FullTextQuery.
+ * Проверяет построение tsquery из пользовательского ввода: слова, фразы, префиксы и исключения.
+ */
+class FullTextQueryTest {
+
+    @Test
+    void toTsQuery_ShouldJoinWordsWithAnd() {
+        assertEquals("'java' & 'spring'", FullTextQuery.toTsQuery("  java   spring "));
+    }
+
+    @Test
+    void toTsQuery_ShouldBuildPhraseAndPrefix() {
+        assertEquals("('java' <-> 'developer') & 'разраб':*",
+                FullTextQuery.toTsQuery("\"java developer\" разраб*"));
+    }
+
+    @Test
+    void toTsQuery_ShouldNegateExcludedWord() {
+        assertEquals("'java' & !('junior')", FullTextQuery.toTsQuery("java -junior"));
+    }
+
+    @Test
+    void toTsQuery_ShouldQuoteSpecialCharacters() {
+        assertEquals("'c++' & 'o''reilly'", FullTextQuery.toTsQuery("c++ (o'reilly)"));
+        assertEquals("'a' & 'b'", FullTextQuery.toTsQuery("a & | ! b"));
+    }
+
+    @Test
+    void toTsQuery_ShouldReturnNullWithoutPositiveTerms() {
+        assertNull(FullTextQuery.toTsQuery("  "));
+        assertNull(FullTextQuery.toTsQuery("&& !!"));
+        assertNull(FullTextQuery.toTsQuery("-junior"));
+    }
+}
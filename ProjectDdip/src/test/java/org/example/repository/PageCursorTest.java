@@ -0,0 +1,52 @@
+package org.example.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для PageCursor и VacancySort.
+ * Проверяет кодирование курсора и построение условий keyset-пагинации.
+ */
+class PageCursorTest {
+
+    @Test
+    void encodeDecode_ShouldRoundTrip() {
+        PageCursor cursor = new PageCursor(VacancySort.COMPANY, true, List.of("false", "ООО \"Ромашка\". Москва"), 42L);
+
+        PageCursor decoded = PageCursor.decode(cursor.encode(), VacancySort.COMPANY);
+
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    void decode_ShouldRejectCursorOfAnotherSort() {
+        String cursor = new PageCursor(VacancySort.CITY, false, List.of("false", "Москва"), 1L).encode();
+
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(cursor, VacancySort.COMPANY));
+    }
+
+    @Test
+    void decode_ShouldRejectGarbage() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not a cursor!", VacancySort.CITY));
+    }
+
+    @Test
+    void seekPredicate_ShouldFlipComparisonForBackwardAndDescending() {
+        assertEquals("(COALESCE(salary_from, salary_to, 2147483647), id) > (CAST(? AS integer), ?)",
+                VacancySort.SALARY_ASC.seekPredicate(false));
+        assertEquals("(COALESCE(salary_from, salary_to, 2147483647), id) < (CAST(? AS integer), ?)",
+                VacancySort.SALARY_ASC.seekPredicate(true));
+        assertEquals("(COALESCE(published_date, '-infinity'::timestamp), COALESCE(created_at, '-infinity'::timestamp), id)"
+                        + " < (CAST(? AS timestamp), CAST(? AS timestamp), ?)",
+                VacancySort.PUBLISHED_DESC.seekPredicate(false));
+    }
+
+    @Test
+    void orderBy_ShouldReverseForBackwardPage() {
+        assertEquals("(city IS NULL) ASC, COALESCE(city, '') ASC, id ASC", VacancySort.CITY.orderBy(false));
+        assertEquals("(city IS NULL) DESC, COALESCE(city, '') DESC, id DESC", VacancySort.CITY.orderBy(true));
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.repository;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тесты для VacancyQuery.
+ * Проверяет компиляцию составного запроса в один SQL, порядок параметров и кэш форм.
+ */
+class VacancyQueryTest {
+
+    @Test
+    void listSql_ShouldCombineAllFiltersInOneStatement() {
+        VacancyQuery query = VacancyQuery.builder()
+                .city("Москва")
+                .minSalary(100_000)
+                .keyword("java")
+                .sort(VacancySort.SALARY_DESC)
+                .limit(20)
+                .projection(VacancyQuery.Projection.SUMMARY)
+                .build();
+
+        String sql = query.listSql();
+
+        assertTrue(sql.startsWith("SELECT id, title, company, city, salary_from, salary_to, currency, url,"));
+        assertFalse(sql.contains("description"));
+        assertTrue(sql.contains("WHERE is_active = true AND city = ? AND salary_from >= ? AND search_vector @@ query.q"));
+        assertFalse(sql.contains("company = ?"));
+        assertTrue(sql.endsWith("ORDER BY " + VacancySort.SALARY_DESC.orderBy(false) + " LIMIT ?"));
+    }
+
+    @Test
+    void bindList_ShouldBindParametersInSqlOrder() throws SQLException {
+        VacancyQuery query = VacancyQuery.builder()
+                .company("Яндекс")
+                .maxSalary(300_000)
+                .keyword("java")
+                .limit(10)
+                .offset(30)
+                .build();
+        PreparedStatement ps = mock(PreparedStatement.class);
+
+        query.bindList(ps);
+
+        InOrder order = inOrder(ps);
+        order.verify(ps).setString(1, "'java'");
+        order.verify(ps).setString(2, "'java'");
+        order.verify(ps).setString(3, "Яндекс");
+        order.verify(ps).setInt(4, 300_000);
+        order.verify(ps).setInt(5, 10);
+        order.verify(ps).setLong(6, 30L);
+        assertTrue(query.listSql().contains("ORDER BY ts_rank_cd(search_vector, query.q) DESC, id DESC"));
+    }
+
+    @Test
+    void listSql_ShouldReuseCompiledShapeForDifferentValues() {
+        String first = VacancyQuery.builder().city("Казань").minSalary(1).build().listSql();
+        int shapes = VacancyQuery.cachedShapes();
+
+        String second = VacancyQuery.builder().city("Пермь").minSalary(2).build().listSql();
+
+        assertSame(first, second);
+        assertEquals(shapes, VacancyQuery.cachedShapes());
+    }
+
+    @Test
+    void pageSql_ShouldAppendSeekPredicateAfterFilters() throws SQLException {
+        VacancyQuery query = VacancyQuery.builder().city("Москва").sort(VacancySort.CITY).build();
+        PageCursor cursor = new PageCursor(VacancySort.CITY, false, List.of("false", "Москва"), 7L);
+        PreparedStatement ps = mock(PreparedStatement.class);
+
+        String sql = query.pageSql(cursor);
+        query.bindPage(ps, cursor, 20);
+
+        assertTrue(sql.contains("city = ? AND " + VacancySort.CITY.seekPredicate(false)));
+        verify(ps).setString(1, "Москва");
+        verify(ps).setString(2, "false");
+        verify(ps).setString(3, "Москва");
+        verify(ps).setLong(4, 7L);
+        verify(ps).setInt(5, 21);
+    }
+
+    @Test
+    void pageSort_ShouldRankKeywordSearchByRelevanceUnlessSortChosen() throws SQLException {
+        VacancyQuery ranked = VacancyQuery.builder().keyword("java").build();
+        PageCursor cursor = new PageCursor(VacancySort.RELEVANCE, false, List.of("0.1"), 9L);
+        PreparedStatement ps = mock(PreparedStatement.class);
+
+        String sql = ranked.pageSql(cursor);
+        ranked.bindPage(ps, cursor, 20);
+
+        assertEquals(VacancySort.RELEVANCE, ranked.pageSort());
+        assertTrue(sql.contains("search_vector @@ query.q AND " + VacancySort.RELEVANCE.seekPredicate(false)));
+        assertTrue(sql.endsWith("ORDER BY " + VacancySort.RELEVANCE.orderBy(false) + " LIMIT ?"));
+        verify(ps).setString(3, "0.1");
+        verify(ps).setLong(4, 9L);
+        assertEquals(VacancySort.SALARY_ASC,
+                VacancyQuery.builder().keyword("java").sort(VacancySort.SALARY_ASC).build().pageSort());
+        assertEquals(VacancySort.PUBLISHED_DESC,
+                VacancyQuery.builder().sort(VacancySort.RELEVANCE).build().pageSort());
+    }
+
+    @Test
+    void matchesNothing_ShouldBeTrueForKeywordWithoutTerms() {
+        assertTrue(VacancyQuery.builder().keyword("-junior").build().matchesNothing());
+        assertFalse(VacancyQuery.builder().keyword("  ").build().matchesNothing());
+    }
+}
@@ -9,9 +9,12 @@ import org.mockito.MockitoAnnotations;
 
 import java.sql.*;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -40,6 +43,7 @@ class VacancyRepositoryTest {
         MockitoAnnotations.openMocks(this);
         when(dbManager.getConnection()).thenReturn(connection);
         when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(connection.prepareStatement(anyString(), any(String[].class))).thenReturn(preparedStatement);
         repository = new VacancyRepository(dbManager);
     }
 
@@ -136,4 +140,141 @@ class VacancyRepositoryTest {
         verify(preparedStatement).setString(12, workSchedule);
         verify(preparedStatement).executeUpdate();
     }
-} 
\ No newline at end of file
+
+    @Test
+    void saveAll_ShouldSendRowsInChunks() throws SQLException {
+        repository = new VacancyRepository(dbManager, 2);
+        List<Vacancy> vacancies = List.of(vacancy("http://example.com/1"),
+                vacancy("http://example.com/2"), vacancy("http://example.com/3"));
+
+        when(preparedStatement.getGeneratedKeys()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, true);
+        when(resultSet.getLong(1)).thenReturn(11L, 12L, 13L);
+
+        BatchResult result = repository.saveAll(vacancies);
+
+        assertEquals(3, result.succeeded());
+        assertFalse(result.hasFailures());
+        verify(preparedStatement, times(3)).addBatch();
+        verify(preparedStatement, times(2)).executeBatch();
+        verify(connection, times(2)).commit();
+        assertEquals(List.of(11L, 12L, 13L), vacancies.stream().map(Vacancy::getId).toList());
+    }
+
+    @Test
+    void saveAll_ShouldReportFailedRowWithoutAbortingBatch() throws SQLException {
+        List<Vacancy> vacancies = List.of(vacancy("http://example.com/1"), vacancy("http://example.com/dup"));
+        when(preparedStatement.executeBatch()).thenThrow(new BatchUpdateException());
+        when(preparedStatement.executeUpdate())
+                .thenReturn(1)
+                .thenThrow(new SQLException("duplicate key value"));
+        when(preparedStatement.getGeneratedKeys()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getLong(1)).thenReturn(21L);
+
+        BatchResult result = repository.saveAll(vacancies);
+
+        assertEquals(1, result.succeeded());
+        assertEquals(1, result.failures().size());
+        assertEquals(1, result.failures().get(0).index());
+        assertEquals("http://example.com/dup", result.failures().get(0).key());
+        assertEquals(21L, vacancies.get(0).getId());
+        assertNull(vacancies.get(1).getId());
+    }
+
+    @Test
+    void findPage_ShouldReturnNextCursorWhenMoreRowsExist() throws SQLException {
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, true, false);
+        when(resultSet.getLong("id")).thenReturn(3L, 2L, 1L);
+        when(resultSet.getString("sort_k0")).thenReturn("2024-03-03 00:00:00", "2024-03-02 00:00:00", "2024-03-01 00:00:00");
+        when(resultSet.getString("sort_k1")).thenReturn("2024-03-04 10:00:00", "2024-03-04 09:00:00", "2024-03-04 08:00:00");
+
+        Page<Vacancy> page = repository.findPage(VacancySort.PUBLISHED_DESC, null, 2);
+
+        assertEquals(2, page.items().size());
+        assertTrue(page.hasNext());
+        assertFalse(page.hasPrevious());
+        verify(preparedStatement).setInt(1, 3);
+
+        PageCursor next = PageCursor.decode(page.nextCursor(), VacancySort.PUBLISHED_DESC);
+        assertFalse(next.backward());
+        assertEquals(2L, next.id());
+        assertEquals(List.of("2024-03-02 00:00:00", "2024-03-04 09:00:00"), next.keyValues());
+    }
+
+    @Test
+    void findPage_BackwardCursor_ShouldRestoreOrder() throws SQLException {
+        String cursor = new PageCursor(VacancySort.PUBLISHED_DESC, true,
+                List.of("2024-03-01 00:00:00", "2024-03-04 08:00:00"), 10L).encode();
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getLong("id")).thenReturn(11L, 12L);
+        when(resultSet.getString("sort_k0")).thenReturn("2024-03-02 00:00:00", "2024-03-03 00:00:00");
+        when(resultSet.getString("sort_k1")).thenReturn("2024-03-04 09:00:00", "2024-03-04 10:00:00");
+
+        Page<Vacancy> page = repository.findPage(VacancySort.PUBLISHED_DESC, cursor, 2);
+
+        assertEquals(List.of(12L, 11L), page.items().stream().map(Vacancy::getId).toList());
+        assertTrue(page.hasNext());
+        assertFalse(page.hasPrevious());
+        verify(preparedStatement).setString(1, "2024-03-01 00:00:00");
+        verify(preparedStatement).setString(2, "2024-03-04 08:00:00");
+        verify(preparedStatement).setLong(3, 10L);
+    }
+
+    @Test
+    void streamAllActive_ShouldUseServerSideCursorAndReleaseConnectionOnClose() throws SQLException {
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getLong("id")).thenReturn(1L, 2L);
+
+        try (Stream<Vacancy> vacancies = repository.streamAllActive()) {
+            assertEquals(List.of(1L, 2L), vacancies.map(Vacancy::getId).toList());
+            verify(connection, never()).close();
+        }
+
+        verify(connection).setAutoCommit(false);
+        verify(preparedStatement).setFetchSize(anyInt());
+        verify(resultSet).close();
+        verify(preparedStatement).close();
+        verify(connection).close();
+    }
+
+    @Test
+    void reconcile_ReactivatedAndEdited_ShouldRewriteRowInOneEvent() throws SQLException {
+        when(connection.createStatement()).thenReturn(mock(Statement.class));
+        when(preparedStatement.executeUpdate()).thenReturn(0, 1, 0, 0);
+        List<String> statements = new ArrayList<>();
+        when(connection.prepareStatement(anyString())).thenAnswer(inv -> {
+            statements.add(inv.getArgument(0));
+            return preparedStatement;
+        });
+        Vacancy edited = vacancy("http://example.com/back");
+        edited.setSalaryFrom(200_000);
+
+        ReconcileResult result = repository.reconcile(List.of(edited), LocalDateTime.now());
+
+        assertEquals(1, result.reactivated());
+        String reactivated = statements.stream().filter(sql -> sql.contains("v.is_active = false")).findFirst().orElseThrow();
+        String changed = statements.stream().filter(sql -> sql.contains("AND v.content_hash IS DISTINCT FROM s.content_hash")).findFirst().orElseThrow();
+        // содержимое, хэш и diff пишутся вместе с возвратом, одним событием
+        assertTrue(reactivated.contains("salary_from = s.salary_from"));
+        assertTrue(reactivated.contains("content_hash = s.content_hash"));
+        assertTrue(reactivated.contains(", diff)"));
+        assertEquals(1, reactivated.split("INSERT INTO vacancy_changes", -1).length - 1);
+        assertTrue(reactivated.contains("RETURNING v.id, v.url, v.title"), "событие должно нести значения строки");
+        // к моменту поиска изменённых хэш возвращённой строки уже совпадает с выгрузкой
+        assertTrue(statements.indexOf(reactivated) < statements.indexOf(changed));
+        assertTrue(changed.contains("WHERE v.is_active = true"));
+    }
+
+    private Vacancy vacancy(String url) {
+        Vacancy v = new Vacancy();
+        v.setUrl(url);
+        v.setTitle("Test Vacancy");
+        v.setIsActive(true);
+        return v;
+    }
+}
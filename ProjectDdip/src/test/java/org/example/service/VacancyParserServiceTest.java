@@ -1,19 +1,33 @@
 package org.example.service;
 
+import org.example.model.ContentHash;
 import org.example.model.Vacancy;
 import org.example.parser.VacancyParser;
+import org.example.repository.BatchResult;
+import org.example.repository.ReconcileResult;
+import org.example.repository.SyncWatermark;
 import org.example.repository.VacancyRepository;
+import org.example.spool.VacancySpool;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -67,7 +81,7 @@ class VacancyParserServiceTest {
     @Test
     void parseAndSaveAll_ShouldDeactivateOldVacancies() throws IOException, InterruptedException, SQLException {
         List<String> oldUrls = Arrays.asList("http://example.com/old1", "http://example.com/old2");
-        when(repository.findAllActiveUrls()).thenReturn(oldUrls);
+        when(repository.findActiveContentHashes()).thenReturn(Map.of(oldUrls.get(0), "h1", oldUrls.get(1), "h2"));
         when(parser.fetchVacancies()).thenReturn(Arrays.asList());
         Vacancy oldVac = new Vacancy();
         oldVac.setTitle("Old Vacancy");
@@ -89,4 +103,296 @@ class VacancyParserServiceTest {
 
         verify(repository, never()).save(any(Vacancy.class));
     }
-} 
\ No newline at end of file
+
+    @Test
+    void parseAndSaveAll_SetBasedMode_ShouldReconcileInOneCall() throws IOException, InterruptedException, SQLException {
+        Vacancy vacancy = new Vacancy();
+        vacancy.setUrl("http://example.com/new");
+        when(parser.fetchVacancies()).thenReturn(Arrays.asList(vacancy));
+        when(repository.reconcile(anyList(), any(LocalDateTime.class), anySet()))
+                .thenReturn(new ReconcileResult(1, 1, 0, 0));
+        service = new VacancyParserService(repository, Arrays.asList(parser), VacancyParserService.SyncMode.SET_BASED);
+
+        service.parseAndSaveAll();
+
+        verify(repository).reconcile(eq(Arrays.asList(vacancy)), any(LocalDateTime.class), eq(Set.of()));
+        verify(repository, never()).existsByUrl(anyString());
+        verify(repository, never()).save(any(Vacancy.class));
+    }
+
+    @Test
+    void parseAndSaveAll_SetBasedMode_ShouldFallBackToPerRowOnError() throws IOException, InterruptedException, SQLException {
+        Vacancy vacancy = new Vacancy();
+        vacancy.setUrl("http://example.com/new");
+        vacancy.setTitle("New Vacancy");
+        when(parser.fetchVacancies()).thenReturn(Arrays.asList(vacancy));
+        when(repository.reconcile(anyList(), any(LocalDateTime.class), anySet())).thenThrow(new SQLException("no temp tables"));
+        service = new VacancyParserService(repository, Arrays.asList(parser), VacancyParserService.SyncMode.SET_BASED);
+
+        service.parseAndSaveAll();
+
+        verify(repository).save(vacancy);
+    }
+
+    @Test
+    void parseAndSaveAll_ShouldCancelSlowSourceAndPreserveItsVacancies() throws Exception {
+        Vacancy fast = new Vacancy();
+        fast.setUrl("http://example.com/fast");
+        when(parser.source()).thenReturn("fast.ru");
+        when(parser.fetchVacancies()).thenReturn(List.of(fast));
+
+        VacancyParser slow = mock(VacancyParser.class);
+        when(slow.source()).thenReturn("slow.ru");
+        Thread[] slowThread = new Thread[1];
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        when(slow.fetchVacancies()).thenAnswer(inv -> {
+            slowThread[0] = Thread.currentThread();
+            slowStarted.countDown();
+            Thread.sleep(60_000);
+            return List.of();
+        });
+        when(repository.reconcile(anyList(), any(LocalDateTime.class), anySet()))
+                .thenReturn(new ReconcileResult(1, 1, 0, 0));
+        service = new VacancyParserService(repository, List.of(slow, parser),
+                VacancyParserService.SyncMode.SET_BASED, null, Duration.ofMillis(200));
+
+        long start = System.nanoTime();
+        service.parseAndSaveAll();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 5_000, "Медленный источник должен быть отменён по сроку");
+        assertTrue(slowStarted.await(5, TimeUnit.SECONDS), "Медленный источник не был запущен");
+        assertTrue(slowThread[0].isVirtual());
+        verify(repository).reconcile(eq(List.of(fast)), any(LocalDateTime.class), eq(Set.of("slow.ru")));
+    }
+
+    @Test
+    void parseAndSaveAll_WithRecentWatermark_ShouldFetchIncrementallyAndKeepMissing() throws Exception {
+        LocalDateTime lastRun = LocalDateTime.now().minusHours(1);
+        Vacancy vacancy = new Vacancy();
+        vacancy.setUrl("http://example.com/new");
+        when(parser.source()).thenReturn("hh.ru");
+        when(parser.fetchVacancies(any(LocalDateTime.class))).thenReturn(List.of(vacancy));
+        when(repository.findWatermarks()).thenReturn(Map.of("hh.ru", new SyncWatermark("hh.ru", lastRun, lastRun)));
+        when(repository.reconcile(anyList(), any(LocalDateTime.class), anySet()))
+                .thenReturn(new ReconcileResult(1, 1, 0, 0));
+        service = new VacancyParserService(repository, List.of(parser), VacancyParserService.SyncMode.SET_BASED);
+
+        service.parseAndSaveAll();
+
+        verify(parser).fetchVacancies(argThat((LocalDateTime since) -> since.isBefore(lastRun)));
+        verify(parser, never()).fetchVacancies();
+        verify(repository).reconcile(eq(List.of(vacancy)), any(LocalDateTime.class), eq(Set.of("hh.ru")));
+        verify(repository).saveWatermark(argThat(w -> w.source().equals("hh.ru") && w.fullCrawlAt() == null));
+    }
+
+    @Test
+    void parseAndSaveAll_WithStaleFullCrawl_ShouldFetchEverything() throws Exception {
+        LocalDateTime lastRun = LocalDateTime.now().minusHours(1);
+        when(parser.source()).thenReturn("hh.ru");
+        when(parser.fetchVacancies()).thenReturn(List.of());
+        when(repository.findWatermarks()).thenReturn(Map.of("hh.ru",
+                new SyncWatermark("hh.ru", lastRun, lastRun.minusDays(7))));
+        when(repository.reconcile(anyList(), any(LocalDateTime.class), anySet()))
+                .thenReturn(new ReconcileResult(0, 0, 0, 0));
+        service = new VacancyParserService(repository, List.of(parser), VacancyParserService.SyncMode.SET_BASED);
+
+        service.parseAndSaveAll();
+
+        verify(parser, never()).fetchVacancies(any(LocalDateTime.class));
+        verify(repository).reconcile(anyList(), any(LocalDateTime.class), eq(Set.of()));
+        verify(repository).saveWatermark(argThat(w -> w.fullCrawlAt() != null));
+    }
+
+    @Test
+    void parseAndSaveAll_PipelinedMode_ShouldWriteBatchesAndFinishSession() throws Exception {
+        Vacancy vacancy = new Vacancy();
+        vacancy.setUrl("https://hh.ru/vacancy/1");
+        when(parser.source()).thenReturn("hh.ru");
+        when(parser.fetchVacancies()).thenReturn(List.of(vacancy));
+        doCallRealMethod().when(parser).fetchVacancies(any(), any());
+        VacancyRepository.SyncSession session = mock(VacancyRepository.SyncSession.class);
+        when(repository.openSyncSession()).thenReturn(session);
+        when(session.finish(any(LocalDateTime.class), anySet(), anyBoolean()))
+                .thenReturn(new ReconcileResult(1, 1, 0, 0));
+        service = new VacancyParserService(repository, List.of(parser), VacancyParserService.SyncMode.PIPELINED);
+
+        service.parseAndSaveAll();
+
+        verify(session).write(eq(List.of(vacancy)), any(LocalDateTime.class));
+        verify(session).finish(any(LocalDateTime.class), eq(Set.of()), eq(true));
+        verify(session).close();
+        verify(repository, never()).reconcile(anyList(), any(LocalDateTime.class), anySet());
+        verify(repository).saveWatermark(argThat(w -> w.fullCrawlAt() != null));
+    }
+
+    @Test
+    void parseAndSaveAll_PipelinedMode_ShouldStopOnWriteError() throws Exception {
+        Vacancy vacancy = new Vacancy();
+        vacancy.setUrl("https://hh.ru/vacancy/1");
+        when(parser.source()).thenReturn("hh.ru");
+        when(parser.fetchVacancies()).thenReturn(List.of(vacancy));
+        doCallRealMethod().when(parser).fetchVacancies(any(), any());
+        VacancyRepository.SyncSession session = mock(VacancyRepository.SyncSession.class);
+        when(repository.openSyncSession()).thenReturn(session);
+        doThrow(new SQLException("disk full")).when(session).write(anyCollection(), any(LocalDateTime.class));
+        service = new VacancyParserService(repository, List.of(parser), VacancyParserService.SyncMode.PIPELINED);
+
+        service.parseAndSaveAll();
+
+        verify(session, never()).finish(any(LocalDateTime.class), anySet(), anyBoolean());
+        verify(session).close();
+        verify(repository, never()).saveWatermark(any());
+    }
+
+    @Test
+    void parseAndSaveAll_WithSpool_ShouldKeepCrawlUntilDatabaseIsBack(@TempDir Path dir) throws Exception {
+        Vacancy vacancy = new Vacancy();
+        vacancy.setUrl("https://hh.ru/vacancy/1");
+        when(parser.source()).thenReturn("hh.ru");
+        when(parser.fetchVacancies()).thenReturn(List.of(vacancy));
+        when(repository.reconcile(anyList(), any(LocalDateTime.class), anySet()))
+                .thenThrow(new SQLException("connection refused"));
+        when(repository.findActiveContentHashes()).thenThrow(new SQLException("connection refused"));
+        VacancySpool spool = new VacancySpool(dir, 1024 * 1024);
+        service = new VacancyParserService(repository, List.of(parser), VacancyParserService.SyncMode.SET_BASED,
+                null, Duration.ofSeconds(30), spool);
+
+        service.parseAndSaveAll();
+        service.parseAndSaveAll();
+
+        verify(parser, times(1)).fetchVacancies();
+        verify(repository, never()).saveWatermark(any());
+        assertEquals(1, spool.pending().size());
+
+        reset(repository);
+        when(repository.reconcile(anyList(), any(LocalDateTime.class), anySet()))
+                .thenReturn(new ReconcileResult(1, 1, 0, 0));
+
+        assertEquals(1, service.drainSpool());
+        verify(repository).reconcile(argThat(list -> list.size() == 1
+                && "https://hh.ru/vacancy/1".equals(list.get(0).getUrl())), any(LocalDateTime.class), eq(Set.of()));
+        verify(repository).saveWatermark(argThat(w -> "hh.ru".equals(w.source()) && w.fullCrawlAt() != null));
+        assertTrue(spool.pending().isEmpty());
+    }
+
+    @Test
+    void parseAndSaveAll_PerRowMode_ShouldWriteDescriptionsOfKnownVacancies() throws Exception {
+        Vacancy known = new Vacancy();
+        known.setUrl("https://hh.ru/vacancy/1");
+        known.setDescription("Полное описание");
+        when(parser.source()).thenReturn("hh.ru");
+        when(parser.fetchVacancies()).thenReturn(List.of(known));
+        when(repository.findActiveContentHashes())
+                .thenReturn(Map.of("https://hh.ru/vacancy/1", ContentHash.of(known)));
+        when(repository.existsByUrl(anyString())).thenReturn(true);
+        service = new VacancyParserService(repository, List.of(parser), VacancyParserService.SyncMode.PER_ROW);
+
+        service.parseAndSaveAll();
+
+        verify(repository).saveDescriptions(Map.of("https://hh.ru/vacancy/1", "Полное описание"));
+        verify(repository, never()).save(any(Vacancy.class));
+        verify(repository, never()).updateContent(anyList(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void parseAndSaveAll_PerRowMode_ShouldRewriteOnlyVacanciesWithChangedContent() throws Exception {
+        Vacancy same = new Vacancy();
+        same.setUrl("https://hh.ru/vacancy/1");
+        same.setTitle("Java");
+        Vacancy raised = new Vacancy();
+        raised.setUrl("https://hh.ru/vacancy/2");
+        raised.setTitle("Java");
+        raised.setSalaryFrom(250_000);
+        Vacancy before = new Vacancy();
+        before.setUrl("https://hh.ru/vacancy/2");
+        before.setTitle("Java");
+        before.setSalaryFrom(200_000);
+        when(parser.source()).thenReturn("hh.ru");
+        when(parser.fetchVacancies()).thenReturn(List.of(same, raised));
+        when(repository.findActiveContentHashes()).thenReturn(Map.of(
+                "https://hh.ru/vacancy/1", ContentHash.of(same),
+                "https://hh.ru/vacancy/2", ContentHash.of(before)));
+        when(repository.existsByUrl(anyString())).thenReturn(true);
+        when(repository.updateContent(anyList(), any(LocalDateTime.class))).thenReturn(new BatchResult(1, List.of()));
+        service = new VacancyParserService(repository, List.of(parser), VacancyParserService.SyncMode.PER_ROW);
+
+        service.parseAndSaveAll();
+
+        verify(repository).updateContent(eq(List.of(raised)), any(LocalDateTime.class));
+        verify(repository, never()).reactivate(anyLong(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void drainSpool_ShouldKeepSegmentWhenConnectionDropsMidWrite(@TempDir Path dir) throws Exception {
+        Vacancy first = new Vacancy();
+        first.setUrl("https://hh.ru/vacancy/1");
+        Vacancy second = new Vacancy();
+        second.setUrl("https://hh.ru/vacancy/2");
+        when(parser.source()).thenReturn("hh.ru");
+        when(parser.fetchVacancies()).thenReturn(List.of(first, second));
+        when(repository.existsByUrl(anyString())).thenReturn(false);
+        doNothing().doThrow(new SQLException("I/O error", "08006"))
+                .when(repository).save(any(Vacancy.class));
+        VacancySpool spool = new VacancySpool(dir, 1024 * 1024);
+        service = new VacancyParserService(repository, List.of(parser), VacancyParserService.SyncMode.PER_ROW,
+                null, Duration.ofSeconds(30), spool);
+
+        service.parseAndSaveAll();
+
+        verify(repository, times(2)).save(any(Vacancy.class));
+        verify(repository, never()).saveWatermark(any());
+        assertEquals(1, spool.pending().size());
+        assertEquals(-1, service.drainSpool());
+        assertEquals(1, spool.pending().size());
+    }
+
+    @Test
+    void parseAndSaveAll_PipelinedWithSpool_ShouldSpoolCrawlWhenWriteFails(@TempDir Path dir) throws Exception {
+        Vacancy vacancy = new Vacancy();
+        vacancy.setUrl("https://hh.ru/vacancy/1");
+        when(parser.source()).thenReturn("hh.ru");
+        when(parser.fetchVacancies()).thenReturn(List.of(vacancy));
+        doCallRealMethod().when(parser).fetchVacancies(any(), any());
+        VacancyRepository.SyncSession session = mock(VacancyRepository.SyncSession.class);
+        when(repository.openSyncSession()).thenReturn(session);
+        doThrow(new SQLException("I/O error", "08006")).when(session).write(anyCollection(), any(LocalDateTime.class));
+        VacancySpool spool = new VacancySpool(dir, 1024 * 1024);
+        service = new VacancyParserService(repository, List.of(parser), VacancyParserService.SyncMode.PIPELINED,
+                null, Duration.ofSeconds(30), spool);
+
+        service.parseAndSaveAll();
+
+        verify(session, never()).finish(any(LocalDateTime.class), anySet(), anyBoolean());
+        verify(repository, never()).saveWatermark(any());
+        List<Path> pending = spool.pending();
+        assertEquals(1, pending.size());
+        VacancySpool.Segment segment = spool.read(pending.get(0));
+        assertEquals(List.of("https://hh.ru/vacancy/1"), segment.vacancies().stream().map(Vacancy::getUrl).toList());
+        assertEquals(Set.of("hh.ru"), segment.header().fullCrawls());
+    }
+
+    @Test
+    void parseAndSaveAll_PipelinedWithSpool_ShouldDropSegmentAfterSuccess(@TempDir Path dir) throws Exception {
+        Vacancy vacancy = new Vacancy();
+        vacancy.setUrl("https://hh.ru/vacancy/1");
+        when(parser.source()).thenReturn("hh.ru");
+        when(parser.fetchVacancies()).thenReturn(List.of(vacancy));
+        doCallRealMethod().when(parser).fetchVacancies(any(), any());
+        VacancyRepository.SyncSession session = mock(VacancyRepository.SyncSession.class);
+        when(repository.openSyncSession()).thenReturn(session);
+        when(session.finish(any(LocalDateTime.class), anySet(), anyBoolean()))
+                .thenReturn(new ReconcileResult(1, 1, 0, 0));
+        VacancySpool spool = new VacancySpool(dir, 1024 * 1024);
+        service = new VacancyParserService(repository, List.of(parser), VacancyParserService.SyncMode.PIPELINED,
+                null, Duration.ofSeconds(30), spool);
+
+        service.parseAndSaveAll();
+
+        verify(session).finish(any(LocalDateTime.class), anySet(), anyBoolean());
+        assertTrue(spool.pending().isEmpty());
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.spool;
+
+import org.example.model.Vacancy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для VacancySpool.
+ * Проверяет запись и чтение сегментов, обнаружение повреждений и порядок сегментов.
+ */
+class VacancySpoolTest {
+
+    private static final LocalDateTime SYNC_TIME = LocalDateTime.of(2026, 10, 18, 9, 0);
+
+    private static List<Vacancy> vacancies(int count) {
+        List<Vacancy> list = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Vacancy v = new Vacancy();
+            v.setUrl("https://hh.ru/vacancy/" + i);
+            v.setTitle("Java Developer\t" + i);
+            v.setSalaryFrom(100000 + i);
+            v.setPublishedDate(SYNC_TIME.minusDays(1));
+            v.setSource("hh");
+            v.setContentHash("hash" + i);
+            list.add(v);
+        }
+        return list;
+    }
+
+    private static VacancySpool.Header header() {
+        return new VacancySpool.Header(SYNC_TIME, Set.of("superjob"), true, Set.of("hh"), Set.of());
+    }
+
+    @Test
+    void append_ShouldRoundTripHeaderAndVacancies(@TempDir Path dir) throws IOException {
+        VacancySpool spool = new VacancySpool(dir, 1024 * 1024);
+
+        Path file = spool.append(header(), vacancies(1201));
+        VacancySpool.Segment segment = spool.read(file);
+
+        assertEquals(List.of(file), spool.pending());
+        assertEquals(header(), segment.header());
+        assertEquals(1201, segment.vacancies().size());
+        Vacancy last = segment.vacancies().get(1200);
+        assertEquals("https://hh.ru/vacancy/1200", last.getUrl());
+        assertEquals("Java Developer\t1200", last.getTitle());
+        assertEquals(101200, last.getSalaryFrom());
+        assertEquals(SYNC_TIME.minusDays(1), last.getPublishedDate());
+        assertEquals("hash1200", last.getContentHash());
+    }
+
+    @Test
+    void read_ShouldRejectCorruptedSegment(@TempDir Path dir) throws IOException {
+        VacancySpool spool = new VacancySpool(dir, 1024 * 1024);
+        Path file = spool.append(header(), vacancies(3));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x20;
+        Files.write(file, bytes);
+
+        assertThrows(IOException.class, () -> spool.read(file));
+
+        spool.quarantine(file);
+        assertTrue(spool.pending().isEmpty());
+        assertTrue(Files.exists(dir.resolve(file.getFileName() + ".corrupt")));
+    }
+
+    @Test
+    void constructor_ShouldDropUnfinishedSegmentsAndContinueNumbering(@TempDir Path dir) throws IOException {
+        VacancySpool first = new VacancySpool(dir, 1024 * 1024);
+        Path a = first.append(header(), vacancies(1));
+        Files.writeString(dir.resolve("segment-0000000000000000099.log.part"), "обрыв");
+
+        VacancySpool reopened = new VacancySpool(dir, 1024 * 1024);
+        Path b = reopened.append(header(), vacancies(2));
+
+        assertEquals(List.of(a, b), reopened.pending());
+        assertFalse(Files.exists(dir.resolve("segment-0000000000000000099.log.part")));
+    }
+}